@@ -1,16 +1,83 @@
 package ai;
 
 import backend.Board;
+import backend.BoardState;
+import backend.MockBoard;
+import backend.OpeningBook;
 import entities.Stone;
 import gui.GameFrame;
 
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public abstract class AIPlayer {
+    /**
+     * How long {@code findMove} may wait after the budget of a move before it is given up on, in milliseconds.
+     */
+    private static final long GRACE_PERIOD = 250;
+    /**
+     * Stands for a search that was given up on. Compared by reference only.
+     */
+    private static final int[] TIMED_OUT = new int[0];
+    /**
+     * How long the pondering thread of an AI is kept around without anything to ponder, in seconds.
+     */
+    private static final long PONDER_KEEP_ALIVE = 30;
+
     /**
      * The stone this AI should use.
      */
     Stone stone;
+    /**
+     * The time this AI may spend on its moves.
+     */
+    private TimeControl timeControl = new TimeControl();
+    /**
+     * Whether this AI thinks about its next move while the opponent is thinking.
+     */
+    private boolean pondering;
+    /**
+     * The moves found while pondering, keyed by the Zobrist hash of the position after each opponent reply.
+     */
+    private final Map<Long, int[]> replies = new ConcurrentHashMap<>();
+    /**
+     * Cancelled when the opponent moves, stopping the pondering. {@code null} if not pondering.
+     */
+    private volatile Deadline ponderDeadline;
+    /**
+     * Runs the pondering of this AI, one position at a time.
+     */
+    private final ThreadPoolExecutor ponderer = newPonderer();
+    /**
+     * The pondering started last, until it has been waited for. {@code null} if there is none.
+     */
+    private volatile Future<?> ponderTask;
+    /**
+     * The book of opening moves to play before searching, or {@code null}.
+     */
+    private OpeningBook openingBook;
+    /**
+     * The number of plies from the start of the game the opening book is used for.
+     */
+    private int bookPlies;
+    /**
+     * Solves positions near the end of the game exactly instead of searching, or {@code null}.
+     */
+    private EndgameSolver endgameSolver;
+    /** The number of moves answered from pondering. */
+    private final AtomicInteger ponderHits = new AtomicInteger();
+    /** The number of moves searched from scratch while pondering was on. */
+    private final AtomicInteger ponderMisses = new AtomicInteger();
 
     /**
      * Instantiates the AI player.
@@ -26,6 +93,15 @@ public abstract class AIPlayer {
      * It will skip to the next turn if it cannot make a move.
      * Can be called when it's not the AI's turn, in which case
      * this has no effect.
+     * <p>
+     * The search is given the budget from the time control, and the AIs that search for a while
+     * return their best move so far once it runs out. If the search still hasn't answered
+     * shortly after that, as happens with an AI that ignores its deadline, a random valid move
+     * is played instead so the game never freezes. The move is shown no earlier than the minimum
+     * delay of the time control, which runs alongside the search and is not charged to the clock.
+     * <p>
+     * If pondering is on, the move is taken straight from the reply found while the opponent
+     * was thinking when there is one, and pondering starts again once the stone is placed.
      */
     public void makeMove() {
         Board board = Board.getInstance();
@@ -35,23 +111,45 @@ public abstract class AIPlayer {
 
         board.toggleInteractable();
 
-        // Run findMove() in a background task
-        CompletableFuture<int[]> finderFuture = CompletableFuture.supplyAsync(this::findMove);
+        // take the snapshot now, while the board is sure to be in this state
+        MockBoard position = new MockBoard();
+        long budget = this.timeControl.budgetFor(position);
+        Deadline deadline = Deadline.after(budget);
+        long start = System.nanoTime();
 
-        // Run a 1-second timer
-        CompletableFuture<Void> timerFuture = CompletableFuture.runAsync(() -> {
-            try {
-                Thread.sleep(1000);
-            } catch (InterruptedException e) {
-                throw new RuntimeException(e);
-            }
-        });
+        // Run findMove() in a background task, giving up on it if it overruns the budget.
+        // Stopping the pondering happens there too, so that the calling thread never waits for it.
+        CompletableFuture<int[]> finderFuture = CompletableFuture
+                .supplyAsync(() -> {
+                    int[] pondered = this.takePonderedMove(position);
+                    return pondered != null ? pondered : this.selectMove(position, deadline);
+                })
+                .completeOnTimeout(TIMED_OUT, budget + GRACE_PERIOD, TimeUnit.MILLISECONDS)
+                .thenApply(move -> {
+                    // only the thinking is charged to the clock, not the minimum delay
+                    this.timeControl.charge((System.nanoTime() - start) / 1_000_000);
+                    return move;
+                });
+
+        // Run the minimum delay alongside the search
+        CompletableFuture<Void> timerFuture = CompletableFuture.runAsync(() -> {},
+                CompletableFuture.delayedExecutor(this.timeControl.getMinimumDelay(), TimeUnit.MILLISECONDS));
 
         // Continue when both finder and timer are completed
         CompletableFuture.allOf(finderFuture, timerFuture).thenRun(() -> {
             int[] move = finderFuture.join();
+            if (move == TIMED_OUT) {
+                // only an AI that ignores its deadline gets here
+                deadline.cancel();
+                move = Randomazo.findRandomMove(position);
+            }
 
             if (move != null) {
+                if (this.pondering) {
+                    MockBoard next = position.copy();
+                    next.placeStone(move[0], move[1]);
+                    this.startPondering(next);
+                }
                 board.placeStone(move[0], move[1]);
             } else {
                 GameFrame.getInstance().nextTurn();
@@ -62,12 +160,291 @@ public abstract class AIPlayer {
     }
 
     /**
-     * Finds the best move for this AI player.
-     * This method should analyze the board and return the coordinate
+     * Creates the executor the pondering of an AI runs on. Its thread is a daemon,
+     * and it is let go when the AI has not pondered for a while, so idle AIs hold no thread.
+     *
+     * @return The executor.
+     */
+    private static ThreadPoolExecutor newPonderer() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, PONDER_KEEP_ALIVE, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), task -> {
+                    Thread thread = new Thread(task, "ponder");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Stops the pondering and looks up the move found for a position, forgetting the other replies.
+     * The pondering is waited for before the lookup, so that it no longer competes with the search
+     * for the real move. An AI that ignores its deadline may not stop in time, in which case
+     * it is left to finish on its own and the position counts as a miss; a search that was
+     * stopped never stores its reply, so the replies cannot fill up again either way.
+     *
+     * @param position The position to move in. It is not modified.
+     * @return The pondered move, or {@code null} if pondering is off or the position was not pondered on.
+     */
+    public int[] takePonderedMove(BoardState position) {
+        if (!this.pondering) {
+            return null;
+        }
+        this.stopPondering();
+        int[] move = this.awaitPondering() ? this.replies.get(position.zobrist()) : null;
+        this.replies.clear();
+        // make sure the move is really valid in case two positions share a hash
+        boolean valid = move != null && position.getValidMoves().stream()
+                .anyMatch(option -> option[0] == move[0] && option[1] == move[1]);
+        if (valid) {
+            this.ponderHits.incrementAndGet();
+            return move;
+        }
+        this.ponderMisses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Starts thinking about the opponent's likely replies in the background, after stopping
+     * any pondering still running. The replies that flip the most stones are considered first,
+     * and each gets the budget of a normal move until the opponent moves.
+     * The moves found are used by {@code takePonderedMove} while pondering is on.
+     *
+     * @param position The position after this AI's move, with the opponent to move. It is not modified.
+     * @return The pondering, which is done once every reply has been thought about or the opponent moves.
+     */
+    public Future<?> startPondering(BoardState position) {
+        this.stopPondering();
+        MockBoard start = new MockBoard(position);
+        Deadline ponder = Deadline.none();
+        this.ponderDeadline = ponder;
+        Future<?> task = this.ponderer.submit(() -> {
+            List<int[]> opponentMoves = start.getValidMoves();
+            opponentMoves.sort(Comparator.comparingInt((int[] reply) -> {
+                MockBoard next = start.copy();
+                return -next.placeStone(reply[0], reply[1]);
+            }));
+            for (int[] reply : opponentMoves) {
+                if (ponder.isExpired()) {
+                    return;
+                }
+                MockBoard next = start.copy();
+                next.placeStone(reply[0], reply[1]);
+                if (!this.stone.equals(next.getTurn())) {
+                    continue;
+                }
+                Deadline replyDeadline = ponder.within(this.timeControl.budgetFor(next));
+                int[] move = this.selectMove(next, replyDeadline);
+                // a search cut short by the opponent's move is not worth keeping
+                if (move != null && !ponder.isExpired()) {
+                    this.replies.put(next.zobrist(), move);
+                }
+            }
+        });
+        this.ponderTask = task;
+        return task;
+    }
+
+    /**
+     * Stops the pondering if it is running, without waiting for it.
+     */
+    private void stopPondering() {
+        Deadline ponder = this.ponderDeadline;
+        if (ponder != null) {
+            ponder.cancel();
+            this.ponderDeadline = null;
+        }
+    }
+
+    /**
+     * Waits for the pondering started last to finish, which it does soon after it is stopped,
+     * but no longer than {@code GRACE_PERIOD}.
+     *
+     * @return {@code true} if the pondering finished, {@code false} if it is still running.
+     */
+    private boolean awaitPondering() {
+        Future<?> task = this.ponderTask;
+        if (task == null) {
+            return true;
+        }
+        try {
+            task.get(GRACE_PERIOD, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            return false;
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        }
+        this.ponderTask = null;
+        return true;
+    }
+
+    /**
+     * Called by {@code Board.placeStone} whenever a stone is placed.
+     * When the opponent moves, the pondering is stopped so that the search for the
+     * actual reply has every core, and whatever was found stays in the reply cache
+     * (and in the transposition table of searching AIs) to be reused.
+     *
+     * @param stone The stone that was placed.
+     * @param row The row it was placed in.
+     * @param col The column it was placed in.
+     */
+    public void notifyStonePlaced(Stone stone, int row, int col) {
+        if (!stone.equals(this.stone)) {
+            this.stopPondering();
+        }
+    }
+
+    /**
+     * @return Whether this AI thinks about its next move while the opponent is thinking.
+     */
+    public boolean isPondering() {
+        return this.pondering;
+    }
+
+    /**
+     * Turns pondering on or off. While it is on, this AI thinks about the opponent's likely
+     * replies after each of its moves, so that it can answer right away if one of them is played.
+     *
+     * @param pondering Whether to ponder.
+     */
+    public void setPondering(boolean pondering) {
+        this.pondering = pondering;
+        if (!pondering) {
+            this.stopPondering();
+            this.replies.clear();
+        }
+    }
+
+    /**
+     * @return The fraction of moves answered from pondering while it was on, from 0 to 1.
+     */
+    public double getPonderHitRate() {
+        int hits = this.ponderHits.get();
+        int total = hits + this.ponderMisses.get();
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+
+    /**
+     * Picks the move to play: from the opening book early in the game, from the endgame solver
+     * near the end of the game, or by searching otherwise.
+     * Anything playing this AI should call this rather than {@code findMove}.
+     * The solver gets half the time left, so there is still time to search if it doesn't finish.
+     *
+     * @param position The position to move in. It should be this AI's turn.
+     *                 It is not modified, so callers may share it.
+     * @param deadline The time the move is due.
+     * @return An array [row, col] representing the coordinate
+     *         of the square to place the stone, or {@code null} if no valid move exists.
+     */
+    public int[] selectMove(BoardState position, Deadline deadline) {
+        if (this.openingBook != null) {
+            int size = position.getSize();
+            int plies = position.countStones(Stone.BLACK) + position.countStones(Stone.WHITE) - 4;
+            if (plies < this.bookPlies) {
+                int square = this.openingBook.getMove(position);
+                // make sure the move is really valid in case two positions share a hash
+                if (square != OpeningBook.NO_MOVE && position.getValidMoves().stream()
+                        .anyMatch(option -> option[0] * size + option[1] == square)) {
+                    return new int[] {square / size, square % size};
+                }
+            }
+        }
+        if (this.endgameSolver != null && this.endgameSolver.canSolve(position)) {
+            long remaining = deadline.remainingMillis();
+            EndgameSolver.Result result = this.endgameSolver.solve(position,
+                    remaining == Long.MAX_VALUE ? deadline : deadline.within(remaining / 2));
+            if (result.complete() && result.move() >= 0) {
+                int size = position.getSize();
+                return new int[] {result.move() / size, result.move() % size};
+            }
+        }
+        return this.findMove(position, deadline);
+    }
+
+    /**
+     * Lets this AI play perfectly once few enough squares are empty.
+     *
+     * @param endgameSolver The solver to hand off to, or {@code null} to always search.
+     */
+    public void setEndgameSolver(EndgameSolver endgameSolver) {
+        this.endgameSolver = endgameSolver;
+    }
+
+    /**
+     * @return The solver this AI hands off to near the end of the game, or {@code null}.
+     */
+    public EndgameSolver getEndgameSolver() {
+        return this.endgameSolver;
+    }
+
+    /**
+     * Lets this AI play moves from an opening book at the start of the game.
+     *
+     * @param openingBook The book to use, or {@code null} to stop using one.
+     * @param plies The number of plies from the start of the game to use the book for.
+     */
+    public void setOpeningBook(OpeningBook openingBook, int plies) {
+        this.openingBook = openingBook;
+        this.bookPlies = plies;
+    }
+
+    /**
+     * @return The time control used by {@code makeMove}.
+     */
+    public TimeControl getTimeControl() {
+        return this.timeControl;
+    }
+
+    /**
+     * Changes the time control used by {@code makeMove}. Set this before the game starts,
+     * since the game clock starts over with the new time control.
+     *
+     * @param timeControl The time control to use.
+     */
+    public void setTimeControl(TimeControl timeControl) {
+        this.timeControl = timeControl;
+    }
+
+    /**
+     * Finds the best move for this AI player on the current state of the Board.
+     * This takes a snapshot of the Board and hands it to {@code findMove(BoardState)}.
+     *
+     * @return An array [row, col] representing the coordinate
+     *         of the square to place the stone, or {@code null} if no valid move exists.
+     */
+    public int[] findMove() {
+        return this.findMove(new MockBoard());
+    }
+
+    /**
+     * Finds the best move for this AI player in the given position.
+     * This method should analyze the position and return the coordinate
      * of the square where the AI wants to place its stone.
+     * It must not depend on the Board singleton or any other global state,
+     * so that many games can be played at once without the GUI.
+     *
+     * @param position The position to move in. It should be this AI's turn.
+     *                 It is not modified, so callers may share it.
+     * @return An array [row, col] representing the coordinate
+     *         of the square to place the stone, or {@code null} if no valid move exists.
+     */
+    public abstract int[] findMove(BoardState position);
+
+    /**
+     * Finds the best move for this AI player in the given position before a deadline.
+     * AIs that search for a while should override this, poll {@code deadline.isExpired()}
+     * and return the best move found so far once it expires.
+     * By default, the deadline is ignored, which is fine for AIs that answer right away.
      *
+     * @param position The position to move in. It should be this AI's turn.
+     *                 It is not modified, so callers may share it.
+     * @param deadline The time the move is due.
      * @return An array [row, col] representing the coordinate
      *         of the square to place the stone, or {@code null} if no valid move exists.
      */
-    public abstract int[] findMove();
+    public int[] findMove(BoardState position, Deadline deadline) {
+        return this.findMove(position);
+    }
 }
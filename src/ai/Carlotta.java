@@ -0,0 +1,357 @@
+package ai;
+
+import backend.BoardState;
+import backend.MoveUndo;
+import entities.Stone;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+/**
+ * Ms. Carlotta doesn't calculate; she gambles. She plays thousands of random games
+ * from the current position, spending more of them on the moves that keep winning,
+ * and picks the move she ended up trying the most.
+ * Her friends help her at the same time, one per processor core,
+ * which is what makes her a good choice for large boards.
+ */
+public class Carlotta extends AIPlayer {
+    /** The default time she takes to think about a move, in milliseconds. */
+    public static final long DEFAULT_TIME_BUDGET = 1000;
+    /** How much she prefers trying moves she knows little about over moves that did well. */
+    private static final double EXPLORATION = Math.sqrt(2);
+    /** The move of a node where the turn was passed. */
+    private static final int PASS = -1;
+
+    /** The time she takes to think about a move, in milliseconds. */
+    private long timeBudget;
+    /** The number of threads playing random games. */
+    private int threads;
+    /** The number of random games played for the last move. */
+    private long lastPlayouts;
+    /** The time spent on the last move, in nanoseconds. */
+    private long lastElapsed;
+
+    /**
+     * Invite Ms. Carlotta to play. She will think for about a second per move
+     * using every processor core.
+     *
+     * @param stone The stone she should use.
+     */
+    public Carlotta(Stone stone) {
+        this(stone, DEFAULT_TIME_BUDGET, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Invite Ms. Carlotta to play, telling her how long she may think and how many friends to bring.
+     *
+     * @param stone The stone she should use.
+     * @param timeBudget The time she takes to think about a move, in milliseconds.
+     * @param threads The number of threads playing random games.
+     * @throws IllegalArgumentException If the number of threads is not positive.
+     */
+    public Carlotta(Stone stone, long timeBudget, int threads) {
+        super(stone);
+        if (threads <= 0) {
+            throw new IllegalArgumentException("At least one thread is needed.");
+        }
+        this.timeBudget = timeBudget;
+        this.threads = threads;
+    }
+
+    @Override
+    public int[] findMove(BoardState position) {
+        return this.findMove(position, Deadline.none());
+    }
+
+    /**
+     * Finds a move, stopping at her time budget or the deadline, whichever comes first.
+     *
+     * @param position The position to move in. It should be her turn.
+     * @param deadline The time the move is due.
+     * @return The move tried the most as [row, col], or {@code null} if no valid move exists.
+     */
+    @Override
+    public int[] findMove(BoardState position, Deadline deadline) {
+        long start = System.nanoTime();
+        BoardState board = BoardState.compactCopyOf(position);
+        Node root = new Node(PASS);
+        root.expand(board, new int[board.getSize() * board.getSize()]);
+        if (root.children.length == 0 || root.children[0].move == PASS) {
+            // no possible move at the current state
+            return null;
+        }
+        if (root.children.length == 1) {
+            return toCoordinate(root.children[0].move, board.getSize());
+        }
+
+        Deadline stop = deadline.within(this.timeBudget);
+        Worker[] workers = new Worker[this.threads];
+        Thread[] running = new Thread[this.threads];
+        for (int i = 0; i < this.threads; i++) {
+            workers[i] = new Worker(root, board.copy(), stop);
+            running[i] = new Thread(workers[i], "Carlotta-" + i);
+            running[i].setDaemon(true);
+            running[i].start();
+        }
+        long playouts = 0;
+        for (int i = 0; i < this.threads; i++) {
+            try {
+                running[i].join();
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+            playouts += workers[i].playouts;
+        }
+        this.lastPlayouts = playouts;
+        this.lastElapsed = System.nanoTime() - start;
+
+        // the most tried move is the most trusted one
+        Node best = root.children[0];
+        for (Node child : root.children) {
+            if (child.visits > best.visits) {
+                best = child;
+            }
+        }
+        return toCoordinate(best.move, board.getSize());
+    }
+
+    /**
+     * @param square The square as {@code row * size + col}.
+     * @param size The size of the board.
+     * @return The square as [row, col].
+     */
+    private static int[] toCoordinate(int square, int size) {
+        return new int[] {square / size, square % size};
+    }
+
+    /**
+     * @return The number of random games played for the last move.
+     */
+    public long getLastPlayouts() {
+        return this.lastPlayouts;
+    }
+
+    /**
+     * @return The number of random games played per second for the last move, over all threads.
+     */
+    public double getLastPlayoutsPerSecond() {
+        return this.lastElapsed == 0 ? 0.0 : this.lastPlayouts * 1e9 / this.lastElapsed;
+    }
+
+    /**
+     * @return The number of threads playing random games.
+     */
+    public int getThreads() {
+        return this.threads;
+    }
+
+    /**
+     * A position in the tree shared by every worker. All counters are updated atomically
+     * without locks. A worker counts its visit on the way down and its result on the way up,
+     * so a game still being played counts as a loss in the meantime. This virtual loss steers
+     * the other workers towards different moves instead of piling onto the same one.
+     */
+    private static class Node {
+        private static final AtomicIntegerFieldUpdater<Node> VISITS =
+                AtomicIntegerFieldUpdater.newUpdater(Node.class, "visits");
+        private static final AtomicLongFieldUpdater<Node> WINS =
+                AtomicLongFieldUpdater.newUpdater(Node.class, "wins");
+        private static final AtomicReferenceFieldUpdater<Node, Node[]> CHILDREN =
+                AtomicReferenceFieldUpdater.newUpdater(Node.class, Node[].class, "children");
+        private static final Node[] NO_CHILDREN = new Node[0];
+
+        /** The move that leads here as {@code row * size + col}, or {@code PASS}. */
+        final int move;
+        /** The number of games played through here, including the ones still being played. */
+        volatile int visits;
+        /** Twice the number of games won by the player who made the move, counting a draw as half a win. */
+        volatile long wins;
+        /** The positions after each move, or {@code null} until expanded. Empty if the game is over. */
+        volatile Node[] children;
+
+        /**
+         * @param move The move that leads here as {@code row * size + col}, or {@code PASS}.
+         */
+        Node(int move) {
+            this.move = move;
+        }
+
+        /**
+         * Creates the children of this node if no other worker has done it yet.
+         *
+         * @param board The position of this node. It is restored before returning.
+         * @param buffer Scratch buffer for the moves.
+         * @return The children of this node.
+         */
+        Node[] expand(BoardState board, int[] buffer) {
+            Node[] created;
+            int count = board.fillValidMoves(buffer);
+            if (count > 0) {
+                created = new Node[count];
+                for (int i = 0; i < count; i++) {
+                    created[i] = new Node(buffer[i]);
+                }
+            }
+            else {
+                board.nextTurn();
+                boolean gameOver = board.fillValidMoves(buffer) == 0;
+                board.nextTurn();
+                created = gameOver ? NO_CHILDREN : new Node[] {new Node(PASS)};
+            }
+            // whoever expands first wins, and the others use their children
+            CHILDREN.compareAndSet(this, null, created);
+            return this.children;
+        }
+
+        /**
+         * Picks the child with the highest upper confidence bound (UCT).
+         * A child nobody has tried yet is always picked first.
+         *
+         * @return The chosen child.
+         */
+        Node select() {
+            Node[] nodes = this.children;
+            double logVisits = Math.log(Math.max(this.visits, 1));
+            Node best = nodes[0];
+            double bestValue = Double.NEGATIVE_INFINITY;
+            for (Node child : nodes) {
+                int childVisits = child.visits;
+                if (childVisits == 0) {
+                    return child;
+                }
+                double value = child.wins / (2.0 * childVisits) + EXPLORATION * Math.sqrt(logVisits / childVisits);
+                if (value > bestValue) {
+                    bestValue = value;
+                    best = child;
+                }
+            }
+            return best;
+        }
+    }
+
+    /**
+     * Plays random games from the shared tree until the deadline.
+     * Each worker walks the tree on its own copy of the board.
+     */
+    private static class Worker implements Runnable {
+        /** The root of the shared tree. */
+        private final Node root;
+        /** The position of the root. Changed during a walk and restored after. */
+        private final BoardState board;
+        /** The time to stop. */
+        private final Deadline deadline;
+        /** Scratch buffer for move generation. */
+        private final int[] buffer;
+        /** The random source of this worker alone, so workers don't contend. */
+        private final SplittableRandom random = new SplittableRandom(ThreadLocalRandom.current().nextLong());
+        /** The nodes walked through in the current game. */
+        private final List<Node> path = new ArrayList<>();
+        /** The player who made the move into each node of the path. */
+        private final List<Stone> movers = new ArrayList<>();
+        /** The moves made on the board in the current game, {@code null} for a pass. */
+        private final List<MoveUndo> undos = new ArrayList<>();
+        /** The number of random games played. */
+        long playouts;
+
+        Worker(Node root, BoardState board, Deadline deadline) {
+            this.root = root;
+            this.board = board;
+            this.deadline = deadline;
+            this.buffer = new int[board.getSize() * board.getSize()];
+        }
+
+        @Override
+        public void run() {
+            while (!this.deadline.isExpired()) {
+                this.playOnce();
+                this.playouts++;
+            }
+        }
+
+        /**
+         * Walks down the tree, plays a random game from where it ends and records the result.
+         */
+        private void playOnce() {
+            int size = this.board.getSize();
+            Node node = this.root;
+            Node.VISITS.incrementAndGet(node);
+            while (true) {
+                Node[] children = node.children;
+                if (children == null) {
+                    if (node.visits <= 1) {
+                        // only expand nodes that were visited before, so the tree grows where it matters
+                        break;
+                    }
+                    children = node.expand(this.board, this.buffer);
+                }
+                if (children.length == 0) {
+                    break;
+                }
+                Node child = node.select();
+                Node.VISITS.incrementAndGet(child);
+                this.movers.add(this.board.getTurn());
+                if (child.move == PASS) {
+                    this.board.nextTurn();
+                    this.undos.add(null);
+                }
+                else {
+                    this.undos.add(this.board.makeMove(child.move / size, child.move % size));
+                }
+                this.path.add(child);
+                node = child;
+            }
+
+            Stone winner = this.playout();
+            for (int i = 0; i < this.path.size(); i++) {
+                Stone mover = this.movers.get(i);
+                Node.WINS.addAndGet(this.path.get(i), winner == null ? 1 : mover.equals(winner) ? 2 : 0);
+            }
+
+            for (int i = this.undos.size() - 1; i >= 0; i--) {
+                MoveUndo undo = this.undos.get(i);
+                if (undo == null) {
+                    this.board.nextTurn();
+                }
+                else {
+                    this.board.unmakeMove(undo);
+                }
+            }
+            this.path.clear();
+            this.movers.clear();
+            this.undos.clear();
+        }
+
+        /**
+         * Plays random moves on a copy of the board until the game is over.
+         *
+         * @return The stone of the winner, or {@code null} if it's a draw.
+         */
+        private Stone playout() {
+            BoardState game = this.board.copy();
+            int size = game.getSize();
+            boolean passed = false;
+            while (true) {
+                int count = game.fillValidMoves(this.buffer);
+                if (count == 0) {
+                    if (passed) {
+                        break;
+                    }
+                    passed = true;
+                    game.nextTurn();
+                    continue;
+                }
+                passed = false;
+                int move = this.buffer[this.random.nextInt(count)];
+                game.placeStone(move / size, move % size);
+            }
+            int black = game.countStones(Stone.BLACK);
+            int white = game.countStones(Stone.WHITE);
+            return black > white ? Stone.BLACK : white > black ? Stone.WHITE : null;
+        }
+    }
+}
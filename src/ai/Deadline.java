@@ -0,0 +1,97 @@
+package ai;
+
+/**
+ * The time an AI has left to find a move. Searches poll it and, once it has expired,
+ * stop and hand back the best move they have found so far.
+ * It expires when its time runs out or when it is cancelled, whichever comes first.
+ * A deadline can be narrowed with {@code within}, and cancelling it cancels the narrowed ones too.
+ */
+public class Deadline {
+    /** The time it expires, as {@code System.nanoTime()}. */
+    private final long end;
+    /** The deadline this was narrowed from, or {@code null}. */
+    private final Deadline parent;
+    /** Set by {@code cancel}. */
+    private volatile boolean cancelled;
+
+    /**
+     * @param end The time it expires, as {@code System.nanoTime()}.
+     * @param parent The deadline this was narrowed from, or {@code null}.
+     */
+    private Deadline(long end, Deadline parent) {
+        this.end = end;
+        this.parent = parent;
+    }
+
+    /**
+     * Creates a deadline that expires after the given time from now.
+     *
+     * @param millis The time until it expires, in milliseconds.
+     * @return The deadline.
+     */
+    public static Deadline after(long millis) {
+        return new Deadline(endAfter(millis), null);
+    }
+
+    /**
+     * Creates a deadline that only expires when it is cancelled.
+     *
+     * @return The deadline.
+     */
+    public static Deadline none() {
+        return new Deadline(Long.MAX_VALUE, null);
+    }
+
+    /**
+     * Creates a deadline that expires after the given time from now, or earlier if this one does.
+     *
+     * @param millis The time until it expires, in milliseconds.
+     * @return The narrowed deadline.
+     */
+    public Deadline within(long millis) {
+        return new Deadline(Math.min(this.end, endAfter(millis)), this);
+    }
+
+    /**
+     * @param millis A time from now, in milliseconds.
+     * @return That time as {@code System.nanoTime()}, or {@code Long.MAX_VALUE} if it is too far away.
+     */
+    private static long endAfter(long millis) {
+        long now = System.nanoTime();
+        if (millis >= (Long.MAX_VALUE - now) / 1_000_000) {
+            return Long.MAX_VALUE;
+        }
+        return now + millis * 1_000_000;
+    }
+
+    /**
+     * Expires this deadline right away.
+     */
+    public void cancel() {
+        this.cancelled = true;
+    }
+
+    /**
+     * @return {@code true} if the time ran out or this or the deadline it was narrowed from was cancelled.
+     */
+    public boolean isExpired() {
+        if (this.cancelled || (this.parent != null && this.parent.isExpired())) {
+            return true;
+        }
+        return this.end != Long.MAX_VALUE && System.nanoTime() - this.end >= 0;
+    }
+
+    /**
+     * @return The time left in milliseconds, {@code Long.MAX_VALUE} if it never runs out,
+     *         or 0 if it expired.
+     */
+    public long remainingMillis() {
+        if (this.isExpired()) {
+            return 0;
+        }
+        if (this.end == Long.MAX_VALUE) {
+            return Long.MAX_VALUE;
+        }
+        return Math.max(0, (this.end - System.nanoTime()) / 1_000_000);
+    }
+}
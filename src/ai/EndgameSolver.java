@@ -0,0 +1,661 @@
+package ai;
+
+import backend.BitBoard;
+import backend.BoardState;
+import backend.MoveUndo;
+import backend.TranspositionTable;
+import entities.Stone;
+
+/**
+ * Plays the end of the game perfectly. Once few enough squares are empty,
+ * every possible continuation can be searched to the end of the game, so the
+ * solver finds the move with the best final stone difference assuming both
+ * players play perfectly, instead of estimating it.
+ * <p>
+ * Moves far from the end are tried in order of how few moves they leave the opponent,
+ * and moves near the end in order of parity: squares in quarters of the board with an odd
+ * number of empty squares come first, since the last move in a region tends to be the
+ * one that keeps its stones. The last empty square is settled without searching.
+ * Positions far from the end are kept in a transposition table, whose best move is tried first.
+ * Every move after the first is first searched with a zero-width window, which only tells
+ * whether it beats the best move so far, and searched again properly only if it does.
+ * <p>
+ * The search is the same for every board. Boards up to 8 x 8 are played on a stack of bitboard pairs,
+ * larger boards on a {@code BoardState} with {@code makeMove} and {@code unmakeMove}.
+ * <p>
+ * Any {@code AIPlayer} can hand off to a solver with {@code AIPlayer.setEndgameSolver}.
+ */
+public class EndgameSolver {
+    /** The default number of empty squares a position may have to be solved. */
+    public static final int DEFAULT_MAX_EMPTIES = 20;
+    /** Above this many empty squares, moves are ordered by the opponent's mobility after them. */
+    private static final int MOBILITY_ORDERING_EMPTIES = 7;
+    /** The size of the transposition table in megabytes. */
+    private static final int TT_SIZE = 16;
+
+    /** The largest number of empty squares a position may have to be solved. */
+    private final int maxEmpties;
+    /**
+     * The results of positions far enough from the end, shared by every solve.
+     * Endgame scores don't depend on how deep the search went, so they stay true between solves.
+     */
+    private final TranspositionTable table = new TranspositionTable(TT_SIZE);
+    /** The number of positions visited by the last solve. */
+    private long lastNodes;
+    /** The time taken by the last solve, in nanoseconds. */
+    private long lastElapsed;
+
+    /**
+     * The outcome of solving a position.
+     *
+     * @param move The best move as {@code row * size + col}, or -1 if the player to move must pass.
+     * @param score The final stone difference from the side of the player to move with perfect play.
+     *              In win/loss/draw mode, only its sign is meaningful.
+     * @param complete {@code false} if the deadline expired first, in which case the result means nothing.
+     */
+    public record Result(int move, int score, boolean complete) {}
+
+    /**
+     * Creates a solver for positions with up to {@code DEFAULT_MAX_EMPTIES} empty squares.
+     */
+    public EndgameSolver() {
+        this(DEFAULT_MAX_EMPTIES);
+    }
+
+    /**
+     * Creates a solver for positions with up to the given number of empty squares.
+     * Every empty square roughly multiplies the work by three, so keep this around 20
+     * unless there is a lot of time to spare.
+     *
+     * @param maxEmpties The largest number of empty squares a position may have to be solved.
+     */
+    public EndgameSolver(int maxEmpties) {
+        this.maxEmpties = maxEmpties;
+    }
+
+    /**
+     * @param position The position to check.
+     * @return {@code true} if the position has few enough empty squares to be solved.
+     */
+    public boolean canSolve(BoardState position) {
+        return emptiesOf(position) <= this.maxEmpties;
+    }
+
+    /**
+     * Finds the move with the best final stone difference.
+     *
+     * @param position The position to solve. It is not modified.
+     * @param deadline The time to give up.
+     * @return The best move and the final stone difference it leads to.
+     */
+    public Result solve(BoardState position, Deadline deadline) {
+        int squares = position.getSize() * position.getSize();
+        return this.run(position, -squares - 1, squares + 1, deadline);
+    }
+
+    /**
+     * Finds a winning move, or a drawing one if there is no win. This only searches
+     * for whether a position is won, lost or drawn, which is much faster than finding the exact score.
+     *
+     * @param position The position to solve. It is not modified.
+     * @param deadline The time to give up.
+     * @return The best move and a score that is positive for a win, 0 for a draw and negative for a loss.
+     */
+    public Result solveWinLossDraw(BoardState position, Deadline deadline) {
+        return this.run(position, -1, 1, deadline);
+    }
+
+    /**
+     * Solves a position within a window of scores.
+     */
+    private Result run(BoardState position, int alpha, int beta, Deadline deadline) {
+        long start = System.nanoTime();
+        BoardState board = BoardState.compactCopyOf(position);
+        Search search = board instanceof BitBoard bits
+                ? new BitSearch(bits, this.table, deadline)
+                : new BoardSearch(board, this.table, deadline);
+        Result result = search.solveRoot(alpha, beta);
+        this.lastNodes = search.nodes;
+        this.lastElapsed = System.nanoTime() - start;
+        return result;
+    }
+
+    /**
+     * @param position A position.
+     * @return The number of empty squares in it.
+     */
+    private static int emptiesOf(BoardState position) {
+        int size = position.getSize();
+        return size * size - position.countStones(Stone.BLACK) - position.countStones(Stone.WHITE);
+    }
+
+    /**
+     * @return The largest number of empty squares a position may have to be solved.
+     */
+    public int getMaxEmpties() {
+        return this.maxEmpties;
+    }
+
+    /**
+     * @return The number of positions visited by the last solve.
+     */
+    public long getLastNodes() {
+        return this.lastNodes;
+    }
+
+    /**
+     * @return The number of positions visited per second by the last solve.
+     */
+    public double getLastNodesPerSecond() {
+        return this.lastElapsed == 0 ? 0.0 : this.lastNodes * 1e9 / this.lastElapsed;
+    }
+
+    /**
+     * A single solve, written once over a few operations on the position that each kind of board implements.
+     * The empty squares are kept in a linked list so the last moves don't have to scan the board.
+     */
+    private abstract static class Search {
+        /** The size of the board. */
+        final int size;
+        /** The results of positions far from the end. */
+        private final TranspositionTable table;
+        /** The time to give up. */
+        private final Deadline deadline;
+        /** The next empty square in the list. Index {@code size * size} is the head of the list. */
+        private final int[] next;
+        /** The previous empty square in the list. Index {@code size * size} is the head of the list. */
+        private final int[] previous;
+        /** The quarter of the board each square is in, from 0 to 3. */
+        private final int[] quarterOf;
+        /** The number of empty squares in each quarter of the board. */
+        private final int[] quarterEmpties = new int[4];
+        /** The moves of each number of empty squares, so move generation does not allocate. */
+        private final int[][] moveBuffers;
+        /** The ordering keys of the moves in {@code moveBuffers}. */
+        private final int[][] keyBuffers;
+        /** The number of empty squares. */
+        int empties;
+        /** The number of positions visited. */
+        long nodes;
+        /** {@code true} once the deadline has expired. */
+        boolean aborted;
+
+        Search(BoardState board, TranspositionTable table, Deadline deadline) {
+            this.size = board.getSize();
+            this.table = table;
+            this.deadline = deadline;
+            int squares = this.size * this.size;
+            this.next = new int[squares + 1];
+            this.previous = new int[squares + 1];
+            this.quarterOf = new int[squares];
+            int half = this.size / 2;
+            // the head of the list links to itself while the list is empty
+            int last = squares;
+            for (int square = 0; square < squares; square++) {
+                int row = square / this.size, col = square % this.size;
+                this.quarterOf[square] = (row < half ? 0 : 2) + (col < half ? 0 : 1);
+                if (board.getStoneAt(row, col) == null) {
+                    this.next[last] = square;
+                    this.previous[square] = last;
+                    last = square;
+                    this.empties++;
+                    this.quarterEmpties[this.quarterOf[square]]++;
+                }
+            }
+            this.next[last] = squares;
+            this.previous[squares] = last;
+            this.moveBuffers = new int[this.empties + 1][squares];
+            this.keyBuffers = new int[this.empties + 1][squares];
+        }
+
+        /**
+         * Plays a move for the player to move if it is valid.
+         *
+         * @param square An empty square.
+         * @return {@code true} if the move was played, {@code false} if it is not valid and nothing changed.
+         */
+        abstract boolean play(int square);
+
+        /**
+         * Passes the turn to the opponent.
+         */
+        abstract void pass();
+
+        /**
+         * Takes back the last move or pass.
+         */
+        abstract void undo();
+
+        /**
+         * @param moves The buffer to write the valid moves of the player to move to.
+         * @return The number of valid moves.
+         */
+        abstract int fillMoves(int[] moves);
+
+        /**
+         * @return The number of valid moves of the player to move.
+         */
+        abstract int countMoves();
+
+        /**
+         * @return The key of the position in the transposition table.
+         */
+        abstract long key();
+
+        /**
+         * @return The stone difference from the side of the player to move.
+         */
+        abstract int stoneDifference();
+
+        /**
+         * Counts a visited position and checks the deadline every so often.
+         *
+         * @return {@code true} if the search should stop.
+         */
+        boolean visit() {
+            this.nodes++;
+            if ((this.nodes & 4095) == 0 && this.deadline.isExpired()) {
+                this.aborted = true;
+            }
+            return this.aborted;
+        }
+
+        /**
+         * Looks up whether a stored result already settles a position within a window.
+         *
+         * @param entry The entry found in the table, or 0.
+         * @return {@code true} if the stored score can be returned right away.
+         */
+        static boolean isCutoff(long entry, int alpha, int beta) {
+            if (entry == 0) {
+                return false;
+            }
+            int score = TranspositionTable.getScore(entry);
+            return switch (TranspositionTable.getBound(entry)) {
+                case TranspositionTable.EXACT -> true;
+                case TranspositionTable.LOWER_BOUND -> score >= beta;
+                default -> score <= alpha;
+            };
+        }
+
+        /**
+         * Stores the result of solving a position, unless the search was cut short.
+         */
+        void store(long key, int best, int bestMove, int alpha, int beta) {
+            if (!this.aborted) {
+                int bound = best <= alpha ? TranspositionTable.UPPER_BOUND
+                        : best >= beta ? TranspositionTable.LOWER_BOUND : TranspositionTable.EXACT;
+                this.table.store(key, best, bestMove, this.empties, bound);
+            }
+        }
+
+        /**
+         * @return The first empty square in the list.
+         */
+        int firstEmpty() {
+            return this.next[this.quarterOf.length];
+        }
+
+        /**
+         * @param square An empty square.
+         * @return 0 if the square is in a quarter with an odd number of empty squares, 1 otherwise.
+         */
+        int evenness(int square) {
+            return (this.quarterEmpties[this.quarterOf[square]] & 1) ^ 1;
+        }
+
+        /**
+         * Puts a move into a buffer sorted by ascending key. There are only a handful of moves,
+         * so insertion sort is the fastest way.
+         *
+         * @param moves The moves sorted so far.
+         * @param keys The keys of the moves sorted so far.
+         * @param count The number of moves sorted so far.
+         * @param square The move to insert.
+         * @param key Its key. Lower keys are tried first.
+         */
+        static void insert(int[] moves, int[] keys, int count, int square, int key) {
+            int j = count;
+            while (j > 0 && keys[j - 1] > key) {
+                keys[j] = keys[j - 1];
+                moves[j] = moves[j - 1];
+                j--;
+            }
+            keys[j] = key;
+            moves[j] = square;
+        }
+
+        /**
+         * Takes a square out of the list of empty squares.
+         */
+        void removeEmpty(int square) {
+            this.next[this.previous[square]] = this.next[square];
+            this.previous[this.next[square]] = this.previous[square];
+            this.quarterEmpties[this.quarterOf[square]]--;
+            this.empties--;
+        }
+
+        /**
+         * Puts a square back where it was in the list of empty squares.
+         * Squares must be restored in the reverse order they were removed.
+         */
+        void restoreEmpty(int square) {
+            this.next[this.previous[square]] = square;
+            this.previous[this.next[square]] = square;
+            this.quarterEmpties[this.quarterOf[square]]++;
+            this.empties++;
+        }
+
+        /**
+         * Solves the position, remembering which move is best.
+         *
+         * @param alpha The lowest score of interest.
+         * @param beta The highest score of interest.
+         * @return The best move and its score.
+         */
+        Result solveRoot(int alpha, int beta) {
+            int[] moves = this.moveBuffers[this.empties];
+            long entry = this.table.probe(this.key());
+            int count = this.orderMoves(moves, entry == 0 ? TranspositionTable.NO_MOVE : TranspositionTable.getMove(entry));
+            if (count == 0) {
+                this.pass();
+                int score = -this.negamax(-beta, -alpha, true);
+                this.undo();
+                return new Result(-1, score, !this.aborted);
+            }
+            int bestMove = moves[0];
+            int best = -Integer.MAX_VALUE;
+            for (int i = 0; i < count && best < beta && !this.aborted; i++) {
+                int score = this.searchMove(moves[i], Math.max(alpha, best), beta, i == 0);
+                if (score > best && !this.aborted) {
+                    best = score;
+                    bestMove = moves[i];
+                }
+            }
+            return new Result(bestMove, best, !this.aborted);
+        }
+
+        /**
+         * Plays a move, solves the resulting position and takes the move back,
+         * with a zero-width window first unless it is the first move.
+         *
+         * @return The score of the move from the side of the player making it,
+         *         or {@code Integer.MIN_VALUE} if the move is not valid.
+         */
+        private int searchMove(int square, int alpha, int beta, boolean first) {
+            if (!this.play(square)) {
+                return Integer.MIN_VALUE;
+            }
+            this.removeEmpty(square);
+            int score;
+            if (first) {
+                score = -this.negamax(-beta, -alpha, false);
+            }
+            else {
+                score = -this.negamax(-alpha - 1, -alpha, false);
+                if (score > alpha && score < beta) {
+                    score = -this.negamax(-beta, -score, false);
+                }
+            }
+            this.restoreEmpty(square);
+            this.undo();
+            return score;
+        }
+
+        /**
+         * Solves the current position with alpha-beta pruning.
+         *
+         * @param alpha The score the player to move is already guaranteed.
+         * @param beta The score the opponent is already guaranteed, negated.
+         * @param passed {@code true} if the last turn was passed.
+         * @return The final stone difference from the side of the player to move.
+         */
+        private int negamax(int alpha, int beta, boolean passed) {
+            if (this.visit()) {
+                return 0;
+            }
+            if (this.empties == 1) {
+                return this.solveLastSquare(this.firstEmpty());
+            }
+
+            int best = Integer.MIN_VALUE;
+            if (this.empties > MOBILITY_ORDERING_EMPTIES) {
+                long key = this.key();
+                long entry = this.table.probe(key);
+                if (isCutoff(entry, alpha, beta)) {
+                    return TranspositionTable.getScore(entry);
+                }
+                int[] moves = this.moveBuffers[this.empties];
+                int count = this.orderMoves(moves, entry == 0 ? TranspositionTable.NO_MOVE : TranspositionTable.getMove(entry));
+                int bestMove = TranspositionTable.NO_MOVE;
+                for (int i = 0; i < count && best < beta; i++) {
+                    int score = this.searchMove(moves[i], Math.max(alpha, best), beta, i == 0);
+                    if (score > best) {
+                        best = score;
+                        bestMove = moves[i];
+                    }
+                }
+                if (count > 0) {
+                    this.store(key, best, bestMove, alpha, beta);
+                }
+            }
+            else {
+                // odd quarters first, then even ones, with every move after the first tried in a zero-width window
+                boolean moved = false;
+                for (int evenness = 0; evenness <= 1 && best < beta; evenness++) {
+                    for (int square = this.firstEmpty(); square < this.quarterOf.length && best < beta;
+                         square = this.next[square]) {
+                        if (this.evenness(square) == evenness) {
+                            int score = this.searchMove(square, Math.max(alpha, best), beta, !moved);
+                            moved |= score != Integer.MIN_VALUE;
+                            best = Math.max(best, score);
+                        }
+                    }
+                }
+            }
+            if (best != Integer.MIN_VALUE) {
+                return best;
+            }
+
+            // no move, so pass or end the game
+            if (passed || this.empties == 0) {
+                return this.stoneDifference();
+            }
+            this.pass();
+            int score = -this.negamax(-beta, -alpha, true);
+            this.undo();
+            return score;
+        }
+
+        /**
+         * Settles a position with one empty square without searching:
+         * the player to move takes it if they can, otherwise the opponent does if they can.
+         *
+         * @return The final stone difference from the side of the player to move.
+         */
+        private int solveLastSquare(int square) {
+            if (this.play(square)) {
+                this.nodes++;
+                int score = -this.stoneDifference();
+                this.undo();
+                return score;
+            }
+            this.pass();
+            int score;
+            if (this.play(square)) {
+                this.nodes++;
+                // back to the original player after the opponent's move
+                score = this.stoneDifference();
+                this.undo();
+            }
+            else {
+                score = -this.stoneDifference();
+            }
+            this.undo();
+            return score;
+        }
+
+        /**
+         * Writes the valid moves into a buffer. The move from the transposition table comes first,
+         * then moves leaving the opponent the fewest replies, with moves in odd quarters winning ties.
+         *
+         * @param moves The buffer to write the moves to.
+         * @param tableMove The best move stored for the position, or {@code NO_MOVE}.
+         * @return The number of moves.
+         */
+        private int orderMoves(int[] moves, int tableMove) {
+            int count = this.fillMoves(moves);
+            int[] keys = this.keyBuffers[this.empties];
+            for (int i = 0; i < count; i++) {
+                int square = moves[i];
+                this.play(square);
+                int mobility = this.countMoves();
+                this.undo();
+                insert(moves, keys, i, square, square == tableMove ? -1 : 2 * mobility + this.evenness(square));
+            }
+            return count;
+        }
+    }
+
+    /**
+     * Solves boards up to 8 x 8 with the stones of the player to move and of the opponent as two bitboards.
+     * Each move writes the new pair one place further up a stack, so taking it back is only a step down.
+     */
+    private static class BitSearch extends Search {
+        /** The stones of the player to move after each move or pass since the root. */
+        private final long[] own;
+        /** The stones of the opponent after each move or pass since the root. */
+        private final long[] opp;
+        /** The number of moves and passes made since the root. */
+        private int ply;
+
+        BitSearch(BitBoard board, TranspositionTable table, Deadline deadline) {
+            super(board, table, deadline);
+            // a pass can follow every move, and one more can come first
+            this.own = new long[2 * this.empties + 2];
+            this.opp = new long[2 * this.empties + 2];
+            this.own[0] = board.getStones(board.getTurn());
+            this.opp[0] = board.getStones(board.getTurn().getOpposite());
+        }
+
+        @Override
+        boolean play(int square) {
+            long own = this.own[this.ply], opp = this.opp[this.ply];
+            long flips = BitBoard.flips(this.size, own, opp, square);
+            if (flips == 0) {
+                return false;
+            }
+            this.ply++;
+            this.own[this.ply] = opp & ~flips;
+            this.opp[this.ply] = own | flips | (1L << square);
+            return true;
+        }
+
+        @Override
+        void pass() {
+            this.own[this.ply + 1] = this.opp[this.ply];
+            this.opp[this.ply + 1] = this.own[this.ply];
+            this.ply++;
+        }
+
+        @Override
+        void undo() {
+            this.ply--;
+        }
+
+        @Override
+        int fillMoves(int[] moves) {
+            int count = 0;
+            for (long valid = BitBoard.validMoveMask(this.size, this.own[this.ply], this.opp[this.ply]); valid != 0;
+                 valid &= valid - 1) {
+                moves[count++] = Long.numberOfTrailingZeros(valid);
+            }
+            return count;
+        }
+
+        @Override
+        int countMoves() {
+            return Long.bitCount(BitBoard.validMoveMask(this.size, this.own[this.ply], this.opp[this.ply]));
+        }
+
+        @Override
+        long key() {
+            // the same stones mean different squares on different sizes
+            long key = (this.own[this.ply] * 0x9E3779B97F4A7C15L)
+                    ^ Long.rotateLeft(this.opp[this.ply] * 0xC2B2AE3D27D4EB4FL, 29) ^ this.size;
+            return key ^ (key >>> 31);
+        }
+
+        @Override
+        int stoneDifference() {
+            return Long.bitCount(this.own[this.ply]) - Long.bitCount(this.opp[this.ply]);
+        }
+    }
+
+    /**
+     * Solves boards of any size on a {@code BoardState}, which is changed in place and restored as the search goes.
+     */
+    private static class BoardSearch extends Search {
+        /** The position being solved. */
+        private final BoardState board;
+        /** What each move since the root changed, or {@code null} for a pass. */
+        private final MoveUndo[] undos;
+        /** The number of moves and passes made since the root. */
+        private int ply;
+
+        BoardSearch(BoardState board, TranspositionTable table, Deadline deadline) {
+            super(board, table, deadline);
+            this.board = board;
+            // a pass can follow every move, and one more can come first
+            this.undos = new MoveUndo[2 * this.empties + 2];
+        }
+
+        @Override
+        boolean play(int square) {
+            MoveUndo undo = this.board.makeMove(square / this.size, square % this.size);
+            if (undo == null) {
+                return false;
+            }
+            this.undos[this.ply++] = undo;
+            return true;
+        }
+
+        @Override
+        void pass() {
+            this.board.nextTurn();
+            this.undos[this.ply++] = null;
+        }
+
+        @Override
+        void undo() {
+            MoveUndo undo = this.undos[--this.ply];
+            if (undo == null) {
+                this.board.nextTurn();
+            }
+            else {
+                this.board.unmakeMove(undo);
+            }
+        }
+
+        @Override
+        int fillMoves(int[] moves) {
+            return this.board.fillValidMoves(moves);
+        }
+
+        @Override
+        int countMoves() {
+            return this.board.countValidMoves();
+        }
+
+        @Override
+        long key() {
+            return this.board.zobrist();
+        }
+
+        @Override
+        int stoneDifference() {
+            Stone own = this.board.getTurn();
+            return this.board.countStones(own) - this.board.countStones(own.getOpposite());
+        }
+    }
+}
@@ -1,7 +1,7 @@
 package ai;
 
-import backend.Board;
-import backend.MockBoard;
+import backend.BoardState;
+import backend.MoveUndo;
 import entities.Stone;
 
 import java.util.ArrayList;
@@ -21,22 +21,21 @@ public class Hastyn extends AIPlayer {
     }
 
     @Override
-    public int[] findMove() {
-        Board board = Board.getInstance();
+    public int[] findMove(BoardState position) {
+        // take one snapshot of the board and only try the valid moves on it
+        BoardState current = BoardState.compactCopyOf(position);
         int best = 0;
         List<int[]> bestMoves = new ArrayList<>();
-        for (int row = 0; row < board.getSize(); row++) {
-            for (int col = 0; col < board.getSize(); col++) {
-                MockBoard mBoard = new MockBoard();
-                int flipped = mBoard.placeStone(row, col);
-                int[] move = {row, col};
-                if (flipped >= best) {
-                    if (flipped > best) {
-                        best = flipped;
-                        bestMoves.clear();
-                    }
-                    bestMoves.add(move);
+        for (int[] move : current.getValidMoves()) {
+            MoveUndo undo = current.makeMove(move[0], move[1]);
+            int flipped = undo.getFlipCount();
+            current.unmakeMove(undo);
+            if (flipped >= best) {
+                if (flipped > best) {
+                    best = flipped;
+                    bestMoves.clear();
                 }
+                bestMoves.add(move);
             }
         }
         if (bestMoves.isEmpty()) {
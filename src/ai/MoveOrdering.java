@@ -0,0 +1,183 @@
+package ai;
+
+import backend.TranspositionTable;
+
+/**
+ * Decides the order a search tries the moves of a position in, so that the best move tends to come first
+ * and alpha-beta can skip the rest. Moves are ranked by, in order:
+ * <ol>
+ *     <li>the best move the transposition table remembers for the position,</li>
+ *     <li>the two killer moves of the ply, which caused the latest cutoffs at the same distance from the root,</li>
+ *     <li>the history table, which counts how often each square caused a cutoff anywhere, weighted by depth,</li>
+ *     <li>and static square weights: corners first, then edges, with the squares next to the corners last.</li>
+ * </ol>
+ * It also counts how often a cutoff came from the first move tried, which is how well the ordering works.
+ * <p>
+ * Killers and history are specific to one search, so every search thread needs its own instance.
+ * Ordering sorts the moves in place with buffers kept between calls, so it does not allocate.
+ */
+public class MoveOrdering {
+    /** The key of the move from the transposition table. */
+    private static final int TABLE_MOVE_KEY = 1 << 30;
+    /** The key of the first killer move. The second one gets one less. */
+    private static final int KILLER_KEY = 1 << 29;
+    /** The history count at which all counts are halved, keeping them below the killer keys. */
+    private static final int HISTORY_LIMIT = 1 << 24;
+
+    /** The size of the board. */
+    private final int size;
+    /** The static weight of each square. */
+    private final int[] squareWeights;
+    /** The killer moves of each ply, by [ply][slot]. */
+    private final int[][] killers;
+    /** How often each square caused a cutoff, weighted by the square of the depth left. */
+    private final int[] history;
+    /** The sort keys of each ply, allocated on first use. */
+    private final int[][] keyBuffers;
+    /** The number of cutoffs recorded. */
+    private long cutoffs;
+    /** The number of cutoffs caused by the first move tried. */
+    private long firstMoveCutoffs;
+
+    /**
+     * @param size The size of the board.
+     * @param maxPly The largest number of moves from the root the search reaches, plus one.
+     */
+    public MoveOrdering(int size, int maxPly) {
+        this.size = size;
+        this.squareWeights = squareWeights(size);
+        this.killers = new int[maxPly][2];
+        for (int[] slots : this.killers) {
+            slots[0] = TranspositionTable.NO_MOVE;
+            slots[1] = TranspositionTable.NO_MOVE;
+        }
+        this.history = new int[size * size];
+        this.keyBuffers = new int[maxPly][];
+    }
+
+    /**
+     * Sorts moves from the most to the least promising.
+     *
+     * @param moves The moves as {@code row * size + col}. Sorted in place.
+     * @param count The number of moves in the buffer.
+     * @param ply The number of moves from the root.
+     * @param tableMove The best move the transposition table remembers for the position, or {@code NO_MOVE}.
+     */
+    public void order(int[] moves, int count, int ply, int tableMove) {
+        if (this.keyBuffers[ply] == null) {
+            this.keyBuffers[ply] = new int[this.size * this.size];
+        }
+        int[] keys = this.keyBuffers[ply];
+        int[] killers = this.killers[ply];
+        for (int i = 0; i < count; i++) {
+            int move = moves[i];
+            int key;
+            if (move == tableMove) {
+                key = TABLE_MOVE_KEY;
+            }
+            else if (move == killers[0]) {
+                key = KILLER_KEY;
+            }
+            else if (move == killers[1]) {
+                key = KILLER_KEY - 1;
+            }
+            else {
+                key = this.history[move] + this.squareWeights[move];
+            }
+            // insertion sort, since there are rarely more than a couple dozen moves
+            int j = i;
+            while (j > 0 && keys[j - 1] < key) {
+                keys[j] = keys[j - 1];
+                moves[j] = moves[j - 1];
+                j--;
+            }
+            keys[j] = key;
+            moves[j] = move;
+        }
+    }
+
+    /**
+     * Learns from a move that caused a cutoff.
+     *
+     * @param move The move as {@code row * size + col}.
+     * @param ply The number of moves from the root.
+     * @param depth The number of moves left to look ahead.
+     * @param index The position of the move in the order it was tried, from 0.
+     */
+    public void recordCutoff(int move, int ply, int depth, int index) {
+        this.cutoffs++;
+        if (index == 0) {
+            this.firstMoveCutoffs++;
+        }
+        int[] killers = this.killers[ply];
+        if (killers[0] != move) {
+            killers[1] = killers[0];
+            killers[0] = move;
+        }
+        this.history[move] += depth * depth;
+        if (this.history[move] >= HISTORY_LIMIT) {
+            for (int square = 0; square < this.history.length; square++) {
+                this.history[square] /= 2;
+            }
+        }
+    }
+
+    /**
+     * @return The number of cutoffs recorded.
+     */
+    public long getCutoffs() {
+        return this.cutoffs;
+    }
+
+    /**
+     * @return The number of cutoffs caused by the first move tried.
+     */
+    public long getFirstMoveCutoffs() {
+        return this.firstMoveCutoffs;
+    }
+
+    /**
+     * @return The share of cutoffs caused by the first move tried, or 0 if there was no cutoff.
+     *         The closer to 1, the better the ordering.
+     */
+    public double getFirstMoveCutoffRate() {
+        return this.cutoffs == 0 ? 0.0 : (double) this.firstMoveCutoffs / this.cutoffs;
+    }
+
+    /**
+     * Gives every square a weight from what kind of square it is.
+     * Corners can never be flipped, so they come first. The squares diagonally next to a corner
+     * (X-squares) usually give the corner away, so they come last, just after the squares next to
+     * a corner along the edge (C-squares). The other edge squares come before the middle of the board.
+     *
+     * @param size The size of the board.
+     * @return The weight of each square as {@code row * size + col}.
+     */
+    static int[] squareWeights(int size) {
+        int[] weights = new int[size * size];
+        int last = size - 1;
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                boolean rowEdge = row == 0 || row == last;
+                boolean colEdge = col == 0 || col == last;
+                boolean nearRow = row <= 1 || row >= last - 1;
+                boolean nearCol = col <= 1 || col >= last - 1;
+                int weight = 0;
+                if (rowEdge && colEdge) {
+                    weight = 400;
+                }
+                else if (nearRow && nearCol && !rowEdge && !colEdge) {
+                    weight = -400;
+                }
+                else if (nearRow && nearCol) {
+                    weight = -100;
+                }
+                else if (rowEdge || colEdge) {
+                    weight = 50;
+                }
+                weights[row * size + col] = weight;
+            }
+        }
+        return weights;
+    }
+}
@@ -1,5 +1,7 @@
 package ai;
 
+import backend.BoardState;
+
 /**
  * Used when PvP option is used. Does not make a move on its own.
  */
@@ -16,10 +18,11 @@ public class NoAI extends AIPlayer {
      * Finds a move for this AI player.
      * For NoAI, this always returns null since it doesn't make moves.
      *
+     * @param position The position to move in.
      * @return Always null, as NoAI doesn't make moves.
      */
     @Override
-    public int[] findMove() {
+    public int[] findMove(BoardState position) {
         return null;
     }
 }
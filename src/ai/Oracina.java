@@ -1,11 +1,20 @@
 package ai;
 
+import backend.BoardState;
+import backend.MockBoard;
 import backend.MockBoardTree;
+import backend.PackedBoardTree;
+import backend.MoveUndo;
 import entities.Stone;
 
+import java.io.Serial;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
 
 /**
  * Ms. Oracina can see the future... sort of.
@@ -13,57 +22,200 @@ import java.util.List;
  * after a set number of her turns.
  */
 public class Oracina extends AIPlayer {
+    /**
+     * How Ms. Oracina explores the future. Every mode gives the same scores.
+     */
+    public enum SearchMode {
+        /** Build the whole tree of possibilities as a {@code MockBoardTree}, then score it. */
+        TREE,
+        /**
+         * Build the tree like {@code TREE}, but merge identical positions at the same depth into one node,
+         * so that each of them is expanded and scored only once.
+         */
+        DAG,
+        /** Build the whole tree like {@code TREE}, but stored in arrays as a {@code PackedBoardTree}. */
+        PACKED_TREE,
+        /** Score the possibilities depth-first on a single board without keeping them. */
+        STREAMING,
+        /** Score the possibilities depth-first like {@code STREAMING}, splitting the first moves across cores. */
+        PARALLEL
+    }
+
+    /**
+     * The number of moves from the root that are split into separate tasks in
+     * {@code PARALLEL} mode. Deeper moves are scored sequentially inside each task.
+     */
+    private static final int SPLIT_DEPTH = 2;
+
     /** The number of turns to look ahead. Does not include the opponent's turn. */
     private int turns;
+    /** How the possibilities are explored. */
+    private SearchMode mode;
 
     /**
      * Ask Ms. Oracina to join the game.
      * She will try to move towards the best future for her.
+     * She explores the future in {@code SearchMode.PARALLEL} mode.
      *
      * @param stone The stone she should use.
      * @param turns The number of turns to look ahead.
      */
     public Oracina(Stone stone, int turns) {
+        this(stone, turns, SearchMode.PARALLEL);
+    }
+
+    /**
+     * Ask Ms. Oracina to join the game, explaining how she should look into the future.
+     *
+     * @param stone The stone she should use.
+     * @param turns The number of turns to look ahead.
+     * @param mode How she should explore the possibilities.
+     */
+    public Oracina(Stone stone, int turns, SearchMode mode) {
         super(stone);
         this.turns = turns;
+        this.mode = mode;
     }
 
     @Override
-    public int[] findMove() {
-        // generate all possibilities as a tree
-        MockBoardTree possibilities = new MockBoardTree();
-        if (possibilities.getMockBoard().getValidMoves().isEmpty()) {
+    public int[] findMove(BoardState position) {
+        return this.findMove(position, Deadline.none());
+    }
+
+    /**
+     * Finds a move, looking no further into the future than the deadline allows.
+     * See {@code scoreMoves} for what she makes of a deadline that expires.
+     *
+     * @param position The position to move in. It should be her turn.
+     * @param deadline The time the move is due.
+     * @return The best move found as [row, col], or {@code null} if no valid move exists.
+     */
+    @Override
+    public int[] findMove(BoardState position, Deadline deadline) {
+        List<int[]> moves = position.getValidMoves();
+        if (moves.isEmpty()) {
             // no possible move at the current state
             return null;
         }
-        // the number of turns to simulate should include the opponent turns
-        int depth = 2 * this.turns - 1;
-        for (int i = 0; i < depth; i++) {
-            possibilities.deepGenerateAllOutcomes();
-        }
-
-        // calculate the score for each immediate move
-        double[] scores = this.scoreMoves(possibilities);
+        double[] scores = this.scoreMoves(position, deadline);
 
         // find the one with the highest score
         double bestScore = -1.0;
         List<int[]> bestMoves = new ArrayList<>();
-        for (int i = 0; i < possibilities.size(); i++) {
+        for (int i = 0; i < moves.size(); i++) {
             if (scores[i] > bestScore) {
                 bestScore = scores[i];
                 bestMoves.clear();
-                bestMoves.add(possibilities.getChild(i).getPreviousMove());
+                bestMoves.add(moves.get(i));
             }
             else if (scores[i] == bestScore) {
-                bestMoves.add(possibilities.getChild(i).getPreviousMove());
+                bestMoves.add(moves.get(i));
             }
         }
 
+        if (bestMoves.isEmpty()) {
+            // the deadline came before any move was scored
+            bestMoves = moves;
+        }
+
         // return a random best move
         Collections.shuffle(bestMoves);
         return bestMoves.get(0);
     }
 
+    /**
+     * Scores every valid move of a position by exploring the future in her mode.
+     * If the deadline expires, the tree of possibilities is scored as deep as it was generated,
+     * including the part of the level that was being generated,
+     * and when exploring depth-first, the moves she did not finish scoring get {@code NaN}.
+     *
+     * @param position The position to score the moves of. It is not modified.
+     * @param deadline The time the scores are due.
+     * @return The score of each move, in the order of {@code position.getValidMoves()}.
+     */
+    public double[] scoreMoves(BoardState position, Deadline deadline) {
+        if (position.countValidMoves() == 0) {
+            return new double[0];
+        }
+        // the number of turns to simulate should include the opponent turns
+        int depth = 2 * this.turns - 1;
+        List<int[]> moves;
+        double[] scores;
+        if (this.mode == SearchMode.TREE || this.mode == SearchMode.DAG) {
+            boolean merge = this.mode == SearchMode.DAG;
+            // generate all possibilities as a tree
+            MockBoardTree possibilities = new MockBoardTree(new MockBoard(position));
+            // the first level is always needed to know the moves
+            possibilities.deepGenerateAllOutcomes(merge);
+            // a pass the deadline cuts short leaves some leaves a level shallower, which are scored as they are
+            for (int i = 1; i < depth && !deadline.isExpired(); i++) {
+                possibilities.deepGenerateAllOutcomes(merge, deadline::isExpired);
+            }
+
+            // calculate the score for each immediate move
+            scores = this.scoreMoves(possibilities, merge ? new IdentityHashMap<>() : null);
+            moves = new ArrayList<>();
+            for (int i = 0; i < possibilities.size(); i++) {
+                moves.add(possibilities.getChild(i).getPreviousMove());
+            }
+        }
+        else if (this.mode == SearchMode.PACKED_TREE) {
+            PackedBoardTree possibilities = new PackedBoardTree(position);
+            possibilities.deepGenerateAllOutcomes();
+            for (int i = 1; i < depth && !deadline.isExpired(); i++) {
+                possibilities.deepGenerateAllOutcomes(deadline::isExpired);
+            }
+
+            int root = possibilities.getRoot();
+            scores = this.scoreMoves(possibilities, root);
+            moves = new ArrayList<>();
+            int size = possibilities.getSize();
+            for (int child = possibilities.getFirstChild(root); child != PackedBoardTree.NO_NODE; child = possibilities.getNextSibling(child)) {
+                int move = possibilities.getPreviousMove(child);
+                moves.add(new int[] {move / size, move % size});
+            }
+        }
+        else {
+            BoardState current = BoardState.compactCopyOf(position);
+            moves = current.getValidMoves();
+            scores = new double[moves.size()];
+            if (this.mode == SearchMode.PARALLEL) {
+                // every root move becomes its own task, which splits further down to SPLIT_DEPTH
+                List<ScoreTask> tasks = new ArrayList<>();
+                for (int[] move : moves) {
+                    BoardState next = current.copy();
+                    next.placeStone(move[0], move[1]);
+                    tasks.add(new ScoreTask(next, depth - 1, SPLIT_DEPTH - 1, deadline));
+                }
+                // outside a pool, this forks the tasks into the common pool
+                ForkJoinTask.invokeAll(tasks);
+                for (int i = 0; i < moves.size(); i++) {
+                    scores[i] = tasks.get(i).join();
+                }
+            }
+            else {
+                for (int i = 0; i < moves.size(); i++) {
+                    MoveUndo undo = current.makeMove(moves.get(i)[0], moves.get(i)[1]);
+                    scores[i] = this.scoreFuture(current, depth - 1, deadline);
+                    current.unmakeMove(undo);
+                }
+            }
+        }
+
+        // each board representation may list the moves in its own order
+        int size = position.getSize();
+        double[] bySquare = new double[size * size];
+        for (int i = 0; i < moves.size(); i++) {
+            bySquare[moves.get(i)[0] * size + moves.get(i)[1]] = scores[i];
+        }
+        List<int[]> validMoves = position.getValidMoves();
+        double[] ordered = new double[validMoves.size()];
+        for (int i = 0; i < ordered.length; i++) {
+            ordered[i] = bySquare[validMoves.get(i)[0] * size + validMoves.get(i)[1]];
+        }
+        return ordered;
+    }
+
     /**
      * Assign scores to the moves immediately after the root.
      * This computes the average number of stones at the leaf nodes,
@@ -71,9 +223,11 @@ public class Oracina extends AIPlayer {
      *
      * @param root The tree of possible moves.
      *             Every branch should have the same max depth for this to work properly.
+     * @param memo The score of every node scored so far, so that a node shared by several parents
+     *             is scored only once, or {@code null} if no node is shared.
      * @return The score of each move.
      */
-    private double[] scoreMoves(MockBoardTree root) {
+    private double[] scoreMoves(MockBoardTree root, Map<MockBoardTree, Double> memo) {
         if (root == null) {
             return null;
         }
@@ -84,8 +238,13 @@ public class Oracina extends AIPlayer {
         double[] scores = new double[root.size()];
         for (int i = 0; i < root.size(); i++) {
             MockBoardTree next = root.getChild(i);
+            Double known = memo == null ? null : memo.get(next);
+            if (known != null) {
+                scores[i] = known;
+                continue;
+            }
             // collect score from each child
-            double[] nextScores = this.scoreMoves(next);
+            double[] nextScores = this.scoreMoves(next, memo);
             // compute the average score
             double mean = 0.0;
             for (double score : nextScores) {
@@ -93,7 +252,132 @@ public class Oracina extends AIPlayer {
             }
             mean /= nextScores.length;
             scores[i] = mean;
+            if (memo != null) {
+                memo.put(next, mean);
+            }
+        }
+        return scores;
+    }
+
+    /**
+     * Does what {@code scoreMoves} does on a {@code PackedBoardTree}.
+     *
+     * @param tree The tree of possible moves.
+     * @param node The node to score the children of.
+     * @return The score of each child, or the number of her stones if the node is a leaf.
+     */
+    private double[] scoreMoves(PackedBoardTree tree, int node) {
+        if (tree.getFirstChild(node) == PackedBoardTree.NO_NODE) {
+            return new double[] {tree.countStones(node, this.stone)};
+        }
+        double[] scores = new double[tree.getChildCount(node)];
+        int i = 0;
+        for (int child = tree.getFirstChild(node); child != PackedBoardTree.NO_NODE; child = tree.getNextSibling(child)) {
+            double[] nextScores = this.scoreMoves(tree, child);
+            double mean = 0.0;
+            for (double score : nextScores) {
+                mean += score;
+            }
+            scores[i++] = mean / nextScores.length;
         }
         return scores;
     }
+
+    /**
+     * Computes the same score as {@code scoreMoves} gives to a node, without building the tree.
+     * The possibilities are visited depth-first on the given board, making and taking back
+     * each move, so only one path of the tree is kept in memory at a time.
+     *
+     * @param board The state to score. It is restored before returning.
+     * @param depth The number of moves to look ahead, including passes.
+     * @param deadline The time to give up.
+     * @return The number of stones at the leaves, averaged at every level
+     *         exactly like {@code scoreMoves} does, or {@code NaN} if the deadline expired.
+     */
+    private double scoreFuture(BoardState board, int depth, Deadline deadline) {
+        if (depth == 0) {
+            // this is a leaf node, so just return the number of stones
+            return board.countStones(this.stone);
+        }
+        if (deadline.isExpired()) {
+            // NaN carries through the averages above, marking the move as unscored
+            return Double.NaN;
+        }
+        List<int[]> moves = board.getValidMoves();
+        if (moves.isEmpty()) {
+            // the tree would have a single child where the turn is passed
+            board.nextTurn();
+            double score = this.scoreFuture(board, depth - 1, deadline);
+            board.nextTurn();
+            return score;
+        }
+        double mean = 0.0;
+        for (int[] move : moves) {
+            MoveUndo undo = board.makeMove(move[0], move[1]);
+            mean += this.scoreFuture(board, depth - 1, deadline);
+            board.unmakeMove(undo);
+        }
+        mean /= moves.size();
+        return mean;
+    }
+
+    /**
+     * Computes {@code scoreFuture} of a position as a fork/join task.
+     * Each move of the position is scored by a subtask on its own copy of the board
+     * until {@code splitDepth} runs out, after which the rest is scored sequentially.
+     * The scores of the subtasks are averaged in move order, so the result is exactly
+     * what {@code scoreFuture} and {@code scoreMoves} give.
+     */
+    private class ScoreTask extends RecursiveTask<Double> {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        /** The position to score. Owned by this task. */
+        private final BoardState board;
+        /** The number of moves to look ahead, including passes. */
+        private final int depth;
+        /** The number of moves from here that still get their own tasks. */
+        private final int splitDepth;
+        /** The time to give up. */
+        private final Deadline deadline;
+
+        /**
+         * @param board The position to score. It must not be shared with other tasks.
+         * @param depth The number of moves to look ahead, including passes.
+         * @param splitDepth The number of moves from here that still get their own tasks.
+         * @param deadline The time to give up.
+         */
+        ScoreTask(BoardState board, int depth, int splitDepth, Deadline deadline) {
+            this.board = board;
+            this.depth = depth;
+            this.splitDepth = splitDepth;
+            this.deadline = deadline;
+        }
+
+        @Override
+        protected Double compute() {
+            if (this.splitDepth <= 0 || this.depth == 0) {
+                return scoreFuture(this.board, this.depth, this.deadline);
+            }
+            List<int[]> moves = this.board.getValidMoves();
+            if (moves.isEmpty()) {
+                // the tree would have a single child where the turn is passed
+                this.board.nextTurn();
+                return new ScoreTask(this.board, this.depth - 1, this.splitDepth - 1, this.deadline).compute();
+            }
+            List<ScoreTask> subtasks = new ArrayList<>();
+            for (int[] move : moves) {
+                BoardState next = this.board.copy();
+                next.placeStone(move[0], move[1]);
+                subtasks.add(new ScoreTask(next, this.depth - 1, this.splitDepth - 1, this.deadline));
+            }
+            invokeAll(subtasks);
+            double mean = 0.0;
+            for (ScoreTask subtask : subtasks) {
+                mean += subtask.join();
+            }
+            mean /= moves.size();
+            return mean;
+        }
+    }
 }
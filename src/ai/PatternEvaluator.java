@@ -0,0 +1,481 @@
+package ai;
+
+import backend.BitBoard;
+import backend.BoardState;
+import backend.OpeningBook;
+import backend.PackedBoard;
+import entities.Stone;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Estimates how good a position is by looking up what is on each of a set of lines and corner regions.
+ * <p>
+ * The patterns are laid out from a corner: the edge with the diagonal square next to the corner,
+ * the next three lines parallel to the edge, the 3 x 3 and 2 x 5 corner regions, the short diagonals
+ * cutting the corner and the long diagonal from the corner. Each is at most 8 squares long from the corner,
+ * so on larger boards only the part of the board near the corners is looked at. Every pattern is placed
+ * in all eight symmetric ways, and all placements of a pattern share one weight table.
+ * <p>
+ * What is on a placement is read as a base-3 number, one digit per square: 0 for empty,
+ * 1 for a stone of the player to move and 2 for a stone of the opponent. The number indexes
+ * the weight table of the pattern, and the score of a position is the sum of the weights
+ * of all placements. Rather than reading the squares of each placement in turn, the numbers are built
+ * from the stones on the board: each stone adds its digit times its place value to every placement
+ * covering its square, so empty squares cost nothing and each placement then takes one table load.
+ * The weights are in {@code 1 / SCALE} stones of final stone difference, and there is a separate set
+ * of tables for each stage of the game.
+ * <p>
+ * The tables are read from a file, which starts with a 16-byte header (magic number, board size,
+ * number of stages, number of patterns), followed by the length of each pattern (4 bytes each)
+ * and then the tables, stage by stage and pattern by pattern, with a 2-byte weight per index.
+ * All numbers are big-endian. See {@code tools.PatternWeightsBuilder} for how to make one.
+ * An evaluator is never changed after it is made, so every search thread can share it.
+ */
+public class PatternEvaluator {
+    /** The first four bytes of every weight file, "PAT1". */
+    static final int MAGIC = 0x50415431;
+    /** The size of the header in bytes. */
+    static final int HEADER_SIZE = 16;
+    /** The number of weight units per stone of final stone difference. */
+    public static final int SCALE = 16;
+    /** The longest a pattern gets along a line from a corner. */
+    private static final int MAX_LINE = 8;
+    /** The patterns built so far, indexed by board size. */
+    private static final Patterns[] PATTERNS = new Patterns[PackedBoard.MAX_SIZE + 1];
+
+    /** The patterns of the board size the weights are for. */
+    private final Patterns patterns;
+    /** The weights by [stage][pattern][index]. */
+    private final short[][][] weights;
+
+    /**
+     * The placements of the patterns on one board size.
+     *
+     * @param size The size of the board.
+     * @param lengths The number of squares of each pattern.
+     * @param squares The squares of each placement in digit order, as {@code row * size + col}.
+     * @param pattern The pattern of each placement.
+     * @param firstCover Where the covers of each square start in {@code covers}, plus the end of the last one.
+     * @param covers The placements covering each square, square by square.
+     * @param placeValues The value of a 1 digit on the square in each placement of {@code covers}.
+     */
+    private record Patterns(int size, int[] lengths, int[][] squares, int[] pattern,
+                            int[] firstCover, int[] covers, int[] placeValues) {}
+
+    /**
+     * @param patterns The patterns of the board size.
+     * @param weights The weights by [stage][pattern][index].
+     */
+    private PatternEvaluator(Patterns patterns, short[][][] weights) {
+        this.patterns = patterns;
+        this.weights = weights;
+    }
+
+    /**
+     * Makes an evaluator from weight tables.
+     *
+     * @param size The size of the board the weights are for.
+     * @param weights The weights by [stage][pattern][index]. Each table must have {@code 3^length} weights,
+     *                where the lengths are given by {@code patternLengths}. They are not copied.
+     * @return The evaluator.
+     * @throws IllegalArgumentException If there is no stage or a table has the wrong size.
+     */
+    public static PatternEvaluator of(int size, short[][][] weights) {
+        Patterns patterns = patternsFor(size);
+        if (weights.length == 0) {
+            throw new IllegalArgumentException("At least one stage is needed.");
+        }
+        for (short[][] stage : weights) {
+            if (stage.length != patterns.lengths.length) {
+                throw new IllegalArgumentException("Expected " + patterns.lengths.length + " patterns for size " + size);
+            }
+            for (int p = 0; p < stage.length; p++) {
+                if (stage[p].length != power3(patterns.lengths[p])) {
+                    throw new IllegalArgumentException("Pattern " + p + " needs " + power3(patterns.lengths[p]) + " weights.");
+                }
+            }
+        }
+        return new PatternEvaluator(patterns, weights);
+    }
+
+    /**
+     * Reads a weight file.
+     *
+     * @param path The path to the weight file.
+     * @return The evaluator.
+     * @throws IOException If the file cannot be read or does not hold weights.
+     */
+    public static PatternEvaluator load(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE || channel.size() > Integer.MAX_VALUE) {
+                throw new IOException(path + " is not a pattern weight file.");
+            }
+            ByteBuffer in = ByteBuffer.allocate((int) channel.size()).order(ByteOrder.BIG_ENDIAN);
+            while (in.hasRemaining() && channel.read(in) >= 0) {
+                // keep reading until the whole file is in
+            }
+            in.flip();
+            int magic = in.getInt(), size = in.getInt(), stages = in.getInt(), count = in.getInt();
+            if (magic != MAGIC || size < 4 || size > PackedBoard.MAX_SIZE || stages <= 0) {
+                throw new IOException(path + " is not a pattern weight file.");
+            }
+            int[] lengths = patternsFor(size).lengths;
+            if (count != lengths.length || in.remaining() < 4 * count) {
+                throw new IOException(path + " was made for other patterns.");
+            }
+            long expected = 0;
+            for (int p = 0; p < count; p++) {
+                if (in.getInt() != lengths[p]) {
+                    throw new IOException(path + " was made for other patterns.");
+                }
+                expected += power3(lengths[p]);
+            }
+            if (in.remaining() != 2 * expected * stages) {
+                throw new IOException(path + " is not a pattern weight file.");
+            }
+            short[][][] weights = new short[stages][count][];
+            for (int stage = 0; stage < stages; stage++) {
+                for (int p = 0; p < count; p++) {
+                    weights[stage][p] = new short[power3(lengths[p])];
+                    in.asShortBuffer().get(weights[stage][p]);
+                    in.position(in.position() + 2 * weights[stage][p].length);
+                }
+            }
+            return new PatternEvaluator(patternsFor(size), weights);
+        }
+    }
+
+    /**
+     * Writes the weights to a file that {@code load} can read.
+     *
+     * @param path The path to write to. An existing file is replaced.
+     * @throws IOException If the file cannot be written.
+     */
+    public void write(Path path) throws IOException {
+        int[] lengths = this.patterns.lengths;
+        int total = 0;
+        for (int length : lengths) {
+            total += power3(length);
+        }
+        ByteBuffer out = ByteBuffer.allocate(HEADER_SIZE + 4 * lengths.length + 2 * total * this.weights.length)
+                .order(ByteOrder.BIG_ENDIAN);
+        out.putInt(MAGIC).putInt(this.getSize()).putInt(this.weights.length).putInt(lengths.length);
+        for (int length : lengths) {
+            out.putInt(length);
+        }
+        for (short[][] stage : this.weights) {
+            for (short[] table : stage) {
+                out.asShortBuffer().put(table);
+                out.position(out.position() + 2 * table.length);
+            }
+        }
+        out.flip();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (out.hasRemaining()) {
+                channel.write(out);
+            }
+        }
+    }
+
+    /**
+     * Estimates how good a position is for the player to move.
+     *
+     * @param position The position to evaluate. It must have the size the weights are for. It is not modified.
+     * @return The sum of the weights of every placement, in {@code 1 / SCALE} stones.
+     */
+    public int evaluate(BoardState position) {
+        return this.evaluate(position, new int[this.patterns.pattern.length]);
+    }
+
+    /**
+     * Estimates how good a position is for the player to move, reading the placements into a buffer
+     * so that a search evaluating many positions does not allocate.
+     *
+     * @param position The position to evaluate. It must have the size the weights are for. It is not modified.
+     * @param indices The buffer to read the index of each placement into.
+     *                Must hold {@code getPlacementPatterns(size).length} numbers.
+     * @return The sum of the weights of every placement, in {@code 1 / SCALE} stones.
+     */
+    public int evaluate(BoardState position, int[] indices) {
+        short[][] tables = this.weights[this.getStage(position)];
+        int[] pattern = this.patterns.pattern;
+        fillIndices(this.patterns, position, indices);
+        int score = 0;
+        for (int i = 0; i < pattern.length; i++) {
+            score += tables[pattern[i]][indices[i]];
+        }
+        return score;
+    }
+
+    /**
+     * Finds the game stage of a position, which decides the set of tables used.
+     * The stages split the game evenly by the number of stones on the board.
+     *
+     * @param position The position. It is not modified.
+     * @return The stage, from 0 to {@code getStageCount() - 1}.
+     */
+    public int getStage(BoardState position) {
+        return stageOf(position, this.weights.length);
+    }
+
+    /**
+     * Finds the game stage of a position for a given number of stages.
+     *
+     * @param position The position. It is not modified.
+     * @param stages The number of stages the game is split into.
+     * @return The stage, from 0 to {@code stages - 1}.
+     */
+    public static int stageOf(BoardState position, int stages) {
+        int squares = position.getSize() * position.getSize();
+        int played = position.countStones(Stone.BLACK) + position.countStones(Stone.WHITE) - 4;
+        return Math.max(0, Math.min(stages - 1, played * stages / Math.max(1, squares - 4)));
+    }
+
+    /**
+     * Reads the table index of every placement of a position. Used to train the weights.
+     *
+     * @param position The position. It is not modified.
+     * @param indices The buffer to write the index of each placement to.
+     *                Must hold {@code getPlacementPatterns(size).length} numbers.
+     */
+    public static void fillIndices(BoardState position, int[] indices) {
+        fillIndices(patternsFor(position.getSize()), position, indices);
+    }
+
+    /**
+     * Reads what is on every placement as a base-3 number by adding up the digits of the stones on the board.
+     * The stones of bitboards are read a word at a time; other boards are read square by square.
+     *
+     * @param patterns The patterns of the board size.
+     * @param position The position.
+     * @param indices The buffer to write the index of each placement to.
+     */
+    private static void fillIndices(Patterns patterns, BoardState position, int[] indices) {
+        Arrays.fill(indices, 0, patterns.pattern.length, 0);
+        Stone own = position.getTurn();
+        Stone opponent = own.getOpposite();
+        if (position instanceof BitBoard bits) {
+            addStones(patterns, bits.getStones(own), 0, 1, indices);
+            addStones(patterns, bits.getStones(opponent), 0, 2, indices);
+        }
+        else if (position instanceof PackedBoard packed) {
+            for (int word = 0; word < packed.getWordCount(); word++) {
+                addStones(patterns, packed.getStoneWord(own, word), word << 6, 1, indices);
+                addStones(patterns, packed.getStoneWord(opponent, word), word << 6, 2, indices);
+            }
+        }
+        else {
+            int size = position.getSize();
+            for (int square = 0; square < size * size; square++) {
+                Stone stone = position.getStoneAt(square / size, square % size);
+                if (stone != null) {
+                    addStone(patterns, square, stone == own ? 1 : 2, indices);
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds the digits of a word of stones to the placements covering them.
+     *
+     * @param patterns The patterns of the board size.
+     * @param stones The stones, one bit per square.
+     * @param base The square of the lowest bit of the word.
+     * @param digit The digit of the stones, 1 for the player to move and 2 for the opponent.
+     * @param indices The indices of the placements.
+     */
+    private static void addStones(Patterns patterns, long stones, int base, int digit, int[] indices) {
+        while (stones != 0) {
+            addStone(patterns, base + Long.numberOfTrailingZeros(stones), digit, indices);
+            stones &= stones - 1;
+        }
+    }
+
+    /**
+     * Adds the digit of a stone to the placements covering its square.
+     *
+     * @param patterns The patterns of the board size.
+     * @param square The square of the stone.
+     * @param digit The digit of the stone, 1 for the player to move and 2 for the opponent.
+     * @param indices The indices of the placements.
+     */
+    private static void addStone(Patterns patterns, int square, int digit, int[] indices) {
+        int[] covers = patterns.covers;
+        int[] placeValues = patterns.placeValues;
+        for (int c = patterns.firstCover[square]; c < patterns.firstCover[square + 1]; c++) {
+            indices[covers[c]] += digit * placeValues[c];
+        }
+    }
+
+    /**
+     * @param size The size of the board.
+     * @return The number of squares of each pattern on that size. Each table has {@code 3^length} weights.
+     */
+    public static int[] patternLengths(int size) {
+        return patternsFor(size).lengths.clone();
+    }
+
+    /**
+     * @param size The size of the board.
+     * @return The pattern of each placement on that size, in the order {@code fillIndices} writes them.
+     */
+    public static int[] getPlacementPatterns(int size) {
+        return patternsFor(size).pattern.clone();
+    }
+
+    /**
+     * Returns the shared patterns for a board size, building them on first use.
+     *
+     * @param size The size of the board.
+     * @return The patterns for that size.
+     * @throws IllegalArgumentException If the size is not supported.
+     */
+    private static Patterns patternsFor(int size) {
+        if (size < 4 || size > PackedBoard.MAX_SIZE) {
+            throw new IllegalArgumentException("No patterns for board size " + size);
+        }
+        Patterns patterns = PATTERNS[size];
+        if (patterns == null) {
+            synchronized (PATTERNS) {
+                patterns = PATTERNS[size];
+                if (patterns == null) {
+                    patterns = buildPatterns(size);
+                    PATTERNS[size] = patterns;
+                }
+            }
+        }
+        return patterns;
+    }
+
+    /**
+     * Lays out the patterns from the top left corner, then places each of them in all eight symmetric ways.
+     * A placement that covers the same squares in the same order as an earlier one is left out.
+     *
+     * @param size The size of the board.
+     * @return The patterns.
+     */
+    private static Patterns buildPatterns(int size) {
+        int line = Math.min(size, MAX_LINE);
+        List<int[]> shapes = new ArrayList<>();
+        // the edge, with the diagonal square next to the corner
+        int[] edge = new int[line + 1];
+        for (int col = 0; col < line; col++) {
+            edge[col] = col;
+        }
+        edge[line] = size + 1;
+        shapes.add(edge);
+        // the lines parallel to the edge that do not reach the middle of the board
+        for (int row = 1; row <= 3 && row < size / 2; row++) {
+            int[] parallel = new int[line];
+            for (int col = 0; col < line; col++) {
+                parallel[col] = row * size + col;
+            }
+            shapes.add(parallel);
+        }
+        if (size >= 6) {
+            // the corner regions
+            int[] square = new int[9];
+            for (int i = 0; i < 9; i++) {
+                square[i] = (i / 3) * size + i % 3;
+            }
+            shapes.add(square);
+            int[] rectangle = new int[10];
+            for (int i = 0; i < 10; i++) {
+                rectangle[i] = (i / 5) * size + i % 5;
+            }
+            shapes.add(rectangle);
+        }
+        // the short diagonals cutting the corner, then the long one from it
+        for (int length = 4; length < line; length++) {
+            int[] diagonal = new int[length];
+            for (int i = 0; i < length; i++) {
+                diagonal[i] = i * size + (length - 1 - i);
+            }
+            shapes.add(diagonal);
+        }
+        int[] diagonal = new int[line];
+        for (int i = 0; i < line; i++) {
+            diagonal[i] = i * size + i;
+        }
+        shapes.add(diagonal);
+
+        int[] lengths = new int[shapes.size()];
+        List<int[]> squares = new ArrayList<>();
+        List<Integer> pattern = new ArrayList<>();
+        for (int p = 0; p < shapes.size(); p++) {
+            int[] shape = shapes.get(p);
+            lengths[p] = shape.length;
+            List<int[]> placed = new ArrayList<>();
+            for (int symmetry = 0; symmetry < OpeningBook.SYMMETRIES; symmetry++) {
+                int[] placement = new int[shape.length];
+                for (int i = 0; i < shape.length; i++) {
+                    placement[i] = OpeningBook.transform(shape[i], size, symmetry);
+                }
+                if (placed.stream().noneMatch(other -> Arrays.equals(other, placement))) {
+                    placed.add(placement);
+                    squares.add(placement);
+                    pattern.add(p);
+                }
+            }
+        }
+        // list the placements covering each square, with the place value of the square in each
+        int[][] placements = squares.toArray(new int[0][]);
+        int[] firstCover = new int[size * size + 1];
+        for (int[] placement : placements) {
+            for (int square : placement) {
+                firstCover[square + 1]++;
+            }
+        }
+        for (int square = 0; square < size * size; square++) {
+            firstCover[square + 1] += firstCover[square];
+        }
+        int[] covers = new int[firstCover[size * size]];
+        int[] placeValues = new int[covers.length];
+        int[] next = Arrays.copyOf(firstCover, size * size);
+        for (int i = 0; i < placements.length; i++) {
+            for (int digit = 0; digit < placements[i].length; digit++) {
+                int c = next[placements[i][digit]]++;
+                covers[c] = i;
+                placeValues[c] = power3(digit);
+            }
+        }
+        return new Patterns(size, lengths, placements, pattern.stream().mapToInt(Integer::intValue).toArray(),
+                firstCover, covers, placeValues);
+    }
+
+    /**
+     * @param exponent The power to raise 3 to.
+     * @return 3 to the power of the exponent.
+     */
+    private static int power3(int exponent) {
+        int power = 1;
+        for (int i = 0; i < exponent; i++) {
+            power *= 3;
+        }
+        return power;
+    }
+
+    /**
+     * @return The size of the board the weights are for.
+     */
+    public int getSize() {
+        return this.patterns.size;
+    }
+
+    /**
+     * @return The number of game stages with their own tables.
+     */
+    public int getStageCount() {
+        return this.weights.length;
+    }
+}
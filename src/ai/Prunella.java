@@ -0,0 +1,550 @@
+package ai;
+
+import backend.BoardState;
+import backend.MoveUndo;
+import backend.TranspositionTable;
+import entities.Stone;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Ms. Prunella thinks like a chess player: she assumes both players will always
+ * make their best move, and she stops considering lines of play as soon as she
+ * knows they cannot change her decision. She keeps thinking one move deeper
+ * until her time is up, then plays the best move of the deepest search she finished.
+ * <p>
+ * With more than one thread, she searches the same position on every thread at once (Lazy SMP).
+ * The helper threads start at slightly different depths and try the root moves in a different
+ * order, and every thread shares her transposition table, so what one thread finds
+ * lets the others skip work.
+ * <p>
+ * At every position she tries the most promising moves first, so that she can stop sooner.
+ * See {@code MoveOrdering}.
+ */
+public class Prunella extends AIPlayer {
+    /** The default time she takes to think about a move, in milliseconds. */
+    public static final long DEFAULT_TIME_BUDGET = 1000;
+    /** The memory used for her transposition table unless told otherwise, in megabytes. */
+    public static final int DEFAULT_TABLE_SIZE = 32;
+    /** Added to the stone difference when the game is over, so that a win beats any evaluation. */
+    public static final int WIN_SCORE = 1_000_000;
+    /** A score larger than any score a position can have. */
+    static final int INFINITY = 2 * WIN_SCORE;
+
+    /** The time she takes to think about a move, in milliseconds. */
+    private long timeBudget;
+    /** The number of threads searching at once. */
+    private int threads;
+    /** The positions she has already searched. Kept between moves. */
+    private final TranspositionTable table;
+    /** Scores the positions where she stops looking ahead, or {@code null} to use her own rules of thumb. */
+    private PatternEvaluator evaluator;
+    /** The depth of the deepest search finished for the last move. */
+    private int lastDepth;
+    /** The score of the best move of the deepest search finished for the last move. */
+    private int lastScore;
+    /** The number of positions visited for the last move. */
+    private long lastNodes;
+    /** The time spent on the last move, in nanoseconds. */
+    private long lastElapsed;
+    /** The share of cutoffs caused by the first move searched for the last move. */
+    private double lastFirstMoveCutoffRate;
+
+    /**
+     * Invite Ms. Prunella to play. She will think for about a second per move
+     * using every processor core.
+     *
+     * @param stone The stone she should use.
+     */
+    public Prunella(Stone stone) {
+        this(stone, DEFAULT_TIME_BUDGET, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Invite Ms. Prunella to play, telling her how long she may think. She will use a single thread.
+     *
+     * @param stone The stone she should use.
+     * @param timeBudget The time she takes to think about a move, in milliseconds.
+     */
+    public Prunella(Stone stone, long timeBudget) {
+        this(stone, timeBudget, 1);
+    }
+
+    /**
+     * Invite Ms. Prunella to play, telling her how long she may think and how many threads to use.
+     *
+     * @param stone The stone she should use.
+     * @param timeBudget The time she takes to think about a move, in milliseconds.
+     * @param threads The number of threads searching at once.
+     * @throws IllegalArgumentException If the number of threads is not positive.
+     */
+    public Prunella(Stone stone, long timeBudget, int threads) {
+        this(stone, timeBudget, threads, DEFAULT_TABLE_SIZE);
+    }
+
+    /**
+     * Invite Ms. Prunella to play, also telling her how much memory her transposition table may use.
+     * A small table suits short searches, or many games played at once.
+     *
+     * @param stone The stone she should use.
+     * @param timeBudget The time she takes to think about a move, in milliseconds.
+     * @param threads The number of threads searching at once.
+     * @param tableSize The memory used for her transposition table, in megabytes.
+     * @throws IllegalArgumentException If the number of threads or the table size is not positive.
+     */
+    public Prunella(Stone stone, long timeBudget, int threads, int tableSize) {
+        super(stone);
+        if (threads <= 0) {
+            throw new IllegalArgumentException("At least one thread is needed.");
+        }
+        this.timeBudget = timeBudget;
+        this.threads = threads;
+        this.table = new TranspositionTable(tableSize);
+    }
+
+    @Override
+    public int[] findMove(BoardState position) {
+        return this.findMove(position, Deadline.none());
+    }
+
+    /**
+     * Finds a move, stopping at her time budget or the deadline, whichever comes first.
+     *
+     * @param position The position to move in. It should be her turn.
+     * @param deadline The time the move is due.
+     * @return The best move of the deepest search she finished as [row, col],
+     *         or {@code null} if no valid move exists.
+     */
+    @Override
+    public int[] findMove(BoardState position, Deadline deadline) {
+        BoardState root = BoardState.compactCopyOf(position);
+        int move = this.search(root, deadline.within(this.timeBudget), Integer.MAX_VALUE);
+        if (move == TranspositionTable.NO_MOVE) {
+            return null;
+        }
+        return new int[] {move / root.getSize(), move % root.getSize()};
+    }
+
+    /**
+     * Searches a position on every thread until the deadline or the maximum depth.
+     * The first thread decides when to stop, and the move of whichever thread
+     * finished the deepest iteration is played.
+     *
+     * @param root The position to search. It is not modified.
+     * @param deadline The time to stop.
+     * @param maxDepth The deepest iteration to search.
+     * @return The best move as {@code row * size + col}, or {@code NO_MOVE} if there is none.
+     */
+    private int search(BoardState root, Deadline deadline, int maxDepth) {
+        long start = System.nanoTime();
+        PatternEvaluator evaluator = this.evaluator != null && this.evaluator.getSize() == root.getSize() ? this.evaluator : null;
+        AtomicBoolean stop = new AtomicBoolean();
+        Search[] searches = new Search[this.threads];
+        Thread[] helpers = new Thread[this.threads];
+        for (int i = 0; i < this.threads; i++) {
+            searches[i] = new Search(root.copy(), this.table, evaluator, deadline, maxDepth, i, stop);
+        }
+        for (int i = 1; i < this.threads; i++) {
+            helpers[i] = new Thread(searches[i]::run, "Prunella-" + i);
+            helpers[i].setDaemon(true);
+            helpers[i].start();
+        }
+        searches[0].run();
+        stop.set(true);
+
+        Search best = searches[0];
+        long nodes = searches[0].nodes;
+        long cutoffs = searches[0].ordering.getCutoffs();
+        long firstMoveCutoffs = searches[0].ordering.getFirstMoveCutoffs();
+        for (int i = 1; i < this.threads; i++) {
+            try {
+                helpers[i].join();
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+            nodes += searches[i].nodes;
+            cutoffs += searches[i].ordering.getCutoffs();
+            firstMoveCutoffs += searches[i].ordering.getFirstMoveCutoffs();
+            if (searches[i].completedDepth > best.completedDepth) {
+                best = searches[i];
+            }
+        }
+        this.lastDepth = best.completedDepth;
+        this.lastScore = best.bestScore;
+        this.lastNodes = nodes;
+        this.lastFirstMoveCutoffRate = cutoffs == 0 ? 0.0 : (double) firstMoveCutoffs / cutoffs;
+        this.lastElapsed = System.nanoTime() - start;
+        return best.bestMove;
+    }
+
+    /**
+     * Measures how long it takes to search a position to a fixed depth, starting from an empty table.
+     * Comparing this across thread counts gives the effective speedup of the threads,
+     * which is less than the gain in nodes per second since the threads repeat some work.
+     *
+     * @param position The position to search. It is not modified.
+     * @param depth The depth to search to.
+     * @return The time taken in nanoseconds.
+     */
+    public long timeToDepth(BoardState position, int depth) {
+        this.table.clear();
+        long start = System.nanoTime();
+        this.search(BoardState.compactCopyOf(position), Deadline.none(), depth);
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * Searches a position to a fixed depth with 1, 2, 4, ... threads up to the given number
+     * and reports the nodes per second, the speedup in time to depth over a single thread
+     * and the share of cutoffs caused by the first move searched.
+     *
+     * @param position The position to search. It is not modified.
+     * @param depth The depth to search to.
+     * @param maxThreads The largest number of threads to try.
+     * @return A table with one line per thread count.
+     */
+    public static String reportSpeedup(BoardState position, int depth, int maxThreads) {
+        StringBuilder report = new StringBuilder(String.format("%8s %10s %14s %8s %10s%n",
+                "threads", "time (ms)", "nodes/sec", "speedup", "first cut"));
+        long singleTime = 0;
+        for (int threads = 1; ; threads = Math.min(2 * threads, maxThreads)) {
+            Prunella prunella = new Prunella(position.getTurn(), 0, threads);
+            long time = prunella.timeToDepth(position, depth);
+            if (threads == 1) {
+                singleTime = time;
+            }
+            report.append(String.format("%8d %10.1f %14.0f %8.2f %9.1f%%%n", threads, time / 1e6,
+                    prunella.getLastNodesPerSecond(), (double) singleTime / time, 100 * prunella.getLastFirstMoveCutoffRate()));
+            if (threads >= maxThreads) {
+                break;
+            }
+        }
+        return report.toString();
+    }
+
+    /**
+     * Lets her score positions with pattern weights instead of her own rules of thumb.
+     * The evaluator is shared by all her threads and only used on the board size it was made for.
+     *
+     * @param evaluator The evaluator to use, or {@code null} to go back to her rules of thumb.
+     */
+    public void setEvaluator(PatternEvaluator evaluator) {
+        this.evaluator = evaluator;
+    }
+
+    /**
+     * @return The depth of the deepest search finished for the last move.
+     */
+    public int getLastDepth() {
+        return this.lastDepth;
+    }
+
+    /**
+     * @return The score of the best move of the deepest search finished for the last move,
+     *         from her point of view. A forced win scores {@code WIN_SCORE} plus the final stone difference.
+     */
+    public int getLastScore() {
+        return this.lastScore;
+    }
+
+    /**
+     * @return The number of positions visited per second for the last move.
+     */
+    public double getLastNodesPerSecond() {
+        return this.lastElapsed == 0 ? 0.0 : this.lastNodes * 1e9 / this.lastElapsed;
+    }
+
+    /**
+     * @return The share of cutoffs caused by the first move searched for the last move, over all threads.
+     *         The closer to 1, the better her move ordering. See {@code MoveOrdering}.
+     */
+    public double getLastFirstMoveCutoffRate() {
+        return this.lastFirstMoveCutoffRate;
+    }
+
+    /**
+     * A single iterative deepening search from one position.
+     * It owns its board, which is changed in place and restored as the search goes.
+     * Several of them can search the same position at once, sharing the table.
+     */
+    private static class Search {
+        /** The position being searched. */
+        private final BoardState board;
+        /** The number of squares on the board. */
+        private final int squares;
+        /** The table shared with other searches. */
+        private final TranspositionTable table;
+        /** The evaluator shared with other searches, or {@code null}. */
+        private final PatternEvaluator evaluator;
+        /** The time to stop. */
+        private final Deadline deadline;
+        /** The deepest iteration to search. */
+        private final int maxDepth;
+        /** The index of the thread running this search. 0 is the main thread; the others are helpers. */
+        private final int index;
+        /** Set once the main thread is done, telling the helpers to stop. */
+        private final AtomicBoolean stop;
+        /** The moves of each ply, so move generation does not allocate. */
+        private final int[][] moveBuffers;
+        /** Decides the order the moves of each position are searched in. */
+        final MoveOrdering ordering;
+        /** The table index of each pattern placement, so evaluation does not allocate. Unused without an evaluator. */
+        private final int[] patternIndices;
+        /** The number of positions visited. */
+        long nodes;
+        /** {@code true} once the deadline has passed. The current iteration is then thrown away. */
+        private boolean aborted;
+        /** The depth of the deepest iteration finished. */
+        int completedDepth;
+        /** The best move of the deepest iteration finished, or {@code NO_MOVE}. */
+        int bestMove = TranspositionTable.NO_MOVE;
+        /** The score of {@code bestMove}, or 0 if no iteration finished or there was a single move. */
+        int bestScore;
+
+        /**
+         * @param board The position to search. It will be modified during the search.
+         * @param table The transposition table to use.
+         * @param evaluator The evaluator to use, or {@code null} for the rules of thumb.
+         * @param deadline The time to stop.
+         * @param maxDepth The deepest iteration to search.
+         * @param index The index of the thread running this search. 0 is the main thread.
+         * @param stop Set once the main thread is done, telling the helpers to stop.
+         */
+        Search(BoardState board, TranspositionTable table, PatternEvaluator evaluator, Deadline deadline,
+               int maxDepth, int index, AtomicBoolean stop) {
+            this.board = board;
+            this.squares = board.getSize() * board.getSize();
+            this.table = table;
+            this.evaluator = evaluator;
+            this.deadline = deadline;
+            this.maxDepth = maxDepth;
+            this.index = index;
+            this.stop = stop;
+            // a pass takes a ply without filling a square, but two passes in a row end the game
+            this.moveBuffers = new int[2 * this.squares + 2][];
+            this.ordering = new MoveOrdering(board.getSize(), this.moveBuffers.length);
+            this.patternIndices = new int[evaluator == null ? 0 : PatternEvaluator.getPlacementPatterns(board.getSize()).length];
+        }
+
+        /**
+         * Searches one ply deeper at a time until the deadline passes, the maximum depth is reached
+         * or the game is solved to the end. The result is left in {@code bestMove}.
+         * Helpers start one ply deeper on every other thread and rotate the order of the
+         * root moves, so the threads spread out over the tree instead of searching in lockstep.
+         */
+        void run() {
+            int[] rootMoves = this.buffer(0);
+            int count = this.board.fillValidMoves(rootMoves);
+            if (count == 0) {
+                return;
+            }
+            int bestMove = rootMoves[0];
+            if (count == 1) {
+                this.bestMove = bestMove;
+                return;
+            }
+            if (this.index > 0) {
+                int shift = this.index % count;
+                int[] rotated = new int[count];
+                for (int i = 0; i < count; i++) {
+                    rotated[i] = rootMoves[(i + shift) % count];
+                }
+                System.arraycopy(rotated, 0, rootMoves, 0, count);
+                bestMove = rootMoves[0];
+            }
+            int empties = this.squares - this.board.countStones(Stone.BLACK) - this.board.countStones(Stone.WHITE);
+            int lastDepth = Math.min(empties, this.maxDepth);
+            for (int depth = 1 + this.index % 2; depth <= lastDepth; depth++) {
+                // search the best move of the last iteration first
+                for (int i = 0; i < count; i++) {
+                    if (rootMoves[i] == bestMove) {
+                        rootMoves[i] = rootMoves[0];
+                        rootMoves[0] = bestMove;
+                        break;
+                    }
+                }
+                int alpha = -INFINITY;
+                int iterationBest = bestMove;
+                for (int i = 0; i < count && !this.aborted; i++) {
+                    int score = -this.searchMove(rootMoves[i], depth - 1, -INFINITY, -alpha, 1);
+                    if (!this.aborted && score > alpha) {
+                        alpha = score;
+                        iterationBest = rootMoves[i];
+                    }
+                }
+                if (this.aborted) {
+                    break;
+                }
+                bestMove = iterationBest;
+                this.bestMove = bestMove;
+                this.bestScore = alpha;
+                this.completedDepth = depth;
+                this.table.store(this.board.zobrist(), alpha, bestMove, depth, TranspositionTable.EXACT);
+                if (Math.abs(alpha) >= WIN_SCORE - this.squares) {
+                    // the game is solved to the end
+                    break;
+                }
+            }
+            if (this.bestMove == TranspositionTable.NO_MOVE) {
+                // not even the first iteration finished, so any legal move will do
+                this.bestMove = bestMove;
+            }
+        }
+
+        /**
+         * Makes a move, searches the resulting position and takes the move back.
+         *
+         * @return The score of the resulting position from the point of view of the player to move there.
+         */
+        private int searchMove(int move, int depth, int alpha, int beta, int ply) {
+            int size = this.board.getSize();
+            MoveUndo undo = this.board.makeMove(move / size, move % size);
+            int score = this.negamax(depth, alpha, beta, ply);
+            this.board.unmakeMove(undo);
+            return score;
+        }
+
+        /**
+         * Scores the current position with alpha-beta pruning.
+         *
+         * @param depth The number of moves left to look ahead. Passing does not count.
+         * @param alpha The score the player to move is already guaranteed.
+         * @param beta The score the opponent is already guaranteed, negated.
+         * @param ply The number of moves from the root.
+         * @return The score from the point of view of the player to move.
+         */
+        private int negamax(int depth, int alpha, int beta, int ply) {
+            this.nodes++;
+            if ((this.nodes & 1023) == 0 && (this.deadline.isExpired() || this.stop.get())) {
+                this.aborted = true;
+            }
+            if (this.aborted) {
+                return 0;
+            }
+
+            long key = this.board.zobrist();
+            int ttMove = TranspositionTable.NO_MOVE;
+            long entry = this.table.probe(key);
+            if (entry != 0) {
+                ttMove = TranspositionTable.getMove(entry);
+                if (TranspositionTable.getDepth(entry) >= depth) {
+                    int score = TranspositionTable.getScore(entry);
+                    int bound = TranspositionTable.getBound(entry);
+                    if (bound == TranspositionTable.EXACT
+                            || (bound == TranspositionTable.LOWER_BOUND && score >= beta)
+                            || (bound == TranspositionTable.UPPER_BOUND && score <= alpha)) {
+                        return score;
+                    }
+                }
+            }
+
+            int[] moves = this.buffer(ply);
+            int count = this.board.fillValidMoves(moves);
+            if (count == 0) {
+                this.board.nextTurn();
+                int score;
+                if (this.board.fillValidMoves(moves) == 0) {
+                    // neither player can move, so the game is over
+                    this.board.nextTurn();
+                    return this.finalScore();
+                }
+                score = -this.negamax(depth, -beta, -alpha, ply + 1);
+                this.board.nextTurn();
+                return score;
+            }
+            if (depth == 0) {
+                return this.evaluate(count);
+            }
+
+            this.ordering.order(moves, count, ply, ttMove);
+            int originalAlpha = alpha;
+            int best = -INFINITY;
+            int bestMove = moves[0];
+            for (int i = 0; i < count; i++) {
+                int score = -this.searchMove(moves[i], depth - 1, -beta, -alpha, ply + 1);
+                if (this.aborted) {
+                    return 0;
+                }
+                if (score > best) {
+                    best = score;
+                    bestMove = moves[i];
+                }
+                if (best > alpha) {
+                    alpha = best;
+                }
+                if (alpha >= beta) {
+                    this.ordering.recordCutoff(moves[i], ply, depth, i);
+                    break;
+                }
+            }
+
+            int bound;
+            if (best <= originalAlpha) {
+                bound = TranspositionTable.UPPER_BOUND;
+            }
+            else if (best >= beta) {
+                bound = TranspositionTable.LOWER_BOUND;
+            }
+            else {
+                bound = TranspositionTable.EXACT;
+            }
+            this.table.store(key, best, bestMove, depth, bound);
+            return best;
+        }
+
+        /**
+         * Estimates how good the position is for the player to move.
+         * With an evaluator, this is its score, kept well away from the scores of finished games.
+         * Otherwise, stable stones count the most, then having more moves available,
+         * then having more empty squares next to the opponent's stones to move to later.
+         *
+         * @param mobility The number of moves the player to move has.
+         * @return The estimated score.
+         */
+        private int evaluate(int mobility) {
+            if (this.evaluator != null) {
+                int score = this.evaluator.evaluate(this.board, this.patternIndices);
+                return Math.max(-WIN_SCORE / 2, Math.min(WIN_SCORE / 2, score));
+            }
+            Stone own = this.board.getTurn();
+            Stone opponent = own.getOpposite();
+            this.board.nextTurn();
+            int opponentMobility = this.board.countValidMoves();
+            this.board.nextTurn();
+
+            int stable = this.board.countStableStones(own) - this.board.countStableStones(opponent);
+            int potential = this.board.countPotentialMobility(own) - this.board.countPotentialMobility(opponent);
+            return 20 * stable + 5 * (mobility - opponentMobility) + 2 * potential;
+        }
+
+        /**
+         * Scores a finished game for the player to move.
+         *
+         * @return A score beyond any evaluation, adjusted by the stone difference.
+         */
+        private int finalScore() {
+            Stone own = this.board.getTurn();
+            int difference = this.board.countStones(own) - this.board.countStones(own.getOpposite());
+            if (difference > 0) {
+                return WIN_SCORE + difference;
+            }
+            if (difference < 0) {
+                return -WIN_SCORE + difference;
+            }
+            return 0;
+        }
+
+        /**
+         * Returns the move buffer of a ply, allocating it on first use.
+         *
+         * @param ply The number of moves from the root.
+         * @return The buffer for that ply.
+         */
+        private int[] buffer(int ply) {
+            if (this.moveBuffers[ply] == null) {
+                this.moveBuffers[ply] = new int[this.squares];
+            }
+            return this.moveBuffers[ply];
+        }
+    }
+}
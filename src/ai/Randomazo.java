@@ -1,11 +1,11 @@
 package ai;
 
-import backend.Board;
+import backend.BoardState;
+import backend.MockBoard;
 import entities.Stone;
 
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * He will essentially press every square available until it makes a move.
@@ -22,42 +22,39 @@ public class Randomazo extends AIPlayer {
     }
 
     @Override
-    public int[] findMove() {
-        return findRandomMove(this.stone);
+    public int[] findMove(BoardState position) {
+        return findRandomMove(position);
     }
 
     /**
-     * Finds a random valid move for the specified stone.
+     * Finds a random valid move for the specified stone on the current state of the Board.
      *
      * @param stone The stone to find a move for.
      * @return An array [row, col] representing the coordinate
      *         of a valid square to place the stone, or {@code null} if no valid move exists.
      */
     public static int[] findRandomMove(Stone stone) {
-        Board board = Board.getInstance();
-        int size = board.getSize();
-
-        // Create a list of coordinates, then shuffle order to simulate random choices
-        List<int[]> coordinates = new ArrayList<>();
-        for (int row = 0; row < size; row++) {
-            for (int col = 0; col < size; col++) {
-                int[] ar = {row, col};
-                coordinates.add(ar);
-            }
+        MockBoard board = new MockBoard();
+        if (!board.getTurn().equals(stone)) {
+            board.nextTurn();
         }
-        Collections.shuffle(coordinates);
+        return findRandomMove(board);
+    }
 
-        // Go through the list and check for valid moves
-        for (int[] coor : coordinates) {
-            int row = coor[0], col = coor[1];
-            // Check if this would be a valid move
-            if (board.getSquareAt(row, col).getStone() == null &&
-                    board.getFlippingDirections(stone, row, col).length > 0) {
-                return new int[]{row, col};
-            }
+    /**
+     * Finds a random valid move for the player to move in the given position.
+     * Every valid move is equally likely.
+     *
+     * @param position The position to move in. It is not modified.
+     * @return An array [row, col] representing the coordinate
+     *         of a valid square to place the stone, or {@code null} if no valid move exists.
+     */
+    public static int[] findRandomMove(BoardState position) {
+        List<int[]> moves = position.getValidMoves();
+        if (moves.isEmpty()) {
+            // No valid move found
+            return null;
         }
-
-        // No valid move found
-        return null;
+        return moves.get(ThreadLocalRandom.current().nextInt(moves.size()));
     }
 }
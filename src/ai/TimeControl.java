@@ -0,0 +1,103 @@
+package ai;
+
+import backend.BoardState;
+import entities.Stone;
+
+/**
+ * How much time an AI may spend on its moves during a game.
+ * Each move has a budget, and the time spent thinking is also taken from a game clock
+ * that is shared by every move. As the clock runs low, the budget shrinks so that
+ * the remaining time is spread over the moves still to come.
+ * <p>
+ * There is also an optional minimum delay before the move is shown, so that a quick AI
+ * doesn't move the instant the player does. It runs alongside the thinking, so it only
+ * adds time when the AI is faster than the delay.
+ */
+public class TimeControl {
+    /** Used as the game clock when it never runs out. */
+    public static final long UNLIMITED = Long.MAX_VALUE;
+    /** The smallest budget ever given to a move, in milliseconds, even when the clock is nearly out. */
+    private static final long MINIMUM_BUDGET = 10;
+
+    /** The time each move may take, in milliseconds. */
+    private final long moveBudget;
+    /** The time left on the game clock, in milliseconds. */
+    private long remaining;
+    /** The minimum time before a move is shown, in milliseconds. */
+    private final long minimumDelay;
+
+    /**
+     * Uses a budget of 10 seconds per move with no game clock,
+     * and shows each move after at least a second.
+     */
+    public TimeControl() {
+        this(10_000, UNLIMITED, 1000);
+    }
+
+    /**
+     * @param moveBudget The time each move may take, in milliseconds.
+     * @param gameClock The total time all moves of the game may take, in milliseconds,
+     *                  or {@code UNLIMITED}.
+     * @param minimumDelay The minimum time before a move is shown, in milliseconds. 0 for none.
+     * @throws IllegalArgumentException If any of the times is negative.
+     */
+    public TimeControl(long moveBudget, long gameClock, long minimumDelay) {
+        if (moveBudget < 0 || gameClock < 0 || minimumDelay < 0) {
+            throw new IllegalArgumentException("Times cannot be negative.");
+        }
+        this.moveBudget = moveBudget;
+        this.remaining = gameClock;
+        this.minimumDelay = minimumDelay;
+    }
+
+    /**
+     * Decides how long the next move may take. This is the move budget, unless the game clock
+     * is running low, in which case the clock is split evenly over the moves this player
+     * is expected to have left.
+     *
+     * @param position The position the move is made in.
+     * @return The time the move may take, in milliseconds.
+     */
+    public synchronized long budgetFor(BoardState position) {
+        if (this.remaining == UNLIMITED) {
+            return this.moveBudget;
+        }
+        int size = position.getSize();
+        int empties = size * size - position.countStones(Stone.BLACK) - position.countStones(Stone.WHITE);
+        // each player fills about half of the empty squares
+        long movesLeft = Math.max(1, (empties + 1) / 2);
+        return Math.max(MINIMUM_BUDGET, Math.min(this.moveBudget, this.remaining / movesLeft));
+    }
+
+    /**
+     * Takes the time spent on a move off the game clock.
+     *
+     * @param millis The time spent, in milliseconds.
+     */
+    public synchronized void charge(long millis) {
+        if (this.remaining != UNLIMITED) {
+            this.remaining = Math.max(0, this.remaining - millis);
+        }
+    }
+
+    /**
+     * @return The time left on the game clock in milliseconds, or {@code UNLIMITED}.
+     */
+    public synchronized long getRemaining() {
+        return this.remaining;
+    }
+
+    /**
+     * @return The time each move may take, in milliseconds.
+     */
+    public long getMoveBudget() {
+        return this.moveBudget;
+    }
+
+    /**
+     * @return The minimum time before a move is shown, in milliseconds.
+     */
+    public long getMinimumDelay() {
+        return this.minimumDelay;
+    }
+}
@@ -0,0 +1,615 @@
+package backend;
+
+import entities.Stone;
+import exceptions.SingletonNotYetExistsException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A bitboard version of MockBoard for boards of up to 8 x 8 squares.
+ * Each player's stones are stored as the bits of a single {@code long},
+ * where the square at [row, col] is the bit {@code row * size + col}.
+ * Move generation and flipping are done by shifting whole bitboards
+ * instead of walking the squares one at a time.
+ */
+public class BitBoard implements BoardState {
+    /**
+     * The largest board size that fits in a single {@code long}.
+     */
+    public static final int MAX_SIZE = 8;
+
+    /**
+     * The row offset of each direction, in the clockwise order starting from the top.
+     */
+    private static final int[] ROW_DELTAS = {-1, -1, 0, 1, 1, 1, 0, -1};
+    /**
+     * The column offset of each direction, in the clockwise order starting from the top.
+     */
+    private static final int[] COL_DELTAS = {0, 1, 1, 1, 0, -1, -1, -1};
+    /**
+     * The bit shift of each direction for each board size. Access by [size][direction].
+     */
+    private static final int[][] SHIFTS = new int[MAX_SIZE + 1][8];
+    /**
+     * The mask applied after each shift for each board size. Access by [size][direction].
+     * It removes the bits that wrapped around to the other side of the board
+     * and the bits that went past the last square.
+     */
+    private static final long[][] MASKS = new long[MAX_SIZE + 1][8];
+    /**
+     * The squares whose neighbor towards each direction is off the board, for each board size.
+     * Access by [size][direction].
+     */
+    private static final long[][] BORDERS = new long[MAX_SIZE + 1][8];
+    /**
+     * The lines of each board size, grouped by the orientations in {@code ORIENTATIONS}.
+     * Access by [size][orientation][line].
+     */
+    private static final long[][][] LINES = new long[MAX_SIZE + 1][4][];
+    /**
+     * The two opposite directions along each orientation of line:
+     * rows, columns, diagonals going down to the right and diagonals going up to the right.
+     */
+    private static final int[][] ORIENTATIONS = {{2, 6}, {0, 4}, {3, 7}, {1, 5}};
+
+    static {
+        for (int size = 1; size <= MAX_SIZE; size++) {
+            long full = fullMask(size);
+            long firstCol = 0L;
+            long lastCol = 0L;
+            for (int row = 0; row < size; row++) {
+                firstCol |= 1L << (row * size);
+                lastCol |= 1L << (row * size + size - 1);
+            }
+            for (int dir = 0; dir < 8; dir++) {
+                SHIFTS[size][dir] = ROW_DELTAS[dir] * size + COL_DELTAS[dir];
+                long mask = full;
+                if (COL_DELTAS[dir] > 0) {
+                    mask &= ~firstCol;
+                }
+                else if (COL_DELTAS[dir] < 0) {
+                    mask &= ~lastCol;
+                }
+                MASKS[size][dir] = mask;
+            }
+            for (int orientation = 0; orientation < 4; orientation++) {
+                LINES[size][orientation] = new long[2 * size - 1];
+            }
+            for (int row = 0; row < size; row++) {
+                for (int col = 0; col < size; col++) {
+                    long bit = 1L << (row * size + col);
+                    for (int dir = 0; dir < 8; dir++) {
+                        int r = row + ROW_DELTAS[dir], c = col + COL_DELTAS[dir];
+                        if (r < 0 || r >= size || c < 0 || c >= size) {
+                            BORDERS[size][dir] |= bit;
+                        }
+                    }
+                    LINES[size][0][row] |= bit;
+                    LINES[size][1][col] |= bit;
+                    LINES[size][2][row - col + size - 1] |= bit;
+                    LINES[size][3][row + col] |= bit;
+                }
+            }
+        }
+    }
+
+    /**
+     * The size of the board.
+     */
+    private final int size;
+    /**
+     * The squares with a black stone.
+     */
+    private long black;
+    /**
+     * The squares with a white stone.
+     */
+    private long white;
+    /**
+     * The player of the current turn.
+     */
+    private Stone turn;
+    /**
+     * The Zobrist keys for the size of this board.
+     */
+    private final Zobrist keys;
+    /**
+     * The Zobrist hash of the current state, updated on every change.
+     */
+    private long zobrist;
+    /**
+     * The stable stones of the positions along the current line of play, by the number of stones on the board.
+     * Allocated the first time stable stones are counted.
+     */
+    private long[] stableByCount;
+    /**
+     * Whether each entry of {@code stableByCount} was worked out for the position on the current line.
+     * An entry is cleared whenever a move reaches its number of stones.
+     */
+    private boolean[] stableKnown;
+
+    /**
+     * Initializes the class based on the current state of the Board singleton.
+     *
+     * @throws SingletonNotYetExistsException If the Board has not been initialized yet.
+     * @throws IllegalArgumentException If the board is larger than {@code MAX_SIZE}.
+     */
+    public BitBoard() throws SingletonNotYetExistsException {
+        this(new MockBoard());
+    }
+
+    /**
+     * Initializes the class by copying the state of another board.
+     *
+     * @param other The board to copy. It may use any representation.
+     * @throws IllegalArgumentException If the board is larger than {@code MAX_SIZE}.
+     */
+    public BitBoard(BoardState other) {
+        this.size = other.getSize();
+        if (this.size > MAX_SIZE) {
+            throw new IllegalArgumentException("BitBoard cannot hold a board larger than " + MAX_SIZE);
+        }
+        this.turn = Stone.BLACK.equals(other.getTurn()) ? Stone.BLACK : Stone.WHITE;
+        for (int row = 0; row < this.size; row++) {
+            for (int col = 0; col < this.size; col++) {
+                Stone stone = other.getStoneAt(row, col);
+                if (Stone.BLACK.equals(stone)) {
+                    this.black |= 1L << (row * this.size + col);
+                }
+                else if (Stone.WHITE.equals(stone)) {
+                    this.white |= 1L << (row * this.size + col);
+                }
+            }
+        }
+        this.keys = Zobrist.forSize(this.size);
+        this.zobrist = Zobrist.hash(this);
+    }
+
+    /**
+     * Private constructor for creating copies.
+     *
+     * @param size The size of the board.
+     * @param black The squares with a black stone.
+     * @param white The squares with a white stone.
+     * @param turn The current turn.
+     * @param zobrist The Zobrist hash of the state.
+     */
+    private BitBoard(int size, long black, long white, Stone turn, long zobrist) {
+        this.size = size;
+        this.black = black;
+        this.white = white;
+        this.turn = turn;
+        this.keys = Zobrist.forSize(size);
+        this.zobrist = zobrist;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o instanceof BitBoard other) {
+            return this.size == other.size && this.zobrist == other.zobrist && this.black == other.black
+                    && this.white == other.white && this.turn.equals(other.turn);
+        }
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(this.zobrist);
+    }
+
+    /**
+     * Returns the string representation of this object.
+     * The format is the same as {@code MockBoard.toString}.
+     *
+     * @return The string representation of this BitBoard.
+     */
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder();
+        for (int row = 0; row < this.size; row++) {
+            for (int col = 0; col < this.size; col++) {
+                long bit = 1L << (row * this.size + col);
+                if ((this.black & bit) != 0) {
+                    result.append("B");
+                }
+                else if ((this.white & bit) != 0) {
+                    result.append("W");
+                }
+                else {
+                    result.append("*");
+                }
+            }
+            result.append("\n");
+        }
+        result.deleteCharAt(result.length() - 1);
+        return result.toString();
+    }
+
+    @Override
+    public int placeStone(int row, int col) {
+        if (row < 0 || row >= this.size || col < 0 || col >= this.size) {
+            return 0;
+        }
+        int square = row * this.size + col;
+        if (((this.black | this.white) & (1L << square)) != 0) {
+            // stone already exists on the square
+            return 0;
+        }
+        long flips = this.getFlips(square);
+        if (flips == 0) {
+            // no stone would be flipped; invalid move
+            return 0;
+        }
+
+        this.applyMove(square, flips);
+        return Long.bitCount(flips);
+    }
+
+    @Override
+    public MoveUndo makeMove(int row, int col) {
+        if (row < 0 || row >= this.size || col < 0 || col >= this.size) {
+            return null;
+        }
+        int square = row * this.size + col;
+        if (((this.black | this.white) & (1L << square)) != 0) {
+            return null;
+        }
+        long flips = this.getFlips(square);
+        if (flips == 0) {
+            return null;
+        }
+        this.applyMove(square, flips);
+        return new MoveUndo(square, new long[] {flips});
+    }
+
+    @Override
+    public void unmakeMove(MoveUndo undo) {
+        long placed = 1L << undo.getSquare();
+        long flips = undo.getFlips()[0];
+        this.zobrist ^= this.flipKey(flips) ^ this.keys.turnKey();
+        if ((this.black & placed) != 0) {
+            this.black &= ~(placed | flips);
+            this.white |= flips;
+            this.turn = Stone.BLACK;
+            this.zobrist ^= this.keys.stoneKey(Stone.BLACK, undo.getSquare());
+        }
+        else {
+            this.white &= ~(placed | flips);
+            this.black |= flips;
+            this.turn = Stone.WHITE;
+            this.zobrist ^= this.keys.stoneKey(Stone.WHITE, undo.getSquare());
+        }
+    }
+
+    /**
+     * Returns the combined Zobrist key of flipping every stone in a bitboard.
+     *
+     * @param flips The flipped squares.
+     * @return The key to XOR when all those stones are flipped.
+     */
+    private long flipKey(long flips) {
+        long key = 0L;
+        for (; flips != 0; flips &= flips - 1) {
+            key ^= this.keys.flipKey(Long.numberOfTrailingZeros(flips));
+        }
+        return key;
+    }
+
+    /**
+     * Places the current turn player's stone and flips the given stones,
+     * then the other player takes turn. The move is assumed to be legal.
+     *
+     * @param square The square to place the stone on, as {@code row * size + col}.
+     * @param flips The stones to flip. See {@code getFlips}.
+     */
+    public void applyMove(int square, long flips) {
+        this.zobrist ^= this.flipKey(flips) ^ this.keys.stoneKey(this.turn, square);
+        long placed = (1L << square) | flips;
+        if (Stone.BLACK.equals(this.turn)) {
+            this.black |= placed;
+            this.white &= ~flips;
+        }
+        else {
+            this.white |= placed;
+            this.black &= ~flips;
+        }
+        if (this.stableKnown != null) {
+            this.stableKnown[Long.bitCount(this.black | this.white)] = false;
+        }
+        this.nextTurn();
+    }
+
+    /**
+     * Returns the stones that would be flipped if the current turn player
+     * placed a stone on the square. The square is assumed to be empty.
+     *
+     * @param square The square as {@code row * size + col}.
+     * @return The squares that would be flipped. 0 if the move is illegal.
+     */
+    public long getFlips(int square) {
+        long own = this.getStones(this.turn);
+        return flips(this.size, own, (this.black | this.white) & ~own, square);
+    }
+
+    /**
+     * Returns every square the current turn player can place a stone on.
+     *
+     * @return The legal moves as a bitboard.
+     */
+    public long getValidMoveMask() {
+        long own = this.getStones(this.turn);
+        return validMoveMask(this.size, own, (this.black | this.white) & ~own);
+    }
+
+    /**
+     * Returns the stones that would be flipped by placing a stone on a square,
+     * given only the stones of both players. The square is assumed to be empty.
+     *
+     * @param size The size of the board.
+     * @param own The stones of the player placing the stone.
+     * @param opp The stones of the other player.
+     * @param square The square as {@code row * size + col}.
+     * @return The squares that would be flipped. 0 if the move is illegal.
+     */
+    public static long flips(int size, long own, long opp, int square) {
+        long start = 1L << square;
+        long flips = 0L;
+        for (int dir = 0; dir < 8; dir++) {
+            long line = 0L;
+            long pos = shift(start, size, dir);
+            while ((pos & opp) != 0) {
+                line |= pos;
+                pos = shift(pos, size, dir);
+            }
+            if ((pos & own) != 0) {
+                flips |= line;
+            }
+        }
+        return flips;
+    }
+
+    /**
+     * Returns every square a player can place a stone on, given only the stones of both players.
+     *
+     * @param size The size of the board.
+     * @param own The stones of the player to move.
+     * @param opp The stones of the other player.
+     * @return The legal moves as a bitboard.
+     */
+    public static long validMoveMask(int size, long own, long opp) {
+        long empty = ~(own | opp) & fullMask(size);
+        long moves = 0L;
+        for (int dir = 0; dir < 8; dir++) {
+            // collect the runs of opposite stones that start next to an own stone
+            long run = shift(own, size, dir) & opp;
+            for (int i = 3; i < size; i++) {
+                run |= shift(run, size, dir) & opp;
+            }
+            moves |= shift(run, size, dir) & empty;
+        }
+        return moves;
+    }
+
+    /**
+     * Returns the stones that can never be flipped. See {@code BoardState.countStableStones}.
+     * The answer is remembered for the position, and the answer of the last position
+     * along the current line that was asked is where the work starts.
+     *
+     * @return The stable stones of both players as a bitboard.
+     */
+    public long getStableStones() {
+        int stones = Long.bitCount(this.black | this.white);
+        if (this.stableKnown == null) {
+            this.stableByCount = new long[this.size * this.size + 1];
+            this.stableKnown = new boolean[this.size * this.size + 1];
+        }
+        if (!this.stableKnown[stones]) {
+            long seed = 0L;
+            for (int earlier = stones - 1; earlier >= 0; earlier--) {
+                if (this.stableKnown[earlier]) {
+                    seed = this.stableByCount[earlier];
+                    break;
+                }
+            }
+            this.stableByCount[stones] = stableStones(this.size, this.black, this.white, seed);
+            this.stableKnown[stones] = true;
+        }
+        return this.stableByCount[stones];
+    }
+
+    /**
+     * Returns the stones that can never be flipped, given only the stones of both players.
+     * See {@code BoardState.countStableStones} for which stones are found.
+     *
+     * @param size The size of the board.
+     * @param black The stones of black.
+     * @param white The stones of white.
+     * @param seed Stones already known to be stable, such as the stable stones of an earlier position.
+     * @return The stable stones of both players as a bitboard, including the seed.
+     */
+    public static long stableStones(int size, long black, long white, long seed) {
+        long occupied = black | white;
+        long[] lines = new long[4];
+        for (int orientation = 0; orientation < 4; orientation++) {
+            for (long line : LINES[size][orientation]) {
+                if ((occupied & line) == line) {
+                    lines[orientation] |= line;
+                }
+            }
+        }
+        long stable = seed & occupied;
+        while (true) {
+            long grown = stable | (black & anchored(size, stable & black, lines))
+                    | (white & anchored(size, stable & white, lines));
+            if (grown == stable) {
+                return stable;
+            }
+            stable = grown;
+        }
+    }
+
+    /**
+     * Returns the squares that cannot be flipped along any line, either because the line is full
+     * or because a neighbor on the line is the edge or one of the given stable stones.
+     *
+     * @param size The size of the board.
+     * @param stable The stable stones of one player.
+     * @param fullLines The squares on full lines, by orientation.
+     * @return The squares anchored along all four lines.
+     */
+    private static long anchored(int size, long stable, long[] fullLines) {
+        long anchored = fullMask(size);
+        for (int orientation = 0; orientation < 4; orientation++) {
+            int a = ORIENTATIONS[orientation][0], b = ORIENTATIONS[orientation][1];
+            anchored &= fullLines[orientation] | BORDERS[size][a] | BORDERS[size][b]
+                    | shift(stable, size, a) | shift(stable, size, b);
+        }
+        return anchored;
+    }
+
+    /**
+     * Returns the empty squares next to at least one of the given stones.
+     *
+     * @param size The size of the board.
+     * @param stones The stones to look around.
+     * @param empty The empty squares.
+     * @return The empty squares next to the stones.
+     */
+    public static long frontier(int size, long stones, long empty) {
+        long around = 0L;
+        for (int dir = 0; dir < 8; dir++) {
+            around |= shift(stones, size, dir);
+        }
+        return around & empty;
+    }
+
+    /**
+     * Shifts every bit by one square towards the direction.
+     * Bits that leave the board are discarded.
+     *
+     * @param bits The bitboard to shift.
+     * @param size The size of the board.
+     * @param dir The direction as an index from 0 (top) to 7 (top-left), going clockwise.
+     * @return The shifted bitboard.
+     */
+    private static long shift(long bits, int size, int dir) {
+        int amount = SHIFTS[size][dir];
+        long shifted = amount > 0 ? bits << amount : bits >>> -amount;
+        return shifted & MASKS[size][dir];
+    }
+
+    /**
+     * Returns the mask containing every square of a board.
+     *
+     * @param size The size of the board.
+     * @return The bitboard with every square set.
+     */
+    private static long fullMask(int size) {
+        return size * size == 64 ? -1L : (1L << (size * size)) - 1;
+    }
+
+    /**
+     * Returns the squares occupied by the given stone.
+     *
+     * @param stone The stone to look for.
+     * @return The squares with that stone as a bitboard.
+     */
+    public long getStones(Stone stone) {
+        return Stone.BLACK.equals(stone) ? this.black : this.white;
+    }
+
+    @Override
+    public Stone getTurn() {
+        return this.turn;
+    }
+
+    @Override
+    public void nextTurn() {
+        this.turn = Stone.BLACK.equals(this.turn) ? Stone.WHITE : Stone.BLACK;
+        this.zobrist ^= this.keys.turnKey();
+    }
+
+    @Override
+    public long zobrist() {
+        return this.zobrist;
+    }
+
+    @Override
+    public BitBoard copy() {
+        return new BitBoard(this.size, this.black, this.white, this.turn, this.zobrist);
+    }
+
+    @Override
+    public Stone getStoneAt(int row, int col) {
+        if (row < 0 || row >= this.size || col < 0 || col >= this.size) {
+            return null;
+        }
+        long bit = 1L << (row * this.size + col);
+        if ((this.black & bit) != 0) {
+            return Stone.BLACK;
+        }
+        if ((this.white & bit) != 0) {
+            return Stone.WHITE;
+        }
+        return null;
+    }
+
+    @Override
+    public int getSize() {
+        return this.size;
+    }
+
+    @Override
+    public List<int[]> getValidMoves() {
+        List<int[]> validMoves = new ArrayList<>();
+        for (long moves = this.getValidMoveMask(); moves != 0; moves &= moves - 1) {
+            int square = Long.numberOfTrailingZeros(moves);
+            validMoves.add(new int[] {square / this.size, square % this.size});
+        }
+        return validMoves;
+    }
+
+    @Override
+    public int fillValidMoves(int[] squares) {
+        int count = 0;
+        for (long moves = this.getValidMoveMask(); moves != 0; moves &= moves - 1) {
+            squares[count++] = Long.numberOfTrailingZeros(moves);
+        }
+        return count;
+    }
+
+    @Override
+    public int countValidMoves() {
+        return Long.bitCount(this.getValidMoveMask());
+    }
+
+    @Override
+    public int countPotentialMobility(Stone stone) {
+        long empty = ~(this.black | this.white) & fullMask(this.size);
+        return Long.bitCount(frontier(this.size, this.getStones(stone.getOpposite()), empty));
+    }
+
+    @Override
+    public int countStableStones(Stone stone) {
+        return Long.bitCount(this.getStableStones() & this.getStones(stone));
+    }
+
+    @Override
+    public int countStones(Stone stone) {
+        return Long.bitCount(this.getStones(stone));
+    }
+
+    /**
+     * Create the object instance from a text file.
+     * Refer to the {@code DebugFrame.saveBoardState}
+     * documentation for file formatting.
+     *
+     * @param path The path to the text file.
+     * @return The {@code BitBoard} instance copying
+     * the state in the file.
+     */
+    public static BitBoard parse(String path) {
+        return new BitBoard(MockBoard.parse(path));
+    }
+}
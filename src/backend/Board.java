@@ -1,5 +1,6 @@
 package backend;
 
+import ai.AIPlayer;
 import entities.Direction;
 import entities.Stone;
 import exceptions.SingletonAlreadyExistsException;
@@ -39,6 +40,10 @@ public class Board {
      * Whether a player (not including AI) can interact with the board or not.
      */
     private boolean interactable;
+    /**
+     * The precomputed rays for walking this board.
+     */
+    private RayTable rays;
 
     /**
      * Initializes the Othello board. Should only be called once in the beginning.
@@ -56,6 +61,20 @@ public class Board {
                 this.squares[row][col] = new SquarePanel(row, col);
             }
         }
+        // link each square to its neighbors so that they can be walked without lookups
+        this.rays = RayTable.forSize(size);
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                SquarePanel[] neighbors = new SquarePanel[8];
+                for (int dir = 0; dir < 8; dir++) {
+                    int neighbor = this.rays.getNeighbor(row * size + col, dir);
+                    if (neighbor != -1) {
+                        neighbors[dir] = this.squares[neighbor / size][neighbor % size];
+                    }
+                }
+                this.squares[row][col].setNeighbors(neighbors);
+            }
+        }
         // the first turn is black
         this.turn = Stone.BLACK;
     }
@@ -158,15 +177,23 @@ public class Board {
             // place stone and flip appropriately
             this.getSquareAt(row, col).place(stone);
             List<int[]> flipList = new ArrayList<>();
+            Stone opposite = stone.getOpposite();
             for (Direction dir : flippableDirections) {
                 // getFlippingDirections() already ensures all stones in the direction are flippable
-                for (SquarePanel square = this.getSquareAt(row, col).getAdjacent(dir);
-                  square.getStone().equals(stone.getOpposite());
-                  square = square.getAdjacent(dir)) {
-                    square.flip();
-                    flipList.add(square.getCoordinate());
+                for (int square : this.rays.getRay(row * this.size + col, dir.getIndex())) {
+                    SquarePanel panel = this.squares[square / this.size][square % this.size];
+                    if (!opposite.equals(panel.getStone())) {
+                        break;
+                    }
+                    panel.flip();
+                    flipList.add(panel.getCoordinate());
                 }
             }
+            // let the AI know before the turn changes, so it can stop pondering in time
+            AIPlayer ai = GameFrame.getAI();
+            if (ai != null) {
+                ai.notifyStonePlaced(stone, row, col);
+            }
             if (GameFrame.isDebugMode()) {
                 DebugFrame.getInstance().addMoveHistory(stone, row, col, flipList.toArray(new int[flipList.size()][2]));
                 if (DebugFrame.getInstance().shouldChangeTurn()) {
@@ -191,35 +218,24 @@ public class Board {
      */
     public Direction[] getFlippingDirections(Stone stone, int row, int col) {
         List<Direction> resultList = new ArrayList<>();
-        Direction dir = Direction.TOP;
-        do {
-            boolean addThis = false;
-            SquarePanel square = this.getSquareAt(row, col).getAdjacent(dir);
+        for (int dir = 0; dir < 8; dir++) {
             // must be within the board and not empty
             // must have at least one stone of opposite color, then one of same color
-            boolean oppositeSeen = false;
-            while (square != null && square.getStone() != null) {
-                Stone stoneAtSquare = square.getStone();
-                if (!oppositeSeen && stone.equals(stoneAtSquare.getOpposite())) {
-                    // first time seeing the opposite stone; must occur in the first iteration
-                    oppositeSeen = true;
-                }
-                else if (!oppositeSeen && stone.equals(stoneAtSquare)) {
-                    // saw the same stone without seeing an opposite stone; must occur in the first iteration
+            int[] ray = this.rays.getRay(row * this.size + col, dir);
+            for (int i = 0; i < ray.length; i++) {
+                Stone stoneAtSquare = this.squares[ray[i] / this.size][ray[i] % this.size].getStone();
+                if (stoneAtSquare == null) {
                     break;
                 }
-                else if (oppositeSeen && stone.equals(stoneAtSquare)) {
-                    // saw the same stone after seeing opposite stone(s)
-                    addThis = true;
+                if (stone.equals(stoneAtSquare)) {
+                    if (i > 0) {
+                        // saw the same stone after seeing opposite stone(s)
+                        resultList.add(Direction.fromIndex(dir));
+                    }
                     break;
                 }
-                square = square.getAdjacent(dir);
-            }
-            if (addThis) {
-                resultList.add(dir);
             }
-            dir = dir.clockwise();
-        } while (!dir.equals(Direction.TOP));
+        }
 
         // put them in an array
         Direction[] result = new Direction[resultList.size()];
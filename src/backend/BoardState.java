@@ -0,0 +1,161 @@
+package backend;
+
+import entities.Stone;
+
+import java.util.List;
+
+/**
+ * The operations shared by every board representation used in AI simulations.
+ * {@code MockBoard} is the reference implementation; the others store the
+ * same game state in a more compact form so that it can be searched faster.
+ */
+public interface BoardState {
+    /**
+     * Get the size of the board.
+     *
+     * @return The size of the board.
+     */
+    int getSize();
+
+    /**
+     * Returns the stone of the player of the current turn.
+     *
+     * @return The stone to be placed this turn.
+     */
+    Stone getTurn();
+
+    /**
+     * Let the other player make the move.
+     */
+    void nextTurn();
+
+    /**
+     * Get the stone at the specified coordinate.
+     *
+     * @param row The row of the coordinate.
+     * @param col The column of the coordinate.
+     * @return The stone at the coordinate, or {@code null} if empty or out of bounds.
+     */
+    Stone getStoneAt(int row, int col);
+
+    /**
+     * Returns all moves that will flip at least one stone, in row-major order.
+     *
+     * @return The moves that will flip at least one stone as [row, col].
+     *         Feel free to modify this list since it's not used anywhere else.
+     */
+    List<int[]> getValidMoves();
+
+    /**
+     * Writes all moves that will flip at least one stone into a buffer, in row-major order.
+     * Unlike {@code getValidMoves}, this does not allocate, so searches should prefer it.
+     *
+     * @param squares The buffer to write the moves to as {@code row * size + col}.
+     *                Must be able to hold one move per square of the board.
+     * @return The number of moves written.
+     */
+    int fillValidMoves(int[] squares);
+
+    /**
+     * Counts the moves of the player to move without listing them.
+     *
+     * @return The number of moves that will flip at least one stone.
+     */
+    int countValidMoves();
+
+    /**
+     * Counts the frontier squares a player could move to later:
+     * the empty squares next to at least one stone of the player's opponent.
+     * This is also called potential mobility.
+     *
+     * @param stone The player to count for.
+     * @return The number of empty squares next to an opponent stone.
+     */
+    int countPotentialMobility(Stone stone);
+
+    /**
+     * Counts the stones of a player that can never be flipped for the rest of the game.
+     * A stone is counted when, along each of the four lines through it, the line is full
+     * or one of its neighbors on the line is the edge of the board or another counted stone
+     * of the same color. This misses some stable stones but never counts an unstable one.
+     * <p>
+     * Stable stones stay stable, so the representations that search in place remember the
+     * stable stones of the positions along the current line of play and build on them after each move,
+     * instead of starting over.
+     *
+     * @param stone The player to count for.
+     * @return The number of stable stones of that player.
+     */
+    int countStableStones(Stone stone);
+
+    /**
+     * Attempts to place the current turn player's stone on the given coordinate.
+     * If it is a valid move, the stone is placed and the appropriate stones are flipped,
+     * then the other player takes turn. If it is not a valid move, nothing happens on the board.
+     *
+     * @param row The row that the square to place the stone on is in.
+     * @param col The column that the square to place the stone on is in.
+     * @return The number of stones flipped, or 0 if the move was illegal.
+     */
+    int placeStone(int row, int col);
+
+    /**
+     * Places the current turn player's stone like {@code placeStone}, but returns
+     * what is needed to take the move back with {@code unmakeMove}.
+     * This lets a search run on a single board instead of copying it for every move.
+     *
+     * @param row The row that the square to place the stone on is in.
+     * @param col The column that the square to place the stone on is in.
+     * @return The record of the move, or {@code null} if the move was illegal
+     *         in which case nothing happens on the board.
+     */
+    MoveUndo makeMove(int row, int col);
+
+    /**
+     * Takes back a move made with {@code makeMove}. The stone is removed,
+     * the flipped stones are flipped back and the turn goes back to the player who made the move.
+     * Moves must be taken back in the reverse order they were made.
+     *
+     * @param undo The record returned by {@code makeMove}.
+     */
+    void unmakeMove(MoveUndo undo);
+
+    /**
+     * Count the number of a particular stone on the board.
+     *
+     * @param stone The stone to be counted.
+     * @return The number of that stone.
+     */
+    int countStones(Stone stone);
+
+    /**
+     * Returns the 64-bit Zobrist hash of this position.
+     * It is updated as the board changes, so this is free to call.
+     * Equal positions have the same hash regardless of the representation.
+     *
+     * @return The Zobrist hash of this position. See {@code Zobrist}.
+     */
+    long zobrist();
+
+    /**
+     * Returns a deep copy of this instance using the same representation.
+     *
+     * @return A deep copy of this instance.
+     */
+    BoardState copy();
+
+    /**
+     * Copies a board into the most compact representation that can hold it.
+     * This is a {@code BitBoard} for boards of up to 8 x 8 squares and a
+     * {@code PackedBoard} otherwise.
+     *
+     * @param position The board to copy. It may use any representation.
+     * @return A compact copy of the board.
+     */
+    static BoardState compactCopyOf(BoardState position) {
+        if (position.getSize() <= BitBoard.MAX_SIZE) {
+            return new BitBoard(position);
+        }
+        return new PackedBoard(position);
+    }
+}
@@ -15,7 +15,7 @@ import java.util.Scanner;
  * A lightweight version of Board for AI simulations.
  * Does not use singleton pattern and stores {@code Stone} instances directly without {@code SquarePanel}.
  */
-public class MockBoard {
+public class MockBoard implements BoardState {
     /**
      * Contains all instances of {@code Stone} in the board.
      * {@code null} represents an empty square.
@@ -27,6 +27,21 @@ public class MockBoard {
      */
     private Stone turn;
 
+    /**
+     * The precomputed rays for walking this board.
+     */
+    private RayTable rays;
+
+    /**
+     * The Zobrist keys for the size of this board.
+     */
+    private Zobrist keys;
+
+    /**
+     * The Zobrist hash of the current state, updated on every change.
+     */
+    private long zobrist;
+
     /**
      * Initializes the class based on the current state of the Board singleton.
      *
@@ -37,6 +52,7 @@ public class MockBoard {
         int size = board.getSize();
         this.squares = new Stone[size][size];
         this.turn = board.getTurn();
+        this.rays = RayTable.forSize(size);
 
         // Copy the current state from Board
         for (int row = 0; row < size; row++) {
@@ -44,6 +60,28 @@ public class MockBoard {
                 this.squares[row][col] = board.getSquareAt(row, col).getStone();
             }
         }
+        this.keys = Zobrist.forSize(size);
+        this.zobrist = Zobrist.hash(this);
+    }
+
+    /**
+     * Copies a position held in any representation.
+     * Unlike the no-argument constructor, this does not need the Board singleton.
+     *
+     * @param position The position to copy.
+     */
+    public MockBoard(BoardState position) {
+        int size = position.getSize();
+        this.squares = new Stone[size][size];
+        this.turn = position.getTurn();
+        this.rays = RayTable.forSize(size);
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                this.squares[row][col] = position.getStoneAt(row, col);
+            }
+        }
+        this.keys = Zobrist.forSize(size);
+        this.zobrist = position.zobrist();
     }
 
     /**
@@ -51,11 +89,13 @@ public class MockBoard {
      *
      * @param squares The 2D array of stones to copy.
      * @param turn The current turn.
+     * @param zobrist The Zobrist hash of the state.
      */
-    private MockBoard(Stone[][] squares, Stone turn) {
+    private MockBoard(Stone[][] squares, Stone turn, long zobrist) {
         int size = squares.length;
         this.squares = new Stone[size][size];
         this.turn = turn;
+        this.rays = RayTable.forSize(size);
 
         // Deep copy the squares array
         for (int row = 0; row < size; row++) {
@@ -63,6 +103,8 @@ public class MockBoard {
                 this.squares[row][col] = squares[row][col];
             }
         }
+        this.keys = Zobrist.forSize(size);
+        this.zobrist = zobrist;
     }
 
     /**
@@ -81,6 +123,7 @@ public class MockBoard {
             }
             int size = Integer.parseInt(scanner.nextLine());
             this.squares = new Stone[size][size];
+            this.rays = RayTable.forSize(size);
             for (int row = 0; row < size; row++) {
                 String line = scanner.nextLine();
                 for (int col = 0; col < size; col++) {
@@ -93,6 +136,8 @@ public class MockBoard {
                     }
                 }
             }
+            this.keys = Zobrist.forSize(size);
+            this.zobrist = Zobrist.hash(this);
         }
         catch (FileNotFoundException e) {
             throw new RuntimeException(e);
@@ -102,11 +147,23 @@ public class MockBoard {
     @Override
     public boolean equals(Object o) {
         if (o instanceof MockBoard other) {
-            return Arrays.deepEquals(this.squares, other.squares) && this.turn.equals(other.turn);
+            return this.zobrist == other.zobrist && Arrays.deepEquals(this.squares, other.squares)
+                    && this.turn.equals(other.turn);
         }
         return false;
     }
 
+    /**
+     * Returns a hash code consistent with {@code equals}.
+     * This is derived from the Zobrist hash, so it takes constant time.
+     *
+     * @return The hash code of this MockBoard.
+     */
+    @Override
+    public int hashCode() {
+        return Long.hashCode(this.zobrist);
+    }
+
     /**
      * Returns the string representation of this object.
      * A black stone is marked with B, a white stone is marked with W,
@@ -144,34 +201,88 @@ public class MockBoard {
      * @return The number of stones flipped, or 0 if the move was illegal.
      */
     public int placeStone(int row, int col) {
-        if (this.getStoneAt(row, col) != null) {
+        if (row < 0 || row >= this.getSize() || col < 0 || col >= this.getSize() || this.squares[row][col] != null) {
             // stone already exists on the square or coordinate is outside the board
             return 0;
         }
 
-        Direction[] flippableDirections = this.getFlippingDirections(this.getTurn(), row, col);
-        if (flippableDirections.length == 0) {
+        // flip every line that ends with the current turn player's stone
+        int size = this.getSize();
+        int square = row * size + col;
+        Stone stone = this.getTurn();
+        int flippedCount = 0;
+        for (int dir = 0; dir < 8; dir++) {
+            int[] ray = this.rays.getRay(square, dir);
+            int length = this.countFlips(stone, ray);
+            for (int i = 0; i < length; i++) {
+                this.squares[ray[i] / size][ray[i] % size] = stone;
+                this.zobrist ^= this.keys.flipKey(ray[i]);
+            }
+            flippedCount += length;
+        }
+        if (flippedCount == 0) {
             // no stone would be flipped; invalid move
             return 0;
         }
 
-        // place stone and flip appropriately
-        this.squares[row][col] = this.getTurn();
-        int flippedCount = 0;
+        // place stone, alternate the turn and return result
+        this.squares[row][col] = stone;
+        this.zobrist ^= this.keys.stoneKey(stone, square);
+        this.nextTurn();
+        return flippedCount;
+    }
 
-        for (Direction dir : flippableDirections) {
-            int[] pos = dir.moveThisWay(row, col);
-            while (pos != null && this.getStoneAt(pos[0], pos[1]) != null
-                    && getStoneAt(pos[0], pos[1]).equals(this.getTurn().getOpposite())) {
-                this.squares[pos[0]][pos[1]] = this.getTurn();
-                flippedCount++;
-                pos = dir.moveThisWay(pos[0], pos[1]);
+    @Override
+    public MoveUndo makeMove(int row, int col) {
+        if (row < 0 || row >= this.getSize() || col < 0 || col >= this.getSize() || this.squares[row][col] != null) {
+            // stone already exists on the square or coordinate is outside the board
+            return null;
+        }
+
+        int size = this.getSize();
+        int square = row * size + col;
+        Stone stone = this.getTurn();
+        long[] flips = null;
+        for (int dir = 0; dir < 8; dir++) {
+            int[] ray = this.rays.getRay(square, dir);
+            int length = this.countFlips(stone, ray);
+            for (int i = 0; i < length; i++) {
+                this.squares[ray[i] / size][ray[i] % size] = stone;
+                this.zobrist ^= this.keys.flipKey(ray[i]);
+                if (flips == null) {
+                    flips = new long[(size * size + 63) >>> 6];
+                }
+                flips[ray[i] >>> 6] |= 1L << ray[i];
             }
         }
+        if (flips == null) {
+            // no stone would be flipped; invalid move
+            return null;
+        }
 
-        // alternate the turn and return result
+        this.squares[row][col] = stone;
+        this.zobrist ^= this.keys.stoneKey(stone, square);
         this.nextTurn();
-        return flippedCount;
+        return new MoveUndo(square, flips);
+    }
+
+    @Override
+    public void unmakeMove(MoveUndo undo) {
+        int size = this.getSize();
+        int square = undo.getSquare();
+        Stone stone = this.squares[square / size][square % size];
+        Stone opposite = stone.getOpposite();
+        long[] flips = undo.getFlips();
+        for (int i = 0; i < flips.length; i++) {
+            for (long bits = flips[i]; bits != 0; bits &= bits - 1) {
+                int flipped = (i << 6) + Long.numberOfTrailingZeros(bits);
+                this.squares[flipped / size][flipped % size] = opposite;
+            }
+        }
+        this.squares[square / size][square % size] = null;
+        this.zobrist ^= this.keys.flipKey(flips) ^ this.keys.stoneKey(stone, square);
+        this.turn = stone;
+        this.zobrist ^= this.keys.turnKey();
     }
 
     /**
@@ -185,38 +296,58 @@ public class MockBoard {
      */
     public Direction[] getFlippingDirections(Stone stone, int row, int col) {
         List<Direction> resultList = new ArrayList<>();
-        Direction dir = Direction.TOP;
-
-        do {
-            boolean addThis = false;
-            int[] pos = dir.moveThisWay(row, col);
-            boolean oppositeSeen = false;
-
-            while (pos != null && this.getStoneAt(pos[0], pos[1]) != null) {
-                Stone stoneAtSquare = this.getStoneAt(pos[0], pos[1]);
-                if (!oppositeSeen && stone.equals(stoneAtSquare.getOpposite())) {
-                    // first time seeing the opposite stone; must occur in the first iteration
-                    oppositeSeen = true;
-                }
-                else if (!oppositeSeen && stone.equals(stoneAtSquare)) {
-                    // saw the same stone without seeing an opposite stone; must occur in the first iteration
-                    break;
-                }
-                else if (oppositeSeen && stone.equals(stoneAtSquare)) {
-                    // saw the same stone after seeing opposite stone(s)
-                    addThis = true;
-                    break;
-                }
-                pos = dir.moveThisWay(pos[0], pos[1]);
+        int square = row * this.getSize() + col;
+        for (int dir = 0; dir < 8; dir++) {
+            if (this.countFlips(stone, this.rays.getRay(square, dir)) > 0) {
+                resultList.add(Direction.fromIndex(dir));
             }
+        }
+        return resultList.toArray(new Direction[0]);
+    }
 
-            if (addThis) {
-                resultList.add(dir);
+    /**
+     * Tells whether placing the stone on the square would flip at least one stone.
+     *
+     * @param stone The stone to be placed.
+     * @param row The row of the square to place the stone at.
+     * @param col The column of the square to place the stone at.
+     * @return {@code true} if at least one stone would be flipped.
+     */
+    private boolean flipsAny(Stone stone, int row, int col) {
+        int square = row * this.getSize() + col;
+        for (int dir = 0; dir < 8; dir++) {
+            if (this.countFlips(stone, this.rays.getRay(square, dir)) > 0) {
+                return true;
             }
-            dir = dir.clockwise();
-        } while (!dir.equals(Direction.TOP));
+        }
+        return false;
+    }
 
-        return resultList.toArray(new Direction[0]);
+    /**
+     * Counts the stones that would be flipped along a single ray.
+     * These are the opposite stones right after the starting square,
+     * but only if they are followed by the placed stone.
+     *
+     * @param stone The stone to be placed.
+     * @param ray The squares along the ray. See {@code RayTable.getRay}.
+     * @return The number of stones flipped along the ray. May be 0.
+     */
+    private int countFlips(Stone stone, int[] ray) {
+        int size = this.getSize();
+        int i = 0;
+        while (i < ray.length) {
+            Stone stoneAtSquare = this.squares[ray[i] / size][ray[i] % size];
+            if (stoneAtSquare == null) {
+                return 0;
+            }
+            if (stone.equals(stoneAtSquare)) {
+                // the line is closed by the same stone
+                return i;
+            }
+            i++;
+        }
+        // ran off the board without seeing the same stone
+        return 0;
     }
 
     /**
@@ -233,6 +364,12 @@ public class MockBoard {
      */
     public void nextTurn() {
         this.turn = this.turn.getOpposite();
+        this.zobrist ^= this.keys.turnKey();
+    }
+
+    @Override
+    public long zobrist() {
+        return this.zobrist;
     }
 
     /**
@@ -241,7 +378,7 @@ public class MockBoard {
      * @return A deep copy of this instance.
      */
     public MockBoard copy() {
-        return new MockBoard(this.squares, this.turn);
+        return new MockBoard(this.squares, this.turn, this.zobrist);
     }
 
     /**
@@ -278,7 +415,7 @@ public class MockBoard {
         // just try every empty square
         for (int row = 0; row < this.getSize(); row++) {
             for (int col = 0; col < this.getSize(); col++) {
-                if (this.getStoneAt(row, col) == null && this.getFlippingDirections(this.turn, row, col).length > 0) {
+                if (this.squares[row][col] == null && this.flipsAny(this.turn, row, col)) {
                     validMoves.add(new int[] {row, col});
                 }
             }
@@ -286,6 +423,121 @@ public class MockBoard {
         return validMoves;
     }
 
+    @Override
+    public int fillValidMoves(int[] squares) {
+        int count = 0;
+        for (int row = 0; row < this.getSize(); row++) {
+            for (int col = 0; col < this.getSize(); col++) {
+                if (this.squares[row][col] == null && this.flipsAny(this.turn, row, col)) {
+                    squares[count++] = row * this.getSize() + col;
+                }
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public int countValidMoves() {
+        int count = 0;
+        for (int row = 0; row < this.getSize(); row++) {
+            for (int col = 0; col < this.getSize(); col++) {
+                if (this.squares[row][col] == null && this.flipsAny(this.turn, row, col)) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public int countPotentialMobility(Stone stone) {
+        int size = this.getSize();
+        Stone opposite = stone.getOpposite();
+        int count = 0;
+        for (int square = 0; square < size * size; square++) {
+            if (this.squares[square / size][square % size] != null) {
+                continue;
+            }
+            for (int dir = 0; dir < 8; dir++) {
+                int neighbor = this.rays.getNeighbor(square, dir);
+                if (neighbor >= 0 && opposite.equals(this.squares[neighbor / size][neighbor % size])) {
+                    count++;
+                    break;
+                }
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public int countStableStones(Stone stone) {
+        // keep marking stones until no more can be shown to be stable
+        int size = this.getSize();
+        boolean[] stable = new boolean[size * size];
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int square = 0; square < size * size; square++) {
+                Stone here = this.squares[square / size][square % size];
+                if (here == null || stable[square]) {
+                    continue;
+                }
+                boolean anchored = true;
+                // each line is checked through a direction and its opposite
+                for (int dir = 0; dir < 4 && anchored; dir++) {
+                    anchored = this.isLineFull(square, dir) || this.isAnchored(square, dir, here, stable)
+                            || this.isAnchored(square, dir + 4, here, stable);
+                }
+                if (anchored) {
+                    stable[square] = true;
+                    changed = true;
+                }
+            }
+        }
+        int count = 0;
+        for (int square = 0; square < size * size; square++) {
+            if (stable[square] && stone.equals(this.squares[square / size][square % size])) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Tells whether the line through a square has no empty square.
+     *
+     * @param square The square as {@code row * size + col}.
+     * @param dir The index of one of the two directions along the line.
+     * @return {@code true} if every square of the line has a stone.
+     */
+    private boolean isLineFull(int square, int dir) {
+        int size = this.getSize();
+        for (int way : new int[] {dir, (dir + 4) % 8}) {
+            for (int other : this.rays.getRay(square, way)) {
+                if (this.squares[other / size][other % size] == null) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Tells whether the neighbor of a square towards a direction is the edge of the board
+     * or a stable stone of the same color.
+     *
+     * @param square The square as {@code row * size + col}.
+     * @param dir The index of the direction.
+     * @param stone The stone on the square.
+     * @param stable The squares known to hold stable stones.
+     * @return {@code true} if the neighbor keeps the stone from being flipped along that direction.
+     */
+    private boolean isAnchored(int square, int dir, Stone stone, boolean[] stable) {
+        int neighbor = this.rays.getNeighbor(square, dir);
+        int size = this.getSize();
+        return neighbor < 0 || (stable[neighbor] && stone.equals(this.squares[neighbor / size][neighbor % size]));
+    }
+
     /**
      * Count the number of a particular stone on the board.
      *
@@ -304,6 +556,25 @@ public class MockBoard {
         return count;
     }
 
+    /**
+     * Creates the position a game starts from, without needing the Board singleton.
+     * The four stones in the middle are placed like {@code StartupFrame} does, and black moves first.
+     *
+     * @param size The size of the board.
+     * @return The starting position.
+     */
+    public static MockBoard startingPosition(int size) {
+        Stone[][] squares = new Stone[size][size];
+        int topLeft = size / 2 - 1;
+        squares[topLeft][topLeft] = Stone.WHITE;
+        squares[topLeft][topLeft + 1] = Stone.BLACK;
+        squares[topLeft + 1][topLeft] = Stone.BLACK;
+        squares[topLeft + 1][topLeft + 1] = Stone.WHITE;
+        MockBoard board = new MockBoard(squares, Stone.BLACK, 0L);
+        board.zobrist = Zobrist.hash(board);
+        return board;
+    }
+
     /**
      * Create the object instance from a text file.
      * Refer to the {@code DebugFrame.saveBoardState}
@@ -1,19 +1,41 @@
 package backend;
 
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BooleanSupplier;
 
 /**
  * A tree structure for MockBoard.
  * The parent should be a game state immediately before the children.
+ * <p>
+ * When generated with {@code deepGenerateAllOutcomes(true)}, identical states at the same depth
+ * are merged into a single node that is a child of each of their parents, so the tree becomes
+ * a directed acyclic graph. A merged node only points back to the first parent that generated it,
+ * and its previous move is the move from that parent.
  */
 public class MockBoardTree extends GenericTree<MockBoard> {
+    /**
+     * A state and its distance from the root, identifying a node that can be shared.
+     *
+     * @param depth The number of turns from the root, counting passes.
+     * @param state The game state.
+     */
+    private record Transposition(int depth, MockBoard state) {}
+
     /**
      * The [row, col] move that sent the parent to this state.
      * {@code null} if root or the previous turn was passed.
      */
     private int[] previousMove;
-
+    /** The number of generated children not added because they were already there. */
+    private int duplicates;
+    /** The token of the last merging pass that reached this node, so that a shared node is expanded once. */
+    private Object lastPass;
 
     /**
      * Initialize the tree by specifying a root.
@@ -39,6 +61,7 @@ public class MockBoardTree extends GenericTree<MockBoard> {
         super(genTree.data, genTree.parent, genTree.children);
         if (genTree instanceof MockBoardTree mTree) {
             this.previousMove = mTree.previousMove;
+            this.duplicates = mTree.duplicates;
         }
     }
 
@@ -98,69 +121,257 @@ public class MockBoardTree extends GenericTree<MockBoard> {
      * If there's no possible move at any point, the state after passing
      * will be added, guaranteeing that at least one child is added
      * unless there's a duplicate child.
+     * Children are looked up by their Zobrist hash, so checking for a duplicate
+     * does not compare the new state with every child. A leaf has no children to check,
+     * and different moves from the same state always lead to different states,
+     * so nothing is looked up when expanding one.
      *
      * @return The number of children added.
      */
     public int generateAllOutcomes() {
+        return this.generateAllOutcomes(null, 0);
+    }
+
+    /**
+     * Does what {@code generateAllOutcomes} does, optionally reusing the nodes of states already in the tree.
+     *
+     * @param interned The nodes that may be shared, or {@code null} to always create new nodes.
+     *                 The nodes created are added to it.
+     * @param depth The number of turns from the root to this node.
+     * @return The number of children added, not counting nodes shared with another parent.
+     */
+    private int generateAllOutcomes(Map<Transposition, MockBoardTree> interned, int depth) {
         int numAdded = 0;
         MockBoard current = this.data;
         List<int[]> validMoves = current.getValidMoves();
+        // only a node that was expanded before can already have some of the children
+        Map<Long, MockBoardTree> childrenByHash = null;
+        if (this.size() > 0) {
+            childrenByHash = new HashMap<>();
+            for (int i = 0; i < this.size(); i++) {
+                MockBoardTree cNode = this.getChild(i);
+                childrenByHash.putIfAbsent(cNode.data.zobrist(), cNode);
+            }
+        }
         for (int[] move : validMoves) {
             MockBoard next = current.copy();
             next.placeStone(move[0], move[1]);
-            boolean dup = false;
-            for (int i = 0; i < this.size(); i++) {
-                MockBoardTree cNode = this.getChild(i);
-                if (cNode.data.equals(next)) {
-                    dup = true;
-                    break;
-                }
+            if (childrenByHash != null && this.isDuplicate(childrenByHash, next)) {
+                this.duplicates++;
             }
-            if (!dup) {
-                MockBoardTree nextNode = new MockBoardTree(next);
-                nextNode.parent = this;
-                nextNode.previousMove = move;
-                this.children.add(nextNode);
-                numAdded++;
+            else {
+                MockBoardTree nextNode = this.addOutcome(next, move, interned, depth + 1);
+                if (childrenByHash != null) {
+                    childrenByHash.putIfAbsent(next.zobrist(), nextNode);
+                }
+                if (nextNode.parent == this) {
+                    // a node shared with another parent was not generated here
+                    numAdded++;
+                }
             }
         }
         if (validMoves.isEmpty()) {
             // pass the turn and add as a child
             MockBoard passed = current.copy();
             passed.nextTurn();
-            MockBoardTree child = new MockBoardTree(passed);
-            child.parent = this;
-            this.children.add(child);
-
+            this.addOutcome(passed, null, interned, depth + 1);
         }
         return numAdded;
     }
 
+    /**
+     * Adds a state as a child, reusing the node of the same state at the same depth if there is one.
+     *
+     * @param next The state to add.
+     * @param move The move that sent this board to the state, or {@code null} if the turn was passed.
+     * @param interned The nodes that may be shared, or {@code null} to always create a new node.
+     * @param depth The number of turns from the root to the child.
+     * @return The child node.
+     */
+    private MockBoardTree addOutcome(MockBoard next, int[] move, Map<Transposition, MockBoardTree> interned, int depth) {
+        Transposition key = interned == null ? null : new Transposition(depth, next);
+        MockBoardTree nextNode = key == null ? null : interned.get(key);
+        if (nextNode == null) {
+            nextNode = new MockBoardTree(next);
+            nextNode.parent = this;
+            nextNode.previousMove = move;
+            if (key != null) {
+                interned.put(key, nextNode);
+            }
+        }
+        this.children.add(nextNode);
+        return nextNode;
+    }
+
+    /**
+     * Checks whether a state is already one of the children.
+     *
+     * @param childrenByHash The children of this node by the Zobrist hash of their state.
+     * @param next The state to look for.
+     * @return {@code true} if a child has the same state.
+     */
+    private boolean isDuplicate(Map<Long, MockBoardTree> childrenByHash, MockBoard next) {
+        MockBoardTree same = childrenByHash.get(next.zobrist());
+        if (same == null) {
+            return false;
+        }
+        if (same.data.equals(next)) {
+            return true;
+        }
+        // a different state has the same hash, so fall back to comparing with every child
+        for (int i = 0; i < this.size(); i++) {
+            if (this.getChild(i).data.equals(next)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Counts the states that were generated but not added because they were already children,
+     * at this node and every node below it. A node shared by several parents is counted once.
+     *
+     * @return The number of duplicate children eliminated in this subtree.
+     */
+    public long getDuplicateCount() {
+        return duplicateRecurse(this, Collections.newSetFromMap(new IdentityHashMap<>()));
+    }
+
+    /**
+     * The recursive helper method implemented for {@code getDuplicateCount}.
+     *
+     * @param root The root node to start counting from.
+     * @param visited The nodes counted so far.
+     * @return The number of duplicate children eliminated from this root.
+     */
+    private static long duplicateRecurse(MockBoardTree root, Set<MockBoardTree> visited) {
+        if (!visited.add(root)) {
+            return 0;
+        }
+        long count = root.duplicates;
+        for (int i = 0; i < root.size(); i++) {
+            count += duplicateRecurse(root.getChild(i), visited);
+        }
+        return count;
+    }
+
     /**
      * Generates all possible states that come after every leaf node.
      *
      * @return The total number of children nodes generated.
      */
     public int deepGenerateAllOutcomes() {
-        return dGAORecurse(this);
+        return dGAORecurse(this, () -> false);
+    }
+
+    /**
+     * Generates all possible states that come after every leaf node,
+     * optionally merging identical states at the same depth.
+     * Different orders of the same moves often lead to the same state,
+     * so merging them expands each state only once instead of once per order.
+     *
+     * @param mergeTranspositions {@code true} to share the node of a state reached from several parents.
+     *                            Leaves already in the tree are shared as well.
+     * @return The total number of children nodes generated. A shared node is counted once.
+     */
+    public int deepGenerateAllOutcomes(boolean mergeTranspositions) {
+        return this.deepGenerateAllOutcomes(mergeTranspositions, () -> false);
+    }
+
+    /**
+     * Generates all possible states that come after every leaf node like {@code deepGenerateAllOutcomes},
+     * but stops as soon as it is told to. This is checked before each leaf is expanded,
+     * so the leaves reached until then get their children and the others are left as they are.
+     *
+     * @param mergeTranspositions {@code true} to share the node of a state reached from several parents.
+     * @param stop Returns {@code true} once the generation should stop, such as when a deadline passes.
+     * @return The total number of children nodes generated. A shared node is counted once.
+     */
+    public int deepGenerateAllOutcomes(boolean mergeTranspositions, BooleanSupplier stop) {
+        if (!mergeTranspositions) {
+            return dGAORecurse(this, stop);
+        }
+        return mergingRecurse(this, 0, new HashMap<>(), new Object(), stop);
+    }
+
+    /**
+     * Counts the nodes in this tree, counting a node shared by several parents once.
+     *
+     * @return The number of distinct nodes, including this one.
+     */
+    public int countNodes() {
+        return countRecurse(this, Collections.newSetFromMap(new IdentityHashMap<>()));
+    }
+
+    /**
+     * The recursive helper method implemented for {@code countNodes}.
+     *
+     * @param root The root node to start counting from.
+     * @param visited The nodes counted so far.
+     * @return The number of nodes counted from this root.
+     */
+    private static int countRecurse(MockBoardTree root, Set<MockBoardTree> visited) {
+        if (!visited.add(root)) {
+            return 0;
+        }
+        int count = 1;
+        for (int i = 0; i < root.size(); i++) {
+            count += countRecurse(root.getChild(i), visited);
+        }
+        return count;
+    }
+
+    /**
+     * The recursive helper method implemented for {@code deepGenerateAllOutcomes} when merging.
+     *
+     * @param root The root node to start searching from.
+     * @param depth The number of turns from the root of the tree to this root.
+     * @param interned The leaves and generated nodes seen so far by their state and depth.
+     *                 Inner nodes are left out since they cannot be reached again when every leaf is at the same depth.
+     * @param pass The token of this pass.
+     * @param stop Returns {@code true} once the generation should stop.
+     * @return The total number of children nodes generated.
+     */
+    private static int mergingRecurse(MockBoardTree root, int depth, Map<Transposition, MockBoardTree> interned,
+                                      Object pass, BooleanSupplier stop) {
+        if (root.lastPass == pass) {
+            // already reached through another parent
+            return 0;
+        }
+        root.lastPass = pass;
+        if (root.size() == 0) {
+            // this node is a leaf
+            if (stop.getAsBoolean()) {
+                return 0;
+            }
+            interned.putIfAbsent(new Transposition(depth, root.data), root);
+            return root.generateAllOutcomes(interned, depth);
+        }
+        // otherwise, recurse into all children
+        int numAdded = 0;
+        for (int i = 0; i < root.size(); i++) {
+            numAdded += mergingRecurse(root.getChild(i), depth + 1, interned, pass, stop);
+        }
+        return numAdded;
     }
 
     /**
      * The recursive helper method implemented for {@code deepGenerateAllOutcomes}.
      *
      * @param root The root node to start searching from.
+     * @param stop Returns {@code true} once the generation should stop.
      * @return The total number of children nodes generated.
      */
-    private static int dGAORecurse(MockBoardTree root) {
+    private static int dGAORecurse(MockBoardTree root, BooleanSupplier stop) {
         if (root.size() == 0) {
             // this node is a leaf
-            return root.generateAllOutcomes();
+            return stop.getAsBoolean() ? 0 : root.generateAllOutcomes();
         }
         // otherwise, recurse into all children
         int numAdded = 0;
         for (int i = 0; i < root.size(); i++) {
             MockBoardTree child = root.getChild(i);
-            numAdded += dGAORecurse(child);
+            numAdded += dGAORecurse(child, stop);
         }
         return numAdded;
     }
@@ -0,0 +1,56 @@
+package backend;
+
+/**
+ * Everything needed to take back a move made with {@code BoardState.makeMove}.
+ * This is the square the stone was placed on and the squares that were flipped.
+ */
+public class MoveUndo {
+    /**
+     * The square the stone was placed on, as {@code row * size + col}.
+     */
+    private final int square;
+    /**
+     * The squares flipped by the move as a bitset,
+     * where bit {@code row * size + col} is set if that square was flipped.
+     */
+    private final long[] flips;
+
+    /**
+     * Records a move.
+     *
+     * @param square The square the stone was placed on, as {@code row * size + col}.
+     * @param flips The squares flipped by the move as a bitset. This is not copied.
+     */
+    public MoveUndo(int square, long[] flips) {
+        this.square = square;
+        this.flips = flips;
+    }
+
+    /**
+     * @return The square the stone was placed on, as {@code row * size + col}.
+     */
+    public int getSquare() {
+        return this.square;
+    }
+
+    /**
+     * Returns the squares flipped by the move.
+     * The returned array is not a copy, so do not modify it.
+     *
+     * @return The flipped squares as a bitset.
+     */
+    public long[] getFlips() {
+        return this.flips;
+    }
+
+    /**
+     * @return The number of stones flipped by the move.
+     */
+    public int getFlipCount() {
+        int count = 0;
+        for (long word : this.flips) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+}
@@ -0,0 +1,275 @@
+package backend;
+
+import entities.Stone;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * A book of known good moves for the early game, read straight from a memory-mapped file.
+ * <p>
+ * The file starts with a 16-byte header (magic number, board size, record count, unused),
+ * followed by 16-byte records sorted by position hash: the canonical hash (8 bytes),
+ * the move in canonical orientation (2 bytes), the score (2 bytes) and the number of
+ * games the move was seen in (4 bytes). All numbers are big-endian.
+ * <p>
+ * A position and its rotations and reflections are the same position as far as the book
+ * is concerned. The canonical hash is the smallest Zobrist hash among the eight symmetric
+ * versions of a position, and moves are stored as they would be played on that version.
+ * Lookups are a binary search over the mapped file, so opening a book doesn't parse anything
+ * and looking a position up doesn't allocate.
+ */
+public class OpeningBook {
+    /** The first four bytes of every book file, "OBK1". */
+    static final int MAGIC = 0x4F424B31;
+    /** The size of the header in bytes. */
+    static final int HEADER_SIZE = 16;
+    /** The size of a record in bytes. */
+    static final int RECORD_SIZE = 16;
+    /** The number of symmetries of a square board. */
+    public static final int SYMMETRIES = 8;
+    /** The inverse of each symmetry. Only the quarter turns are not their own inverse. */
+    private static final int[] INVERSE = {0, 3, 2, 1, 4, 5, 6, 7};
+    /** Returned when a position is not in the book. */
+    public static final int NO_MOVE = -1;
+
+    /** The mapped file. Only absolute reads are used, so threads can share it. */
+    private final MappedByteBuffer buffer;
+    /** The size of the board the book is for. */
+    private final int size;
+    /** The number of records. */
+    private final int count;
+
+    /**
+     * @param buffer The mapped file.
+     * @param size The size of the board the book is for.
+     * @param count The number of records.
+     */
+    private OpeningBook(MappedByteBuffer buffer, int size, int count) {
+        this.buffer = buffer;
+        this.size = size;
+        this.count = count;
+    }
+
+    /**
+     * Maps a book file into memory.
+     *
+     * @param path The path to the book file.
+     * @return The book.
+     * @throws IOException If the file cannot be read or is not a book.
+     */
+    public static OpeningBook open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE) {
+                throw new IOException(path + " is not an opening book.");
+            }
+            // the mapping stays valid after the channel is closed
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.order(ByteOrder.BIG_ENDIAN);
+            int size = buffer.getInt(4);
+            int count = buffer.getInt(8);
+            if (buffer.getInt(0) != MAGIC || (long) HEADER_SIZE + (long) count * RECORD_SIZE != channel.size()) {
+                throw new IOException(path + " is not an opening book.");
+            }
+            return new OpeningBook(buffer, size, count);
+        }
+    }
+
+    /**
+     * Writes a book file. The records are sorted by hash before writing.
+     * The four arrays must have the same length, with one record per index.
+     *
+     * @param path The path to write to. An existing file is replaced.
+     * @param size The size of the board the book is for.
+     * @param hashes The canonical hash of each position. See {@code canonicalHash}.
+     * @param moves The best move of each position in canonical orientation as {@code row * size + col}.
+     * @param scores The score of each move.
+     * @param visits The number of games each move was seen in.
+     * @throws IOException If the file cannot be written.
+     * @throws IllegalArgumentException If the arrays differ in length or a hash appears twice.
+     */
+    public static void write(Path path, int size, long[] hashes, int[] moves, int[] scores, int[] visits) throws IOException {
+        int count = hashes.length;
+        if (moves.length != count || scores.length != count || visits.length != count) {
+            throw new IllegalArgumentException("Every record needs a hash, a move, a score and a visit count.");
+        }
+        Integer[] order = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(hashes[a], hashes[b]));
+
+        ByteBuffer out = ByteBuffer.allocate(HEADER_SIZE + count * RECORD_SIZE).order(ByteOrder.BIG_ENDIAN);
+        out.putInt(MAGIC).putInt(size).putInt(count).putInt(0);
+        for (int i = 0; i < count; i++) {
+            int record = order[i];
+            if (i > 0 && hashes[record] == hashes[order[i - 1]]) {
+                throw new IllegalArgumentException("A position can only have one record.");
+            }
+            out.putLong(hashes[record])
+                    .putShort((short) moves[record])
+                    .putShort((short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, scores[record])))
+                    .putInt(visits[record]);
+        }
+        out.flip();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (out.hasRemaining()) {
+                channel.write(out);
+            }
+        }
+    }
+
+    /**
+     * Finds the best move the book knows for a position.
+     *
+     * @param position The position to look up. It is not modified.
+     * @return The move as {@code row * size + col}, or {@code NO_MOVE} if the position is not in the book.
+     */
+    public int getMove(BoardState position) {
+        if (position.getSize() != this.size) {
+            return NO_MOVE;
+        }
+        int symmetry = canonicalSymmetry(position);
+        int record = this.find(symmetricHash(position, symmetry));
+        if (record < 0) {
+            return NO_MOVE;
+        }
+        int move = this.buffer.getShort(HEADER_SIZE + record * RECORD_SIZE + 8);
+        return transform(move, this.size, INVERSE[symmetry]);
+    }
+
+    /**
+     * @param position The position to look up. It is not modified.
+     * @return The score of the book move, or 0 if the position is not in the book.
+     */
+    public int getScore(BoardState position) {
+        int record = position.getSize() == this.size ? this.find(canonicalHash(position)) : -1;
+        return record < 0 ? 0 : this.buffer.getShort(HEADER_SIZE + record * RECORD_SIZE + 10);
+    }
+
+    /**
+     * @param position The position to look up. It is not modified.
+     * @return The number of games the book move was seen in, or 0 if the position is not in the book.
+     */
+    public int getVisits(BoardState position) {
+        int record = position.getSize() == this.size ? this.find(canonicalHash(position)) : -1;
+        return record < 0 ? 0 : this.buffer.getInt(HEADER_SIZE + record * RECORD_SIZE + 12);
+    }
+
+    /**
+     * Binary searches the records for a hash.
+     *
+     * @param hash The canonical hash to find.
+     * @return The index of the record, or -1 if there is none.
+     */
+    private int find(long hash) {
+        int low = 0, high = this.count - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            long found = this.buffer.getLong(HEADER_SIZE + middle * RECORD_SIZE);
+            if (found < hash) {
+                low = middle + 1;
+            }
+            else if (found > hash) {
+                high = middle - 1;
+            }
+            else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Maps a square to where it ends up under one of the symmetries of the board.
+     * Symmetries 0 to 3 turn the board clockwise by that many quarter turns;
+     * 4 and 5 mirror it left to right and top to bottom; 6 and 7 mirror it across its diagonals.
+     *
+     * @param square The square as {@code row * size + col}.
+     * @param size The size of the board.
+     * @param symmetry The index of the symmetry, from 0 to 7.
+     * @return The transformed square.
+     */
+    public static int transform(int square, int size, int symmetry) {
+        int row = square / size, col = square % size, last = size - 1;
+        return switch (symmetry) {
+            case 0 -> square;
+            case 1 -> col * size + (last - row);
+            case 2 -> (last - row) * size + (last - col);
+            case 3 -> (last - col) * size + row;
+            case 4 -> row * size + (last - col);
+            case 5 -> (last - row) * size + col;
+            case 6 -> col * size + row;
+            case 7 -> (last - col) * size + (last - row);
+            default -> throw new IllegalArgumentException("There is no symmetry " + symmetry);
+        };
+    }
+
+    /**
+     * Computes the Zobrist hash a position would have after applying a symmetry.
+     *
+     * @param position The position. It is not modified.
+     * @param symmetry The index of the symmetry. See {@code transform}.
+     * @return The hash of the transformed position.
+     */
+    public static long symmetricHash(BoardState position, int symmetry) {
+        int size = position.getSize();
+        Zobrist keys = Zobrist.forSize(size);
+        long hash = Stone.WHITE.equals(position.getTurn()) ? keys.turnKey() : 0L;
+        for (int square = 0; square < size * size; square++) {
+            Stone stone = position.getStoneAt(square / size, square % size);
+            if (stone != null) {
+                hash ^= keys.stoneKey(stone, transform(square, size, symmetry));
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Finds the symmetry that gives a position its canonical hash.
+     *
+     * @param position The position. It is not modified.
+     * @return The index of the symmetry with the smallest hash.
+     */
+    public static int canonicalSymmetry(BoardState position) {
+        int best = 0;
+        long bestHash = position.zobrist();
+        for (int symmetry = 1; symmetry < SYMMETRIES; symmetry++) {
+            long hash = symmetricHash(position, symmetry);
+            if (hash < bestHash) {
+                bestHash = hash;
+                best = symmetry;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * @param position The position. It is not modified.
+     * @return The smallest Zobrist hash among the symmetric versions of the position.
+     */
+    public static long canonicalHash(BoardState position) {
+        return symmetricHash(position, canonicalSymmetry(position));
+    }
+
+    /**
+     * @return The size of the board the book is for.
+     */
+    public int getSize() {
+        return this.size;
+    }
+
+    /**
+     * @return The number of positions in the book.
+     */
+    public int size() {
+        return this.count;
+    }
+}
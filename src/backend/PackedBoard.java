@@ -0,0 +1,721 @@
+package backend;
+
+import entities.Stone;
+import exceptions.SingletonNotYetExistsException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A bitboard version of MockBoard for every supported board size.
+ * Each player's stones are stored as a bitset packed into a {@code long[]},
+ * where the square at [row, col] is the bit {@code row * size + col}.
+ * This is the multi-word counterpart of {@code BitBoard}; use that one
+ * for boards of up to 8 x 8 squares since it only needs a single word.
+ */
+public class PackedBoard implements BoardState {
+    /**
+     * The largest board size supported.
+     */
+    public static final int MAX_SIZE = 24;
+
+    /**
+     * The row offset of each direction, in the clockwise order starting from the top.
+     */
+    private static final int[] ROW_DELTAS = {-1, -1, 0, 1, 1, 1, 0, -1};
+    /**
+     * The column offset of each direction, in the clockwise order starting from the top.
+     */
+    private static final int[] COL_DELTAS = {0, 1, 1, 1, 0, -1, -1, -1};
+    /**
+     * The mask containing every square of the board for each board size.
+     */
+    private static final long[][] FULL_MASKS = new long[MAX_SIZE + 1][];
+    /**
+     * The mask applied after each shift for each board size. Access by [size][direction].
+     * It removes the bits that wrapped around to the other side of the board
+     * and the bits that went past the last square.
+     */
+    private static final long[][][] SHIFT_MASKS = new long[MAX_SIZE + 1][8][];
+    /**
+     * The squares whose neighbor towards each direction is off the board, for each board size.
+     * Access by [size][direction].
+     */
+    private static final long[][][] BORDERS = new long[MAX_SIZE + 1][8][];
+    /**
+     * The lines of each board size, grouped by the orientations in {@code ORIENTATIONS}.
+     * Access by [size][orientation][line].
+     */
+    private static final long[][][][] LINES = new long[MAX_SIZE + 1][4][][];
+    /**
+     * The two opposite directions along each orientation of line:
+     * rows, columns, diagonals going down to the right and diagonals going up to the right.
+     */
+    private static final int[][] ORIENTATIONS = {{2, 6}, {0, 4}, {3, 7}, {1, 5}};
+
+    static {
+        for (int size = 1; size <= MAX_SIZE; size++) {
+            int words = wordsFor(size);
+            long[] full = new long[words];
+            long[] notFirstCol = new long[words];
+            long[] notLastCol = new long[words];
+            for (int row = 0; row < size; row++) {
+                for (int col = 0; col < size; col++) {
+                    int square = row * size + col;
+                    full[square >>> 6] |= 1L << square;
+                    if (col != 0) {
+                        notFirstCol[square >>> 6] |= 1L << square;
+                    }
+                    if (col != size - 1) {
+                        notLastCol[square >>> 6] |= 1L << square;
+                    }
+                }
+            }
+            FULL_MASKS[size] = full;
+            for (int dir = 0; dir < 8; dir++) {
+                if (COL_DELTAS[dir] > 0) {
+                    SHIFT_MASKS[size][dir] = notFirstCol;
+                }
+                else if (COL_DELTAS[dir] < 0) {
+                    SHIFT_MASKS[size][dir] = notLastCol;
+                }
+                else {
+                    SHIFT_MASKS[size][dir] = full;
+                }
+                BORDERS[size][dir] = new long[words];
+            }
+            for (int orientation = 0; orientation < 4; orientation++) {
+                LINES[size][orientation] = new long[2 * size - 1][words];
+            }
+            for (int row = 0; row < size; row++) {
+                for (int col = 0; col < size; col++) {
+                    int square = row * size + col;
+                    long bit = 1L << square;
+                    for (int dir = 0; dir < 8; dir++) {
+                        int r = row + ROW_DELTAS[dir], c = col + COL_DELTAS[dir];
+                        if (r < 0 || r >= size || c < 0 || c >= size) {
+                            BORDERS[size][dir][square >>> 6] |= bit;
+                        }
+                    }
+                    LINES[size][0][row][square >>> 6] |= bit;
+                    LINES[size][1][col][square >>> 6] |= bit;
+                    LINES[size][2][row - col + size - 1][square >>> 6] |= bit;
+                    LINES[size][3][row + col][square >>> 6] |= bit;
+                }
+            }
+        }
+    }
+
+    /**
+     * The size of the board.
+     */
+    private final int size;
+    /**
+     * The number of {@code long} words used for each bitset.
+     */
+    private final int words;
+    /**
+     * The squares with a black stone.
+     */
+    private long[] black;
+    /**
+     * The squares with a white stone.
+     */
+    private long[] white;
+    /**
+     * The player of the current turn.
+     */
+    private Stone turn;
+    /**
+     * Scratch bitsets reused by move generation so that it does not allocate.
+     */
+    private final long[] run, shifted, moves;
+    /**
+     * The precomputed rays for walking this board.
+     */
+    private final RayTable rays;
+    /**
+     * The Zobrist keys for the size of this board.
+     */
+    private final Zobrist keys;
+    /**
+     * The Zobrist hash of the current state, updated on every change unless it is stale.
+     */
+    private long zobrist;
+    /**
+     * Whether {@code zobrist} has to be worked out again before it is read, as it does after
+     * {@code loadStones}. Moves keep updating it meanwhile, which does no harm since it is thrown away.
+     */
+    private boolean zobristStale;
+    /**
+     * The stable stones of the positions along the current line of play, by the number of stones on the board.
+     * Allocated the first time stable stones are counted, along with the scratch bitsets below.
+     */
+    private long[][] stableByCount;
+    /**
+     * Whether each entry of {@code stableByCount} was worked out for the position on the current line.
+     * An entry is cleared whenever a move reaches its number of stones.
+     */
+    private boolean[] stableKnown;
+    /**
+     * Scratch bitsets reused by the stability computation: the squares on full lines by orientation,
+     * the stable stones of one player and the squares anchored along every line.
+     */
+    private long[][] fullLines;
+    private long[] ownStable, anchored;
+
+    /**
+     * Initializes the class based on the current state of the Board singleton.
+     *
+     * @throws SingletonNotYetExistsException If the Board has not been initialized yet.
+     */
+    public PackedBoard() throws SingletonNotYetExistsException {
+        this(new MockBoard());
+    }
+
+    /**
+     * Initializes the class by copying the state of another board.
+     *
+     * @param other The board to copy. It may use any representation.
+     * @throws IllegalArgumentException If the board is larger than {@code MAX_SIZE}.
+     */
+    public PackedBoard(BoardState other) {
+        this(other.getSize(), null, null, Stone.BLACK.equals(other.getTurn()) ? Stone.BLACK : Stone.WHITE);
+        for (int row = 0; row < this.size; row++) {
+            for (int col = 0; col < this.size; col++) {
+                Stone stone = other.getStoneAt(row, col);
+                int square = row * this.size + col;
+                if (Stone.BLACK.equals(stone)) {
+                    this.black[square >>> 6] |= 1L << square;
+                }
+                else if (Stone.WHITE.equals(stone)) {
+                    this.white[square >>> 6] |= 1L << square;
+                }
+            }
+        }
+        this.zobrist = Zobrist.hash(this);
+    }
+
+    /**
+     * Private constructor for creating copies.
+     *
+     * @param size The size of the board.
+     * @param black The squares with a black stone, or {@code null} for none. Copied.
+     * @param white The squares with a white stone, or {@code null} for none. Copied.
+     * @param turn The current turn.
+     */
+    private PackedBoard(int size, long[] black, long[] white, Stone turn) {
+        if (size < 1 || size > MAX_SIZE) {
+            throw new IllegalArgumentException("PackedBoard cannot hold a board of size " + size);
+        }
+        this.size = size;
+        this.words = wordsFor(size);
+        this.black = black == null ? new long[this.words] : black.clone();
+        this.white = white == null ? new long[this.words] : white.clone();
+        this.turn = turn;
+        this.run = new long[this.words];
+        this.shifted = new long[this.words];
+        this.moves = new long[this.words];
+        this.rays = RayTable.forSize(size);
+        this.keys = Zobrist.forSize(size);
+    }
+
+    /**
+     * Returns the number of {@code long} words needed for a board.
+     *
+     * @param size The size of the board.
+     * @return The number of words needed to hold one bit per square.
+     */
+    private static int wordsFor(int size) {
+        return (size * size + 63) >>> 6;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o instanceof PackedBoard other) {
+            return this.size == other.size && this.zobrist() == other.zobrist() && Arrays.equals(this.black, other.black)
+                    && Arrays.equals(this.white, other.white) && this.turn.equals(other.turn);
+        }
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(this.zobrist());
+    }
+
+    /**
+     * Returns the string representation of this object.
+     * The format is the same as {@code MockBoard.toString}.
+     *
+     * @return The string representation of this PackedBoard.
+     */
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder();
+        for (int row = 0; row < this.size; row++) {
+            for (int col = 0; col < this.size; col++) {
+                Stone stone = this.getStoneAt(row, col);
+                if (Stone.BLACK.equals(stone)) {
+                    result.append("B");
+                }
+                else if (Stone.WHITE.equals(stone)) {
+                    result.append("W");
+                }
+                else {
+                    result.append("*");
+                }
+            }
+            result.append("\n");
+        }
+        result.deleteCharAt(result.length() - 1);
+        return result.toString();
+    }
+
+    @Override
+    public int placeStone(int row, int col) {
+        MoveUndo undo = this.makeMove(row, col);
+        return undo == null ? 0 : undo.getFlipCount();
+    }
+
+    @Override
+    public MoveUndo makeMove(int row, int col) {
+        if (row < 0 || row >= this.size || col < 0 || col >= this.size || this.getStoneAt(row, col) != null) {
+            // stone already exists on the square or coordinate is outside the board
+            return null;
+        }
+        long[] own = this.getOwnStones();
+        long[] opp = this.getOpponentStones();
+        int square = row * this.size + col;
+        long[] flips = null;
+        for (int dir = 0; dir < 8; dir++) {
+            // walk until the first square that isn't the opponent's
+            int[] ray = this.rays.getRay(square, dir);
+            int length = 0;
+            while (length < ray.length && testBit(opp, ray[length])) {
+                length++;
+            }
+            if (length == 0 || length == ray.length || !testBit(own, ray[length])) {
+                continue;
+            }
+            // flip everything in between
+            if (flips == null) {
+                flips = new long[this.words];
+            }
+            for (int i = 0; i < length; i++) {
+                own[ray[i] >>> 6] |= 1L << ray[i];
+                opp[ray[i] >>> 6] &= ~(1L << ray[i]);
+                flips[ray[i] >>> 6] |= 1L << ray[i];
+                this.zobrist ^= this.keys.flipKey(ray[i]);
+            }
+        }
+        if (flips == null) {
+            // no stone would be flipped; invalid move
+            return null;
+        }
+        own[square >>> 6] |= 1L << square;
+        this.zobrist ^= this.keys.stoneKey(this.turn, square);
+        if (this.stableKnown != null) {
+            this.stableKnown[this.countStones(Stone.BLACK) + this.countStones(Stone.WHITE)] = false;
+        }
+        this.nextTurn();
+        return new MoveUndo(square, flips);
+    }
+
+    @Override
+    public void unmakeMove(MoveUndo undo) {
+        int square = undo.getSquare();
+        long[] flips = undo.getFlips();
+        // the player who made the move owns the placed stone
+        this.turn = testBit(this.black, square) ? Stone.BLACK : Stone.WHITE;
+        this.zobrist ^= this.keys.flipKey(flips) ^ this.keys.stoneKey(this.turn, square) ^ this.keys.turnKey();
+        long[] own = this.getOwnStones();
+        long[] opp = this.getOpponentStones();
+        own[square >>> 6] &= ~(1L << square);
+        for (int i = 0; i < this.words; i++) {
+            own[i] &= ~flips[i];
+            opp[i] |= flips[i];
+        }
+    }
+
+    /**
+     * Fills the given bitset with every square the current turn player can place a stone on.
+     *
+     * @param moves The bitset to write the legal moves to. Must have at least as many words as the board.
+     */
+    public void getValidMoveMask(long[] moves) {
+        long[] own = this.getOwnStones();
+        long[] opp = this.getOpponentStones();
+        long[] full = FULL_MASKS[this.size];
+        Arrays.fill(moves, 0L);
+        for (int dir = 0; dir < 8; dir++) {
+            // collect the runs of opposite stones that start next to an own stone
+            this.shift(own, dir, this.run);
+            boolean any = false;
+            for (int i = 0; i < this.words; i++) {
+                this.run[i] &= opp[i];
+                any |= this.run[i] != 0;
+            }
+            for (int step = 3; any && step < this.size; step++) {
+                this.shift(this.run, dir, this.shifted);
+                any = false;
+                for (int i = 0; i < this.words; i++) {
+                    long grown = this.shifted[i] & opp[i] & ~this.run[i];
+                    this.run[i] |= grown;
+                    any |= grown != 0;
+                }
+            }
+            this.shift(this.run, dir, this.shifted);
+            for (int i = 0; i < this.words; i++) {
+                moves[i] |= this.shifted[i] & ~(own[i] | opp[i]) & full[i];
+            }
+        }
+    }
+
+    /**
+     * Returns the stones that can never be flipped. See {@code BoardState.countStableStones}.
+     * The answer is remembered for the position, and the answer of the last position
+     * along the current line that was asked is where the work starts.
+     *
+     * @return The bitset of the stable stones of both players. Not a copy, so do not modify it.
+     */
+    private long[] getStableStones() {
+        int stones = this.countStones(Stone.BLACK) + this.countStones(Stone.WHITE);
+        if (this.stableKnown == null) {
+            this.stableByCount = new long[this.size * this.size + 1][this.words];
+            this.stableKnown = new boolean[this.size * this.size + 1];
+            this.fullLines = new long[4][this.words];
+            this.ownStable = new long[this.words];
+            this.anchored = new long[this.words];
+        }
+        long[] stable = this.stableByCount[stones];
+        if (!this.stableKnown[stones]) {
+            Arrays.fill(stable, 0L);
+            for (int earlier = stones - 1; earlier >= 0; earlier--) {
+                if (this.stableKnown[earlier]) {
+                    System.arraycopy(this.stableByCount[earlier], 0, stable, 0, this.words);
+                    break;
+                }
+            }
+            this.findStableStones(stable);
+            this.stableKnown[stones] = true;
+        }
+        return stable;
+    }
+
+    /**
+     * Adds every stone that can be shown to be stable to a bitset of stones already known to be stable.
+     *
+     * @param stable The stable stones known so far, such as those of an earlier position. Updated in place.
+     */
+    private void findStableStones(long[] stable) {
+        for (int orientation = 0; orientation < 4; orientation++) {
+            long[] full = this.fullLines[orientation];
+            Arrays.fill(full, 0L);
+            for (long[] line : LINES[this.size][orientation]) {
+                boolean filled = true;
+                for (int i = 0; i < this.words && filled; i++) {
+                    filled = ((this.black[i] | this.white[i]) & line[i]) == line[i];
+                }
+                if (filled) {
+                    for (int i = 0; i < this.words; i++) {
+                        full[i] |= line[i];
+                    }
+                }
+            }
+        }
+        // both players are always grown, until neither grows
+        while (this.growStable(stable, this.black) | this.growStable(stable, this.white)) {
+            // keep growing
+        }
+    }
+
+    /**
+     * Adds the stones of one player anchored by the stable stones known so far.
+     *
+     * @param stable The stable stones known so far. Updated in place.
+     * @param stones The stones of the player.
+     * @return {@code true} if any stone was added.
+     */
+    private boolean growStable(long[] stable, long[] stones) {
+        for (int i = 0; i < this.words; i++) {
+            this.ownStable[i] = stable[i] & stones[i];
+        }
+        this.anchor(this.ownStable, this.anchored);
+        boolean grew = false;
+        for (int i = 0; i < this.words; i++) {
+            long grown = stones[i] & this.anchored[i] & ~stable[i];
+            stable[i] |= grown;
+            grew |= grown != 0;
+        }
+        return grew;
+    }
+
+    /**
+     * Finds the squares that cannot be flipped along any line, either because the line is full
+     * or because a neighbor on the line is the edge or one of the given stable stones.
+     *
+     * @param stable The stable stones of one player.
+     * @param anchored The bitset to write the squares anchored along all four lines to.
+     */
+    private void anchor(long[] stable, long[] anchored) {
+        System.arraycopy(FULL_MASKS[this.size], 0, anchored, 0, this.words);
+        for (int orientation = 0; orientation < 4; orientation++) {
+            int a = ORIENTATIONS[orientation][0], b = ORIENTATIONS[orientation][1];
+            this.shift(stable, a, this.run);
+            this.shift(stable, b, this.shifted);
+            long[] full = this.fullLines[orientation];
+            for (int i = 0; i < this.words; i++) {
+                anchored[i] &= full[i] | BORDERS[this.size][a][i] | BORDERS[this.size][b][i]
+                        | this.run[i] | this.shifted[i];
+            }
+        }
+    }
+
+    /**
+     * Shifts every bit by one square towards the direction.
+     * Bits that leave the board are discarded.
+     *
+     * @param src The bitset to shift.
+     * @param dir The direction as an index from 0 (top) to 7 (top-left), going clockwise.
+     * @param dst The bitset to write the result to. Must not be {@code src}.
+     */
+    private void shift(long[] src, int dir, long[] dst) {
+        int amount = ROW_DELTAS[dir] * this.size + COL_DELTAS[dir];
+        long[] mask = SHIFT_MASKS[this.size][dir];
+        if (amount > 0) {
+            for (int i = this.words - 1; i > 0; i--) {
+                dst[i] = ((src[i] << amount) | (src[i - 1] >>> (64 - amount))) & mask[i];
+            }
+            dst[0] = (src[0] << amount) & mask[0];
+        }
+        else {
+            amount = -amount;
+            for (int i = 0; i < this.words - 1; i++) {
+                dst[i] = ((src[i] >>> amount) | (src[i + 1] << (64 - amount))) & mask[i];
+            }
+            dst[this.words - 1] = (src[this.words - 1] >>> amount) & mask[this.words - 1];
+        }
+    }
+
+    /**
+     * Tells whether a bit is set in a bitset.
+     *
+     * @param bits The bitset.
+     * @param square The index of the bit.
+     * @return {@code true} if the bit is set.
+     */
+    private static boolean testBit(long[] bits, int square) {
+        return (bits[square >>> 6] & (1L << square)) != 0;
+    }
+
+    /**
+     * @return The bitset of the current turn player's stones. Not a copy.
+     */
+    private long[] getOwnStones() {
+        return Stone.BLACK.equals(this.turn) ? this.black : this.white;
+    }
+
+    /**
+     * @return The bitset of the other player's stones. Not a copy.
+     */
+    private long[] getOpponentStones() {
+        return Stone.BLACK.equals(this.turn) ? this.white : this.black;
+    }
+
+    /**
+     * Returns the squares occupied by the given stone.
+     *
+     * @param stone The stone to look for.
+     * @return A copy of the bitset of the squares with that stone.
+     */
+    public long[] getStones(Stone stone) {
+        return (Stone.BLACK.equals(stone) ? this.black : this.white).clone();
+    }
+
+    /**
+     * Returns one word of the squares occupied by the given stone, without copying the bitset.
+     *
+     * @param stone The stone to look for.
+     * @param word The index of the word, from 0 to {@code getWordCount() - 1}.
+     * @return Squares {@code 64 * word} to {@code 64 * word + 63} of the bitset of that stone.
+     */
+    public long getStoneWord(Stone stone, int word) {
+        return (Stone.BLACK.equals(stone) ? this.black : this.white)[word];
+    }
+
+    /**
+     * @return The number of {@code long} words used for each bitset of this board.
+     */
+    public int getWordCount() {
+        return this.words;
+    }
+
+    /**
+     * Writes the stones into a shared array of packed positions,
+     * as the words of the black stones followed by the words of the white stones.
+     *
+     * @param arena The array to write to.
+     * @param offset The index of the first word to write. {@code 2 * getWordCount()} words are written.
+     */
+    void storeStones(long[] arena, int offset) {
+        System.arraycopy(this.black, 0, arena, offset, this.words);
+        System.arraycopy(this.white, 0, arena, offset + this.words, this.words);
+    }
+
+    /**
+     * Replaces the position with one written by {@code storeStones}.
+     * The Zobrist hash is only worked out if it is asked for, since a tree expanding its nodes
+     * this way never reads it and hashing looks at every square.
+     *
+     * @param arena The array to read from.
+     * @param offset The index of the first word to read.
+     * @param turn The player of the current turn.
+     */
+    void loadStones(long[] arena, int offset, Stone turn) {
+        System.arraycopy(arena, offset, this.black, 0, this.words);
+        System.arraycopy(arena, offset + this.words, this.white, 0, this.words);
+        this.turn = turn;
+        this.zobristStale = true;
+        if (this.stableKnown != null) {
+            // the remembered stable stones belong to another line of play
+            Arrays.fill(this.stableKnown, false);
+        }
+    }
+
+    @Override
+    public Stone getTurn() {
+        return this.turn;
+    }
+
+    @Override
+    public void nextTurn() {
+        this.turn = Stone.BLACK.equals(this.turn) ? Stone.WHITE : Stone.BLACK;
+        this.zobrist ^= this.keys.turnKey();
+    }
+
+    @Override
+    public long zobrist() {
+        if (this.zobristStale) {
+            this.zobrist = Zobrist.hash(this);
+            this.zobristStale = false;
+        }
+        return this.zobrist;
+    }
+
+    @Override
+    public PackedBoard copy() {
+        PackedBoard copy = new PackedBoard(this.size, this.black, this.white, this.turn);
+        copy.zobrist = this.zobrist;
+        copy.zobristStale = this.zobristStale;
+        return copy;
+    }
+
+    @Override
+    public Stone getStoneAt(int row, int col) {
+        if (row < 0 || row >= this.size || col < 0 || col >= this.size) {
+            return null;
+        }
+        int square = row * this.size + col;
+        if (testBit(this.black, square)) {
+            return Stone.BLACK;
+        }
+        if (testBit(this.white, square)) {
+            return Stone.WHITE;
+        }
+        return null;
+    }
+
+    @Override
+    public int getSize() {
+        return this.size;
+    }
+
+    @Override
+    public List<int[]> getValidMoves() {
+        long[] moves = new long[this.words];
+        this.getValidMoveMask(moves);
+        List<int[]> validMoves = new ArrayList<>();
+        for (int i = 0; i < this.words; i++) {
+            for (long bits = moves[i]; bits != 0; bits &= bits - 1) {
+                int square = (i << 6) + Long.numberOfTrailingZeros(bits);
+                validMoves.add(new int[] {square / this.size, square % this.size});
+            }
+        }
+        return validMoves;
+    }
+
+    @Override
+    public int fillValidMoves(int[] squares) {
+        this.getValidMoveMask(this.moves);
+        int count = 0;
+        for (int i = 0; i < this.words; i++) {
+            for (long bits = this.moves[i]; bits != 0; bits &= bits - 1) {
+                squares[count++] = (i << 6) + Long.numberOfTrailingZeros(bits);
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public int countValidMoves() {
+        this.getValidMoveMask(this.moves);
+        int count = 0;
+        for (long word : this.moves) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    @Override
+    public int countPotentialMobility(Stone stone) {
+        long[] opp = Stone.BLACK.equals(stone) ? this.white : this.black;
+        long[] full = FULL_MASKS[this.size];
+        Arrays.fill(this.moves, 0L);
+        for (int dir = 0; dir < 8; dir++) {
+            this.shift(opp, dir, this.shifted);
+            for (int i = 0; i < this.words; i++) {
+                this.moves[i] |= this.shifted[i];
+            }
+        }
+        int count = 0;
+        for (int i = 0; i < this.words; i++) {
+            count += Long.bitCount(this.moves[i] & ~(this.black[i] | this.white[i]) & full[i]);
+        }
+        return count;
+    }
+
+    @Override
+    public int countStableStones(Stone stone) {
+        long[] stable = this.getStableStones();
+        long[] stones = Stone.BLACK.equals(stone) ? this.black : this.white;
+        int count = 0;
+        for (int i = 0; i < this.words; i++) {
+            count += Long.bitCount(stable[i] & stones[i]);
+        }
+        return count;
+    }
+
+    @Override
+    public int countStones(Stone stone) {
+        int count = 0;
+        for (long word : Stone.BLACK.equals(stone) ? this.black : this.white) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    /**
+     * Create the object instance from a text file.
+     * Refer to the {@code DebugFrame.saveBoardState}
+     * documentation for file formatting.
+     *
+     * @param path The path to the text file.
+     * @return The {@code PackedBoard} instance copying
+     * the state in the file.
+     */
+    public static PackedBoard parse(String path) {
+        return new PackedBoard(MockBoard.parse(path));
+    }
+}
@@ -0,0 +1,345 @@
+package backend;
+
+import entities.Stone;
+
+import java.util.Arrays;
+import java.util.function.BooleanSupplier;
+
+/**
+ * A tree of game states like {@code MockBoardTree}, stored in a handful of arrays instead of objects.
+ * A node is an index into parallel arrays of its parent, first child, next sibling and the move that led to it,
+ * and its position is packed into a shared {@code long[]} as the bitsets of a {@code PackedBoard}.
+ * The root is node 0, and the children of a node are numbered in the order they were generated,
+ * so the nodes of each expansion sit next to each other in memory.
+ * <p>
+ * A node takes 17 bytes plus 16 bytes for every 64 squares of the board, against hundreds of bytes
+ * for a {@code MockBoardTree} node with its children list and {@code MockBoard}.
+ * Nodes cannot be removed.
+ */
+public class PackedBoardTree {
+    /** The index of a node that does not exist, such as the parent of the root. */
+    public static final int NO_NODE = -1;
+    /** The move leading to the root or to a node reached by passing. */
+    public static final int NO_MOVE = -1;
+    /** The number of nodes room is made for at first. */
+    private static final int INITIAL_CAPACITY = 64;
+
+    /** The size of the board. */
+    private final int size;
+    /** The number of words in the packed position of a node. */
+    private final int stride;
+    /** The parent of each node, or {@code NO_NODE} for the root. */
+    private int[] parents;
+    /** The first child of each node, or {@code NO_NODE} for a leaf. */
+    private int[] firstChildren;
+    /** The next child of the parent of each node, or {@code NO_NODE} for the last one. */
+    private int[] nextSiblings;
+    /** The move that sent the parent to each node as {@code row * size + col}, or {@code NO_MOVE}. */
+    private int[] moves;
+    /** Whether black is to move at each node. */
+    private boolean[] blackTurns;
+    /** The positions of the nodes, {@code stride} words each. See {@code PackedBoard.storeStones}. */
+    private long[] arena;
+    /** The number of nodes. */
+    private int count;
+    /** The board positions are unpacked into to generate their children. */
+    private final PackedBoard scratch;
+    /** The moves of the position being expanded, so move generation does not allocate. */
+    private final int[] moveBuffer;
+
+    /**
+     * Initialize the tree by specifying a root.
+     *
+     * @param root The position of the root. It may use any representation and is not modified.
+     * @throws IllegalArgumentException If the board is larger than {@code PackedBoard.MAX_SIZE}.
+     */
+    public PackedBoardTree(BoardState root) {
+        this.scratch = new PackedBoard(root);
+        this.size = root.getSize();
+        this.stride = 2 * this.scratch.getWordCount();
+        this.moveBuffer = new int[this.size * this.size];
+        this.parents = new int[INITIAL_CAPACITY];
+        this.firstChildren = new int[INITIAL_CAPACITY];
+        this.nextSiblings = new int[INITIAL_CAPACITY];
+        this.moves = new int[INITIAL_CAPACITY];
+        this.blackTurns = new boolean[INITIAL_CAPACITY];
+        this.arena = new long[INITIAL_CAPACITY * this.stride];
+        this.storeScratch(this.addNode(NO_NODE, NO_NODE, NO_MOVE));
+    }
+
+    /**
+     * Appends a node at the end of the arrays and of the children of its parent.
+     * The position is left for the caller to write.
+     *
+     * @param parent The parent of the node, or {@code NO_NODE} for the root.
+     * @param lastChild The last child of the parent so far, or {@code NO_NODE} if it has none.
+     *                  The caller keeps track of it, so that adding children does not walk the siblings.
+     * @param move The move that sent the parent to the node, or {@code NO_MOVE}.
+     * @return The index of the new node.
+     */
+    private int addNode(int parent, int lastChild, int move) {
+        if (this.count == this.parents.length) {
+            // grow by half like an ArrayList, so that less room is left unused than by doubling
+            int capacity = this.count + (this.count >> 1);
+            this.parents = Arrays.copyOf(this.parents, capacity);
+            this.firstChildren = Arrays.copyOf(this.firstChildren, capacity);
+            this.nextSiblings = Arrays.copyOf(this.nextSiblings, capacity);
+            this.moves = Arrays.copyOf(this.moves, capacity);
+            this.blackTurns = Arrays.copyOf(this.blackTurns, capacity);
+            this.arena = Arrays.copyOf(this.arena, capacity * this.stride);
+        }
+        int node = this.count++;
+        this.parents[node] = parent;
+        this.firstChildren[node] = NO_NODE;
+        this.nextSiblings[node] = NO_NODE;
+        this.moves[node] = move;
+        if (lastChild != NO_NODE) {
+            this.nextSiblings[lastChild] = node;
+        }
+        else if (parent != NO_NODE) {
+            this.firstChildren[parent] = node;
+        }
+        return node;
+    }
+
+    /**
+     * Writes the position of the scratch board into a node.
+     *
+     * @param node The node to write to.
+     */
+    private void storeScratch(int node) {
+        this.scratch.storeStones(this.arena, node * this.stride);
+        this.blackTurns[node] = Stone.BLACK.equals(this.scratch.getTurn());
+    }
+
+    /**
+     * @param node The index of a node.
+     * @return The last child of the node, or {@code NO_NODE} if it is a leaf.
+     */
+    private int getLastChild(int node) {
+        int last = this.firstChildren[node];
+        if (last != NO_NODE) {
+            while (this.nextSiblings[last] != NO_NODE) {
+                last = this.nextSiblings[last];
+            }
+        }
+        return last;
+    }
+
+    /**
+     * Checks whether a node already has a child reached by a move.
+     *
+     * @param node The parent node.
+     * @param move The move as {@code row * size + col}.
+     * @return {@code true} if one of the children was reached by the move.
+     */
+    private boolean hasChild(int node, int move) {
+        for (int child = this.firstChildren[node]; child != NO_NODE; child = this.nextSiblings[child]) {
+            if (this.moves[child] == move) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Generates all possible states that come after the state of a node and adds them as its children.
+     * A child that is already there is not added again; since different moves from the same position
+     * always lead to different positions, this compares the moves instead of the positions.
+     * If there's no possible move, the state after passing is added unless the node already has a child.
+     * Expanding a leaf, which is what {@code deepGenerateAllOutcomes} does, never looks at the siblings.
+     *
+     * @param node The node to expand.
+     * @return The number of children added, including a pass.
+     */
+    public int generateAllOutcomes(int node) {
+        this.scratch.loadStones(this.arena, node * this.stride, this.getTurn(node));
+        int moveCount = this.scratch.fillValidMoves(this.moveBuffer);
+        if (moveCount == 0) {
+            if (this.firstChildren[node] != NO_NODE) {
+                return 0;
+            }
+            // pass the turn and add as a child
+            this.scratch.nextTurn();
+            this.storeScratch(this.addNode(node, NO_NODE, NO_MOVE));
+            return 1;
+        }
+        int last = this.getLastChild(node);
+        // only a node that was expanded before can already have some of the children
+        boolean expanded = last != NO_NODE;
+        int numAdded = 0;
+        for (int i = 0; i < moveCount; i++) {
+            int move = this.moveBuffer[i];
+            if (expanded && this.hasChild(node, move)) {
+                continue;
+            }
+            MoveUndo undo = this.scratch.makeMove(move / this.size, move % this.size);
+            last = this.addNode(node, last, move);
+            this.storeScratch(last);
+            this.scratch.unmakeMove(undo);
+            numAdded++;
+        }
+        return numAdded;
+    }
+
+    /**
+     * Generates all possible states that come after every leaf node.
+     * The leaves are expanded in the order of their indices, one pass over the arrays,
+     * and the nodes added are not expanded again.
+     *
+     * @return The total number of children nodes generated.
+     */
+    public int deepGenerateAllOutcomes() {
+        return this.deepGenerateAllOutcomes(() -> false);
+    }
+
+    /**
+     * Generates all possible states that come after every leaf node like {@code deepGenerateAllOutcomes},
+     * but stops as soon as it is told to. This is checked before each leaf is expanded,
+     * so the leaves reached until then get their children and the others are left as they are.
+     *
+     * @param stop Returns {@code true} once the generation should stop, such as when a deadline passes.
+     * @return The total number of children nodes generated.
+     */
+    public int deepGenerateAllOutcomes(BooleanSupplier stop) {
+        int numAdded = 0;
+        int leavesEnd = this.count;
+        for (int node = 0; node < leavesEnd; node++) {
+            if (this.firstChildren[node] == NO_NODE) {
+                if (stop.getAsBoolean()) {
+                    break;
+                }
+                numAdded += this.generateAllOutcomes(node);
+            }
+        }
+        return numAdded;
+    }
+
+    /**
+     * @return The size of the board.
+     */
+    public int getSize() {
+        return this.size;
+    }
+
+    /**
+     * @return The number of nodes in the tree, including the root.
+     */
+    public int getNodeCount() {
+        return this.count;
+    }
+
+    /**
+     * @return The index of the root, which is always 0.
+     */
+    public int getRoot() {
+        return 0;
+    }
+
+    /**
+     * @param node The index of a node.
+     * @return The parent of the node, or {@code NO_NODE} if it is the root.
+     */
+    public int getParent(int node) {
+        return this.parents[node];
+    }
+
+    /**
+     * @param node The index of a node.
+     * @return The first child of the node, or {@code NO_NODE} if it is a leaf.
+     */
+    public int getFirstChild(int node) {
+        return this.firstChildren[node];
+    }
+
+    /**
+     * @param node The index of a node.
+     * @return The next child of the parent of the node, or {@code NO_NODE} if it is the last one.
+     */
+    public int getNextSibling(int node) {
+        return this.nextSiblings[node];
+    }
+
+    /**
+     * @param node The index of a node.
+     * @return The number of children under the node.
+     */
+    public int getChildCount(int node) {
+        int children = 0;
+        for (int child = this.firstChildren[node]; child != NO_NODE; child = this.nextSiblings[child]) {
+            children++;
+        }
+        return children;
+    }
+
+    /**
+     * @param node The index of a node.
+     * @param i The index of the desired child, in the order the children were added.
+     * @return The child node at the given index.
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    public int getChild(int node, int i) throws IndexOutOfBoundsException {
+        int child = this.firstChildren[node];
+        for (int j = 0; j < i && child != NO_NODE; j++) {
+            child = this.nextSiblings[child];
+        }
+        if (i < 0 || child == NO_NODE) {
+            throw new IndexOutOfBoundsException("Node " + node + " has no child " + i);
+        }
+        return child;
+    }
+
+    /**
+     * @param node The index of a node.
+     * @return The move that sent the parent board to this board as {@code row * size + col}.
+     *         {@code NO_MOVE} if there is no parent or the previous turn was passed.
+     */
+    public int getPreviousMove(int node) {
+        return this.moves[node];
+    }
+
+    /**
+     * @param node The index of a node.
+     * @return The stone of the player to move at the node.
+     */
+    public Stone getTurn(int node) {
+        return this.blackTurns[node] ? Stone.BLACK : Stone.WHITE;
+    }
+
+    /**
+     * Count the number of a particular stone at a node, without unpacking the position.
+     *
+     * @param node The index of a node.
+     * @param stone The stone to be counted.
+     * @return The number of that stone.
+     */
+    public int countStones(int node, Stone stone) {
+        int words = this.stride / 2;
+        int offset = node * this.stride + (Stone.BLACK.equals(stone) ? 0 : words);
+        int stones = 0;
+        for (int i = offset; i < offset + words; i++) {
+            stones += Long.bitCount(this.arena[i]);
+        }
+        return stones;
+    }
+
+    /**
+     * Unpacks the position of a node.
+     *
+     * @param node The index of a node.
+     * @return A new board with the position of the node.
+     */
+    public PackedBoard getBoard(int node) {
+        PackedBoard board = this.scratch.copy();
+        board.loadStones(this.arena, node * this.stride, this.getTurn(node));
+        return board;
+    }
+
+    /**
+     * @return The number of bytes taken by the arrays holding the nodes, including the room for more.
+     */
+    public long getMemoryBytes() {
+        long capacity = this.parents.length;
+        return capacity * (4 * Integer.BYTES + 1 + (long) this.stride * Long.BYTES);
+    }
+}
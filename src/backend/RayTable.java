@@ -0,0 +1,110 @@
+package backend;
+
+import entities.Direction;
+
+/**
+ * Precomputed rays for walking a board without allocation.
+ * For every square and direction, the table holds the squares
+ * you'd pass by moving that way until leaving the board.
+ * Squares are indexed as {@code row * size + col}.
+ * One table is built per board size and shared by everything that uses that size.
+ */
+public class RayTable {
+    /**
+     * The tables built so far, indexed by board size.
+     */
+    private static final RayTable[] TABLES = new RayTable[PackedBoard.MAX_SIZE + 1];
+
+    /**
+     * The size of the board this table is for.
+     */
+    private final int size;
+    /**
+     * The squares along each ray, not including the starting square.
+     * Access by [square][direction index]. Empty if the ray leaves the board immediately.
+     */
+    private final int[][][] rays;
+
+    /**
+     * Builds the table for a board size.
+     *
+     * @param size The size of the board.
+     */
+    private RayTable(int size) {
+        this.size = size;
+        this.rays = new int[size * size][8][];
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                for (int dir = 0; dir < 8; dir++) {
+                    Direction direction = Direction.fromIndex(dir);
+                    int dr = direction.getRowDelta(), dc = direction.getColDelta();
+                    // count the steps until leaving the board, then record them
+                    int length = 0;
+                    for (int r = row + dr, c = col + dc; r >= 0 && r < size && c >= 0 && c < size; r += dr, c += dc) {
+                        length++;
+                    }
+                    int[] ray = new int[length];
+                    for (int i = 0; i < length; i++) {
+                        ray[i] = (row + (i + 1) * dr) * size + col + (i + 1) * dc;
+                    }
+                    this.rays[row * size + col][dir] = ray;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the shared table for a board size, building it on first use.
+     *
+     * @param size The size of the board.
+     * @return The table for that size.
+     * @throws IllegalArgumentException If the size is not supported.
+     */
+    public static RayTable forSize(int size) {
+        if (size < 1 || size >= TABLES.length) {
+            throw new IllegalArgumentException("No ray table for board size " + size);
+        }
+        RayTable table = TABLES[size];
+        if (table == null) {
+            synchronized (TABLES) {
+                table = TABLES[size];
+                if (table == null) {
+                    table = new RayTable(size);
+                    TABLES[size] = table;
+                }
+            }
+        }
+        return table;
+    }
+
+    /**
+     * Returns the squares you'd pass by moving from a square towards a direction.
+     * The returned array is shared, so do not modify it.
+     *
+     * @param square The starting square as {@code row * size + col}.
+     * @param dir The index of the direction. See {@code Direction.getIndex()}.
+     * @return The squares along the ray in order, not including the starting square.
+     */
+    public int[] getRay(int square, int dir) {
+        return this.rays[square][dir];
+    }
+
+    /**
+     * Returns the square right next to a square towards a direction.
+     *
+     * @param square The starting square as {@code row * size + col}.
+     * @param dir The index of the direction. See {@code Direction.getIndex()}.
+     * @return The adjacent square, or -1 if it is outside the board.
+     */
+    public int getNeighbor(int square, int dir) {
+        int[] ray = this.rays[square][dir];
+        return ray.length > 0 ? ray[0] : -1;
+    }
+
+    /**
+     * @return The size of the board this table is for.
+     */
+    public int getSize() {
+        return this.size;
+    }
+}
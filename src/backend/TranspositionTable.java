@@ -0,0 +1,247 @@
+package backend;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A fixed-size table of search results keyed by the Zobrist hash of a position.
+ * It is preallocated as primitive arrays and can be probed and stored into
+ * by many search threads at once without locks.
+ * <p>
+ * Each bucket has two slots. The first keeps the entry searched to the greatest depth,
+ * and the second is always replaced, so deep results survive while recent ones are still kept.
+ * Every slot stores the entry data and its key XOR the data. A probe only accepts a slot
+ * if XORing them gives back the probed key, so a slot torn by two threads writing
+ * at the same time reads as a miss instead of a wrong result.
+ */
+public class TranspositionTable {
+    /** The stored score is exact. */
+    public static final int EXACT = 0;
+    /** The stored score is a lower bound; the search failed high. */
+    public static final int LOWER_BOUND = 1;
+    /** The stored score is an upper bound; the search failed low. */
+    public static final int UPPER_BOUND = 2;
+    /** The move stored when there is no best move, such as when the turn was passed. */
+    public static final int NO_MOVE = -1;
+
+    /**
+     * The number of slots per bucket.
+     */
+    private static final int SLOTS = 2;
+
+    /**
+     * The key XOR the data of each slot. Slot {@code SLOTS * bucket + i} is slot i of the bucket.
+     */
+    private final long[] checks;
+    /**
+     * The packed data of each slot. See {@code pack}.
+     */
+    private final long[] data;
+    /**
+     * The mask to turn a key into a bucket index.
+     */
+    private final int bucketMask;
+
+    /** The number of probes made. */
+    private final LongAdder probes = new LongAdder();
+    /** The number of probes that found the position. */
+    private final LongAdder hits = new LongAdder();
+    /** The number of probes that found the bucket filled by other positions only. */
+    private final LongAdder collisions = new LongAdder();
+    /** The number of entries stored. */
+    private final LongAdder stores = new LongAdder();
+
+    /**
+     * Allocates a table of about the given size.
+     *
+     * @param megabytes The memory to use in megabytes. Rounded down to a power of two buckets.
+     * @throws IllegalArgumentException If the size is not positive.
+     */
+    public TranspositionTable(int megabytes) {
+        if (megabytes <= 0) {
+            throw new IllegalArgumentException("The table size must be positive.");
+        }
+        // each slot takes two longs
+        long slots = (long) megabytes * 1024 * 1024 / 16;
+        int buckets = Integer.highestOneBit((int) Math.min(slots / SLOTS, 1 << 28));
+        this.bucketMask = buckets - 1;
+        this.checks = new long[buckets * SLOTS];
+        this.data = new long[buckets * SLOTS];
+    }
+
+    /**
+     * Packs an entry into a single {@code long}.
+     * From the lowest bit: 32 bits of score, 16 bits of move + 1,
+     * 8 bits of depth, 2 bits of bound and 1 bit marking the slot as used.
+     *
+     * @param score The score found.
+     * @param move The best move found, or {@code NO_MOVE}.
+     * @param depth The depth searched. Clamped to 255.
+     * @param bound The bound type of the score.
+     * @return The packed entry.
+     */
+    private static long pack(int score, int move, int depth, int bound) {
+        return (score & 0xFFFFFFFFL)
+                | ((long) ((move + 1) & 0xFFFF) << 32)
+                | ((long) Math.min(depth, 0xFF) << 48)
+                | ((long) (bound & 0x3) << 56)
+                | (1L << 58);
+    }
+
+    /**
+     * Looks up a position.
+     *
+     * @param key The Zobrist hash of the position.
+     * @return The packed entry, or 0 if the position is not in the table.
+     *         Read it with {@code getScore}, {@code getMove}, {@code getDepth} and {@code getBound}.
+     */
+    public long probe(long key) {
+        this.probes.increment();
+        int base = this.bucketOf(key);
+        boolean occupied = false;
+        for (int i = base; i < base + SLOTS; i++) {
+            long entry = this.data[i];
+            if (entry == 0) {
+                continue;
+            }
+            occupied = true;
+            if ((this.checks[i] ^ entry) == key) {
+                this.hits.increment();
+                return entry;
+            }
+        }
+        if (occupied) {
+            this.collisions.increment();
+        }
+        return 0L;
+    }
+
+    /**
+     * Stores the result of searching a position.
+     * The entry goes to the depth-preferred slot if it is at least as deep as what's there,
+     * or if that slot already holds the same position. Otherwise, it goes to the always-replace slot.
+     *
+     * @param key The Zobrist hash of the position.
+     * @param score The score found.
+     * @param move The best move found as {@code row * size + col}, or {@code NO_MOVE}.
+     * @param depth The depth searched. Depths above 255 are stored as 255.
+     * @param bound One of {@code EXACT}, {@code LOWER_BOUND} and {@code UPPER_BOUND}.
+     */
+    public void store(long key, int score, int move, int depth, int bound) {
+        this.stores.increment();
+        long entry = pack(score, move, depth, bound);
+        int base = this.bucketOf(key);
+        long deepEntry = this.data[base];
+        boolean samePosition = deepEntry != 0 && (this.checks[base] ^ deepEntry) == key;
+        int slot = deepEntry == 0 || samePosition || depth >= getDepth(deepEntry) ? base : base + 1;
+        this.data[slot] = entry;
+        this.checks[slot] = key ^ entry;
+    }
+
+    /**
+     * Returns the first slot of the bucket a key belongs to.
+     *
+     * @param key The Zobrist hash of the position.
+     * @return The index of the first slot.
+     */
+    private int bucketOf(long key) {
+        // the low bits pick the bucket, so mix in the high bits as well
+        return ((int) (key ^ (key >>> 32)) & this.bucketMask) * SLOTS;
+    }
+
+    /**
+     * Removes every entry and resets the statistics.
+     * This must not be called while a search is using the table.
+     */
+    public void clear() {
+        Arrays.fill(this.checks, 0L);
+        Arrays.fill(this.data, 0L);
+        this.probes.reset();
+        this.hits.reset();
+        this.collisions.reset();
+        this.stores.reset();
+    }
+
+    /**
+     * @param entry An entry returned by {@code probe}.
+     * @return The score stored in the entry.
+     */
+    public static int getScore(long entry) {
+        return (int) entry;
+    }
+
+    /**
+     * @param entry An entry returned by {@code probe}.
+     * @return The best move stored in the entry as {@code row * size + col}, or {@code NO_MOVE}.
+     */
+    public static int getMove(long entry) {
+        return (int) ((entry >>> 32) & 0xFFFF) - 1;
+    }
+
+    /**
+     * @param entry An entry returned by {@code probe}.
+     * @return The depth stored in the entry.
+     */
+    public static int getDepth(long entry) {
+        return (int) ((entry >>> 48) & 0xFF);
+    }
+
+    /**
+     * @param entry An entry returned by {@code probe}.
+     * @return The bound type stored in the entry.
+     */
+    public static int getBound(long entry) {
+        return (int) ((entry >>> 56) & 0x3);
+    }
+
+    /**
+     * @return The number of slots in the table.
+     */
+    public int capacity() {
+        return this.data.length;
+    }
+
+    /**
+     * @return The fraction of probes that found the position, from 0 to 1.
+     */
+    public double getHitRate() {
+        long probeCount = this.probes.sum();
+        return probeCount == 0 ? 0.0 : (double) this.hits.sum() / probeCount;
+    }
+
+    /**
+     * @return The fraction of probes that missed because the bucket was taken by other positions.
+     */
+    public double getCollisionRate() {
+        long probeCount = this.probes.sum();
+        return probeCount == 0 ? 0.0 : (double) this.collisions.sum() / probeCount;
+    }
+
+    /**
+     * Counts the used slots. This scans the whole table, so avoid calling it during a search.
+     *
+     * @return The fraction of slots in use, from 0 to 1.
+     */
+    public double getOccupancy() {
+        int used = 0;
+        for (long entry : this.data) {
+            if (entry != 0) {
+                used++;
+            }
+        }
+        return (double) used / this.data.length;
+    }
+
+    /**
+     * @return The number of entries stored since the table was created or cleared.
+     */
+    public long getStoreCount() {
+        return this.stores.sum();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("hit rate %.1f%%, collision rate %.1f%%, occupancy %.1f%%",
+                100 * this.getHitRate(), 100 * this.getCollisionRate(), 100 * this.getOccupancy());
+    }
+}
@@ -0,0 +1,148 @@
+package backend;
+
+import entities.Stone;
+
+import java.util.SplittableRandom;
+
+/**
+ * Random keys for Zobrist hashing of board positions.
+ * The hash of a position is the XOR of the key of every stone on the board,
+ * plus the turn key if it's white's turn. This lets boards update their hash
+ * with a few XORs whenever a stone is placed or flipped, or the turn changes.
+ * The keys are generated from a fixed seed, so hashes are the same on every run.
+ * One set of keys is built per board size and shared.
+ */
+public class Zobrist {
+    /**
+     * The key sets built so far, indexed by board size.
+     */
+    private static final Zobrist[] KEYS = new Zobrist[PackedBoard.MAX_SIZE + 1];
+
+    /**
+     * The key of a black stone on each square, indexed by {@code row * size + col}.
+     */
+    private final long[] blackKeys;
+    /**
+     * The key of a white stone on each square, indexed by {@code row * size + col}.
+     */
+    private final long[] whiteKeys;
+    /**
+     * The key to XOR when a stone on each square is flipped.
+     * This is the black key XOR the white key of that square.
+     */
+    private final long[] flipKeys;
+    /**
+     * The key included when it's white's turn.
+     */
+    private final long turnKey;
+
+    /**
+     * Generates the keys for a board size.
+     *
+     * @param size The size of the board.
+     */
+    private Zobrist(int size) {
+        SplittableRandom random = new SplittableRandom(0x5EED0000L + size);
+        int squares = size * size;
+        this.blackKeys = new long[squares];
+        this.whiteKeys = new long[squares];
+        this.flipKeys = new long[squares];
+        for (int i = 0; i < squares; i++) {
+            this.blackKeys[i] = random.nextLong();
+            this.whiteKeys[i] = random.nextLong();
+            this.flipKeys[i] = this.blackKeys[i] ^ this.whiteKeys[i];
+        }
+        this.turnKey = random.nextLong();
+    }
+
+    /**
+     * Returns the shared keys for a board size, generating them on first use.
+     *
+     * @param size The size of the board.
+     * @return The keys for that size.
+     * @throws IllegalArgumentException If the size is not supported.
+     */
+    public static Zobrist forSize(int size) {
+        if (size < 1 || size >= KEYS.length) {
+            throw new IllegalArgumentException("No Zobrist keys for board size " + size);
+        }
+        Zobrist keys = KEYS[size];
+        if (keys == null) {
+            synchronized (KEYS) {
+                keys = KEYS[size];
+                if (keys == null) {
+                    keys = new Zobrist(size);
+                    KEYS[size] = keys;
+                }
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Computes the hash of a position from scratch.
+     * Boards keep their hash up to date themselves, so this is only needed
+     * when building a board or to check the incremental updates.
+     *
+     * @param position The position to hash.
+     * @return The 64-bit Zobrist hash of the position.
+     */
+    public static long hash(BoardState position) {
+        Zobrist keys = forSize(position.getSize());
+        int size = position.getSize();
+        long hash = Stone.WHITE.equals(position.getTurn()) ? keys.turnKey : 0L;
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                Stone stone = position.getStoneAt(row, col);
+                if (stone != null) {
+                    hash ^= keys.stoneKey(stone, row * size + col);
+                }
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Returns the key of a stone on a square.
+     *
+     * @param stone The stone.
+     * @param square The square as {@code row * size + col}.
+     * @return The key to XOR when the stone is placed on or removed from the square.
+     */
+    public long stoneKey(Stone stone, int square) {
+        return Stone.BLACK.equals(stone) ? this.blackKeys[square] : this.whiteKeys[square];
+    }
+
+    /**
+     * Returns the key of flipping a stone on a square.
+     *
+     * @param square The square as {@code row * size + col}.
+     * @return The key to XOR when the stone on the square is flipped, whichever color it is.
+     */
+    public long flipKey(int square) {
+        return this.flipKeys[square];
+    }
+
+    /**
+     * Returns the combined key of flipping every stone in a bitset.
+     *
+     * @param flips The flipped squares as a bitset.
+     * @return The key to XOR when all those stones are flipped.
+     */
+    public long flipKey(long[] flips) {
+        long key = 0L;
+        for (int i = 0; i < flips.length; i++) {
+            for (long bits = flips[i]; bits != 0; bits &= bits - 1) {
+                key ^= this.flipKeys[(i << 6) + Long.numberOfTrailingZeros(bits)];
+            }
+        }
+        return key;
+    }
+
+    /**
+     * @return The key to XOR whenever the turn changes.
+     */
+    public long turnKey() {
+        return this.turnKey;
+    }
+}
@@ -0,0 +1,38 @@
+package benchmarks;
+
+import ai.Hastyn;
+import ai.Oracina;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the time the AIs take to find a move.
+ * Oracina looks 2 turns ahead, as she does in {@code Tournament}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AIBenchmark {
+    /**
+     * The search mode Oracina uses. It is kept in its own state so
+     * that the other AIs are not run once per mode.
+     */
+    @State(Scope.Thread)
+    public static class OracinaMode {
+        @Param({"TREE", "DAG", "PACKED_TREE", "STREAMING", "PARALLEL"})
+        public Oracina.SearchMode mode;
+    }
+
+    @Benchmark
+    public int[] oracinaFindMove(BenchmarkPosition position, OracinaMode oracina) {
+        return new Oracina(position.board.getTurn(), 2, oracina.mode).findMove(position.board);
+    }
+
+    @Benchmark
+    public int[] hastynFindMove(BenchmarkPosition position) {
+        return new Hastyn(position.board.getTurn()).findMove(position.board);
+    }
+}
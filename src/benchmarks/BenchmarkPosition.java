@@ -0,0 +1,40 @@
+package benchmarks;
+
+import backend.MockBoard;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * The position a benchmark runs on. Every benchmark is run on every board size
+ * and game phase, with the positions loaded from {@code src/benchmarks/positions}.
+ * The files are named {@code <phase>_<size>.txt} and use the format of {@code DebugFrame.saveBoardState}.
+ * Every position has at least one valid move for the player to move.
+ */
+@State(Scope.Thread)
+public class BenchmarkPosition {
+    /** The directory the positions are loaded from. */
+    public static final String POSITIONS = "src/benchmarks/positions";
+
+    /** The size of the board. */
+    @Param({"4", "8", "12", "16", "20", "24"})
+    public int size;
+    /**
+     * How far the game has gone. About 15%, 50% and 85% of the empty squares
+     * have been filled in the opening, midgame and endgame respectively.
+     */
+    @Param({"opening", "midgame", "endgame"})
+    public String phase;
+
+    /** The position. Benchmarks must not change it. */
+    public MockBoard board;
+    /** The first valid move of the position as [row, col]. */
+    public int[] move;
+
+    @Setup
+    public void load() {
+        this.board = MockBoard.parse(POSITIONS + "/" + this.phase + "_" + this.size + ".txt");
+        this.move = this.board.getValidMoves().get(0);
+    }
+}
@@ -0,0 +1,46 @@
+package benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the engine benchmarks with the GC profiler, so that the allocation rate
+ * ({@code gc.alloc.rate.norm}, in bytes per operation) is reported next to the throughput.
+ * Run it from the root of the repository so that the positions can be found.
+ * <p>
+ * Build with {@code mvn -Pbenchmarks package}, then run from the command line as
+ * {@code java -jar target/benchmarks.jar [regex] [--size 8] [--phase midgame]},
+ * where the regex selects the benchmarks to run by name, like {@code MockBoardBenchmark.copy}.
+ */
+public class Benchmarks {
+    /**
+     * Runs the benchmarks.
+     *
+     * @param args An optional regex selecting the benchmarks to run,
+     *             {@code --size} followed by the board sizes to use, separated by commas,
+     *             and {@code --phase} followed by the game phases to use, separated by commas.
+     * @throws RunnerException If a benchmark fails.
+     */
+    public static void main(String[] args) throws RunnerException {
+        OptionsBuilder options = new OptionsBuilder();
+        boolean selected = false;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--size" -> options.param("size", args[++i].split(","));
+                case "--phase" -> options.param("phase", args[++i].split(","));
+                default -> {
+                    options.include(args[i]);
+                    selected = true;
+                }
+            }
+        }
+        if (!selected) {
+            options.include(Benchmarks.class.getPackageName() + "\\.");
+        }
+        Options built = options.addProfiler(GCProfiler.class).build();
+        new Runner(built).run();
+    }
+}
@@ -0,0 +1,44 @@
+package benchmarks;
+
+import backend.MockBoard;
+import entities.Stone;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the {@code MockBoard} operations every search is built on.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class MockBoardBenchmark {
+    @Benchmark
+    public List<int[]> getValidMoves(BenchmarkPosition position) {
+        return position.board.getValidMoves();
+    }
+
+    /**
+     * {@code placeStone} changes the board, so it is played on a fresh copy every time.
+     * Subtract the time of {@code copy} to get the time of the move alone.
+     */
+    @Benchmark
+    public MockBoard placeStone(BenchmarkPosition position) {
+        MockBoard next = position.board.copy();
+        next.placeStone(position.move[0], position.move[1]);
+        return next;
+    }
+
+    @Benchmark
+    public MockBoard copy(BenchmarkPosition position) {
+        return position.board.copy();
+    }
+
+    @Benchmark
+    public int countStones(BenchmarkPosition position) {
+        return position.board.countStones(Stone.BLACK);
+    }
+}
@@ -0,0 +1,55 @@
+package benchmarks;
+
+import backend.MockBoardTree;
+import backend.PackedBoardTree;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks expanding a node of {@code MockBoardTree}, which {@code Oracina} does for every position she sees,
+ * and expanding a few levels of it, against the same on a {@code PackedBoardTree}.
+ * Run with the GC profiler to compare the memory allocated per tree.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class MockBoardTreeBenchmark {
+    /** The number of levels expanded by the deep benchmarks. */
+    private static final int LEVELS = 3;
+
+    @Benchmark
+    public MockBoardTree generateAllOutcomes(BenchmarkPosition position) {
+        // a node with children does not generate them again, so every call starts from a new root
+        MockBoardTree tree = new MockBoardTree(position.board);
+        tree.generateAllOutcomes();
+        return tree;
+    }
+
+    @Benchmark
+    public PackedBoardTree packedGenerateAllOutcomes(BenchmarkPosition position) {
+        PackedBoardTree tree = new PackedBoardTree(position.board);
+        tree.generateAllOutcomes(tree.getRoot());
+        return tree;
+    }
+
+    @Benchmark
+    public MockBoardTree deepGenerateAllOutcomes(BenchmarkPosition position) {
+        MockBoardTree tree = new MockBoardTree(position.board);
+        for (int i = 0; i < LEVELS; i++) {
+            tree.deepGenerateAllOutcomes();
+        }
+        return tree;
+    }
+
+    @Benchmark
+    public PackedBoardTree packedDeepGenerateAllOutcomes(BenchmarkPosition position) {
+        PackedBoardTree tree = new PackedBoardTree(position.board);
+        for (int i = 0; i < LEVELS; i++) {
+            tree.deepGenerateAllOutcomes();
+        }
+        return tree;
+    }
+}
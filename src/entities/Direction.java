@@ -48,6 +48,11 @@ public class Direction {
      * Direction object representing the respective direction.
      */
     public static final Direction TOP_LEFT = new Direction(8);
+    /**
+     * All directions, starting from the top and going clockwise.
+     * Indexed by {@code getIndex()}.
+     */
+    private static final Direction[] VALUES = {TOP, TOP_RIGHT, RIGHT, BOTTOM_RIGHT, BOTTOM, BOTTOM_LEFT, LEFT, TOP_LEFT};
 
     /**
      * Creates a Direction object with the specified direction.
@@ -77,8 +82,7 @@ public class Direction {
      * @return The new direction as indicated above.
      */
     public Direction clockwise() {
-        int newTracker = this.tracker < 8 ? this.tracker + 1 : 1;   // overflow if top-left
-        return new Direction(newTracker);
+        return VALUES[this.tracker % 8];   // overflow if top-left
     }
 
     /**
@@ -88,8 +92,53 @@ public class Direction {
      * @return The new direction as indicated above.
      */
     public Direction counterClockwise() {
-        int newTracker = this.tracker > 1 ? this.tracker - 1 : 8;   // overflow if top
-        return new Direction(newTracker);
+        return VALUES[(this.tracker + 6) % 8];   // overflow if top
+    }
+
+    /**
+     * Returns the direction with the given index.
+     *
+     * @param index The index of the direction, from 0 (top) to 7 (top-left) going clockwise.
+     * @return The direction with that index.
+     */
+    public static Direction fromIndex(int index) {
+        return VALUES[index];
+    }
+
+    /**
+     * Returns the index of this direction. It goes from 0 (top)
+     * to 7 (top-left) going clockwise, so it can be used to index arrays.
+     *
+     * @return The index of this direction.
+     */
+    public int getIndex() {
+        return this.tracker - 1;
+    }
+
+    /**
+     * Returns how many rows a single step in this direction moves.
+     *
+     * @return -1 if it goes up, 1 if it goes down, 0 otherwise.
+     */
+    public int getRowDelta() {
+        return switch (this.tracker) {
+            case 1, 2, 8 -> -1;
+            case 4, 5, 6 -> 1;
+            default -> 0;
+        };
+    }
+
+    /**
+     * Returns how many columns a single step in this direction moves.
+     *
+     * @return -1 if it goes left, 1 if it goes right, 0 otherwise.
+     */
+    public int getColDelta() {
+        return switch (this.tracker) {
+            case 2, 3, 4 -> 1;
+            case 6, 7, 8 -> -1;
+            default -> 0;
+        };
     }
 
     /**
@@ -125,6 +174,8 @@ public class Direction {
     /**
      * Returns the coordinate of the square you'd end up
      * by moving in the direction.
+     * This looks up the Board singleton and allocates the result,
+     * so use {@code RayTable} when walking many squares.
      *
      * @param startRow The row of the starting square.
      * @param startCol The column of the starting square.
@@ -133,16 +184,8 @@ public class Direction {
      */
     public int[] moveThisWay(int startRow, int startCol) {
         int boardSize = Board.getInstance().getSize();
-        switch (this.tracker) {
-            case 1 -> startRow--;
-            case 2 -> {startRow--; startCol++;}
-            case 3 -> startCol++;
-            case 4 -> {startRow++; startCol++;}
-            case 5 -> startRow++;
-            case 6 -> {startRow++; startCol--;}
-            case 7 -> startCol--;
-            case 8 -> {startRow--; startCol--;}
-        }
+        startRow += this.getRowDelta();
+        startCol += this.getColDelta();
         if (startRow >= 0 && startRow < boardSize && startCol >= 0 && startCol < boardSize) {
             return new int[] {startRow, startCol};
         }
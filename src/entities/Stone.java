@@ -39,7 +39,7 @@ public class Stone {
      * @return A stone of the opposite color.
      */
     public Stone getOpposite() {
-        return new Stone(-this.color);
+        return this.color > 0 ? BLACK : WHITE;
     }
 
     /**
@@ -31,6 +31,11 @@ public class SquarePanel extends JPanel {
      * The background manager for this square.
      */
     private SquareBackgroundManager background;
+    /**
+     * The squares adjacent to this square, indexed by {@code Direction.getIndex()}.
+     * An element is {@code null} if that side is out of board.
+     */
+    private SquarePanel[] neighbors;
 
     /**
      * Initializes a SquarePanel. There is no stone on it initially.
@@ -192,14 +197,18 @@ public class SquarePanel extends JPanel {
      * @return The adjacent SquarePanel in the direction, {@code null} if it is out of board.
      */
     public SquarePanel getAdjacent(Direction dir) {
-        int row = this.coordinate[0], col = this.coordinate[1];
-        int[] result = dir.moveThisWay(row, col);
-        if (result != null) {
-            return Board.getInstance().getSquareAt(result[0], result[1]);
-        }
-        else {
-            return null;
-        }
+        return this.neighbors[dir.getIndex()];
+    }
+
+    /**
+     * Sets the squares adjacent to this square. This is called by {@code Board}
+     * once all squares are created.
+     *
+     * @param neighbors The adjacent squares indexed by {@code Direction.getIndex()},
+     *                  {@code null} where it is out of board.
+     */
+    public void setNeighbors(SquarePanel[] neighbors) {
+        this.neighbors = neighbors;
     }
 
     /**
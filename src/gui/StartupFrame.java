@@ -2,12 +2,16 @@ package gui;
 
 import ai.*;
 import backend.Board;
+import backend.OpeningBook;
 import listeners.DebugMouseListener;
 import entities.Stone;
 
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ItemEvent;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
 /**
  * A window responsible for the initial setup. The board size is
@@ -37,6 +41,12 @@ public class StartupFrame extends JFrame {
     private final static int SIZE_MAX = 24;
     /** Default board size */
     private final static int SIZE_INITIAL = 8;
+    /** The opening book for 8 x 8 games. Build it with {@code tools.OpeningBookBuilder}. */
+    private final static Path OPENING_BOOK = Path.of("opening_book.bin");
+    /** The number of plies the opening book is used for */
+    private final static int BOOK_PLIES = 12;
+    /** The pattern weights Prunella evaluates 8 x 8 positions with. Build them with {@code tools.PatternWeightsBuilder}. */
+    private final static Path PATTERN_WEIGHTS = Path.of("pattern_weights.bin");
     /** If {@code true}, debug mode is enabled.
       * Click and hold the title text for three seconds to enable this. */
     private boolean debug = false;
@@ -121,7 +131,7 @@ public class StartupFrame extends JFrame {
         JLabel AISelectorLabel = new JLabel("AI Opponent: ");
         AISelectionPanel.add(AISelectorLabel);
         AISelectorLabel.setEnabled(false);   // disabled since the default option is pvp
-        String[] AIOptions = {"Randomazo", "Hastyn", "Oracina"};
+        String[] AIOptions = {"Randomazo", "Hastyn", "Oracina", "Prunella", "Carlotta"};
         this.AIOpponent = "Randomazo";
         JComboBox<String> AISelector = new JComboBox<>(AIOptions);
         Dimension selectorSize = new Dimension(scale(200), scale(30));
@@ -221,6 +231,31 @@ public class StartupFrame extends JFrame {
                 case "Randomazo" -> ai = new Randomazo(aiStone);
                 case "Hastyn" -> ai = new Hastyn(aiStone);
                 case "Oracina" -> ai = new Oracina(aiStone, 3);
+                case "Prunella" -> ai = new Prunella(aiStone);
+                case "Carlotta" -> ai = new Carlotta(aiStone);
+            }
+            // the searching AIs think on the player's time as well
+            ai.setPondering(ai instanceof Prunella || ai instanceof Carlotta);
+            if (ai instanceof Oracina || ai instanceof Prunella || ai instanceof Carlotta) {
+                ai.setEndgameSolver(new EndgameSolver());
+            }
+            if (ai instanceof Prunella prunella && Files.exists(PATTERN_WEIGHTS)) {
+                try {
+                    prunella.setEvaluator(PatternEvaluator.load(PATTERN_WEIGHTS));
+                }
+                catch (IOException e) {
+                    // play with her rules of thumb
+                    System.err.println("Could not load the pattern weights: " + e.getMessage());
+                }
+            }
+            if (Files.exists(OPENING_BOOK)) {
+                try {
+                    ai.setOpeningBook(OpeningBook.open(OPENING_BOOK), BOOK_PLIES);
+                }
+                catch (IOException e) {
+                    // play without the book
+                    System.err.println("Could not open the opening book: " + e.getMessage());
+                }
             }
         }
         GameFrame.initialize(size, this.debug, ai);
@@ -0,0 +1,200 @@
+package tests;
+
+import ai.*;
+import backend.BoardState;
+import backend.MockBoard;
+import entities.Stone;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AIPlayerUnitTest {
+    /**
+     * Creates one of every AI that makes moves, using the given stone.
+     * The slow ones are given little time so the tests stay fast.
+     */
+    private AIPlayer[] createAIs(Stone stone) {
+        return new AIPlayer[] {
+                new Randomazo(stone),
+                new Hastyn(stone),
+                new Oracina(stone, 2, Oracina.SearchMode.TREE),
+                new Oracina(stone, 2, Oracina.SearchMode.DAG),
+                new Oracina(stone, 2, Oracina.SearchMode.PACKED_TREE),
+                new Oracina(stone, 2, Oracina.SearchMode.STREAMING),
+                new Oracina(stone, 2, Oracina.SearchMode.PARALLEL),
+                new Prunella(stone, 50, 2),
+                new Carlotta(stone, 50, 2)
+        };
+    }
+
+    @Test
+    void testFindMoveWithoutBoard() {
+        // the Board singleton is never initialized here
+        for (int size : new int[] {4, 8, 12}) {
+            MockBoard position = MockBoard.startingPosition(size);
+            List<int[]> validMoves = position.getValidMoves();
+            for (AIPlayer ai : this.createAIs(Stone.BLACK)) {
+                int[] move = ai.findMove(position);
+                assertNotNull(move, ai.getClass().getSimpleName());
+                assertTrue(validMoves.stream().anyMatch(valid -> valid[0] == move[0] && valid[1] == move[1]),
+                        ai.getClass().getSimpleName());
+                // the position should be left untouched
+                assertEquals(MockBoard.startingPosition(size), position);
+            }
+        }
+    }
+
+    @Test
+    void testFindMoveNoMove() {
+        MockBoard position = MockBoard.parse("src/tests/no_move_board.txt");
+        for (AIPlayer ai : this.createAIs(Stone.WHITE)) {
+            assertNull(ai.findMove(position), ai.getClass().getSimpleName());
+        }
+        assertNull(new NoAI().findMove(MockBoard.startingPosition(8)));
+    }
+
+    @Test
+    void testCopyConstructor() {
+        MockBoard position = MockBoard.startingPosition(10);
+        position.placeStone(3, 4);
+        BoardState compact = BoardState.compactCopyOf(position);
+        MockBoard copy = new MockBoard(compact);
+        assertEquals(position, copy);
+        assertEquals(position.getTurn(), copy.getTurn());
+        assertEquals(position.zobrist(), copy.zobrist());
+    }
+
+    @Test
+    void testFindMoveDeadline() {
+        MockBoard position = MockBoard.startingPosition(12);
+        List<int[]> validMoves = position.getValidMoves();
+        AIPlayer[] slowAIs = {
+                new Oracina(Stone.BLACK, 6, Oracina.SearchMode.TREE),
+                new Oracina(Stone.BLACK, 6, Oracina.SearchMode.DAG),
+                new Oracina(Stone.BLACK, 6, Oracina.SearchMode.PACKED_TREE),
+                new Oracina(Stone.BLACK, 6, Oracina.SearchMode.STREAMING),
+                new Oracina(Stone.BLACK, 6, Oracina.SearchMode.PARALLEL),
+                new Prunella(Stone.BLACK, 60_000, 2),
+                new Carlotta(Stone.BLACK, 60_000, 2)
+        };
+        for (AIPlayer ai : slowAIs) {
+            Deadline cancelled = Deadline.none();
+            cancelled.cancel();
+            for (Deadline deadline : new Deadline[] {Deadline.after(100), cancelled}) {
+                long start = System.nanoTime();
+                int[] move = ai.findMove(position, deadline);
+                long elapsed = (System.nanoTime() - start) / 1_000_000;
+                // findMove has no grace period of its own, but each of these searches takes a minute or more
+                // if it ignores the deadline, so a loose bound catches that without failing on a busy machine
+                assertTrue(elapsed < 5_000, ai.getClass().getSimpleName() + " took " + elapsed + " ms");
+                assertNotNull(move, ai.getClass().getSimpleName());
+                assertTrue(validMoves.stream().anyMatch(valid -> valid[0] == move[0] && valid[1] == move[1]),
+                        ai.getClass().getSimpleName());
+            }
+        }
+    }
+
+    @Test
+    void testOracinaModesAgree() {
+        for (int size : new int[] {6, 8}) {
+            // a midgame position reached by a fixed line of play
+            MockBoard position = MockBoard.startingPosition(size);
+            for (int i = 0; i < 16; i++) {
+                List<int[]> moves = position.getValidMoves();
+                int[] move = moves.get(7 * i % moves.size());
+                position.placeStone(move[0], move[1]);
+            }
+            MockBoard before = position.copy();
+            double[] expected = new Oracina(position.getTurn(), 3, Oracina.SearchMode.TREE)
+                    .scoreMoves(position, Deadline.none());
+            assertEquals(position.getValidMoves().size(), expected.length);
+            for (Oracina.SearchMode mode : Oracina.SearchMode.values()) {
+                double[] scores = new Oracina(position.getTurn(), 3, mode).scoreMoves(position, Deadline.none());
+                assertArrayEquals(expected, scores, mode.name());
+            }
+            assertEquals(before, position);
+        }
+    }
+
+    @Test
+    void testPondering() throws Exception {
+        Prunella prunella = new Prunella(Stone.WHITE, 50, 1);
+        prunella.setTimeControl(new TimeControl(50, TimeControl.UNLIMITED, 0));
+        prunella.setPondering(true);
+        // black's move is played, and white ponders while black thinks about the next one
+        MockBoard position = MockBoard.startingPosition(8);
+        position.placeStone(2, 3);
+        position.placeStone(2, 2);
+        prunella.startPondering(position).get(10, TimeUnit.SECONDS);
+        // black plays a reply that was pondered on
+        position.placeStone(position.getValidMoves().get(0)[0], position.getValidMoves().get(0)[1]);
+        int[] move = prunella.takePonderedMove(position);
+        assertNotNull(move);
+        assertTrue(position.getValidMoves().stream().anyMatch(valid -> valid[0] == move[0] && valid[1] == move[1]));
+        assertEquals(1.0, prunella.getPonderHitRate());
+        // an unexpected position is a miss
+        assertNull(prunella.takePonderedMove(MockBoard.startingPosition(8)));
+        assertEquals(0.5, prunella.getPonderHitRate());
+    }
+
+    @Test
+    void testPonderingIgnoringDeadline() {
+        // an AI that takes a long time and ignores its deadline
+        AIPlayer slow = new AIPlayer(Stone.WHITE) {
+            @Override
+            public int[] findMove(BoardState position) {
+                try {
+                    Thread.sleep(5000);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return Randomazo.findRandomMove(position);
+            }
+        };
+        slow.setPondering(true);
+        MockBoard position = MockBoard.startingPosition(8);
+        position.placeStone(2, 3);
+        position.placeStone(2, 2);
+        slow.startPondering(position);
+        position.placeStone(position.getValidMoves().get(0)[0], position.getValidMoves().get(0)[1]);
+        // it is not waited for beyond the grace period, and counts as a miss
+        long start = System.nanoTime();
+        assertNull(slow.takePonderedMove(position));
+        assertTrue((System.nanoTime() - start) / 1_000_000 < 4000);
+        assertEquals(0.0, slow.getPonderHitRate());
+    }
+
+    @Test
+    void testDeadline() {
+        Deadline deadline = Deadline.none();
+        Deadline narrowed = deadline.within(60_000);
+        assertFalse(deadline.isExpired());
+        assertFalse(narrowed.isExpired());
+        assertEquals(Long.MAX_VALUE, deadline.remainingMillis());
+        deadline.cancel();
+        assertTrue(narrowed.isExpired());
+        assertEquals(0, narrowed.remainingMillis());
+        assertTrue(Deadline.after(0).isExpired());
+    }
+
+    @Test
+    void testTimeControl() {
+        MockBoard position = MockBoard.startingPosition(8);
+        TimeControl unlimited = new TimeControl(500, TimeControl.UNLIMITED, 0);
+        unlimited.charge(1000);
+        assertEquals(500, unlimited.budgetFor(position));
+
+        // 60 empty squares leave black about 30 moves, so 6 seconds allow 200 ms each
+        TimeControl clock = new TimeControl(500, 6000, 0);
+        assertEquals(200, clock.budgetFor(position));
+        clock.charge(3000);
+        assertEquals(3000, clock.getRemaining());
+        assertEquals(100, clock.budgetFor(position));
+        clock.charge(10_000);
+        assertEquals(0, clock.getRemaining());
+        assertTrue(clock.budgetFor(position) > 0);
+    }
+}
@@ -0,0 +1,177 @@
+package tests;
+
+import backend.BitBoard;
+import backend.Board;
+import backend.MockBoard;
+import backend.MoveUndo;
+import entities.Stone;
+import gui.SquarePanel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BitBoardUnitTest {
+    int defaultBoardSize = 8;
+
+    @BeforeEach
+    void initialize() {
+        Board.initialize(this.defaultBoardSize);
+        // set initial game state
+        Board.getInstance().getSquareAt(3, 3).place(Stone.WHITE);
+        Board.getInstance().getSquareAt(3, 4).place(Stone.BLACK);
+        Board.getInstance().getSquareAt(4, 3).place(Stone.BLACK);
+        Board.getInstance().getSquareAt(4, 4).place(Stone.WHITE);
+    }
+
+    @AfterEach
+    void reset() {
+        Board.reset();
+        SquarePanel.resetSquareSize();
+    }
+
+    @Test
+    void testConstructor() {
+        MockBoard mBoard = new MockBoard();
+        BitBoard bBoard = new BitBoard();
+        assertEquals(mBoard.toString(), bBoard.toString());
+        assertEquals(mBoard.getTurn(), bBoard.getTurn());
+        assertEquals(2, bBoard.countStones(Stone.BLACK));
+        assertEquals(2, bBoard.countStones(Stone.WHITE));
+        assertEquals(Stone.WHITE, bBoard.getStoneAt(3, 3));
+        assertNull(bBoard.getStoneAt(0, 0));
+        assertNull(bBoard.getStoneAt(-1, 8));
+    }
+
+    @Test
+    void testGetValidMoves() {
+        BitBoard bBoard = new BitBoard();
+        List<int[]> result = bBoard.getValidMoves();
+        int[][] expected = {{2, 3}, {3, 2}, {4, 5}, {5, 4}};
+        assertEquals(expected.length, result.size());
+        for (int i = 0; i < expected.length; i++) {
+            assertArrayEquals(expected[i], result.get(i));
+        }
+    }
+
+    @Test
+    void testPlaceStone() {
+        BitBoard bBoard = new BitBoard();
+        assertEquals(0, bBoard.placeStone(0, 0));
+        assertEquals(0, bBoard.placeStone(3, 3));
+        assertEquals(Stone.BLACK, bBoard.getTurn());
+        assertEquals(1, bBoard.placeStone(2, 3));
+        assertEquals(Stone.WHITE, bBoard.getTurn());
+        assertEquals(4, bBoard.countStones(Stone.BLACK));
+        assertEquals(1, bBoard.countStones(Stone.WHITE));
+    }
+
+    @Test
+    void testMatchesMockBoard() {
+        // play the same game on both boards until it ends
+        MockBoard mBoard = new MockBoard();
+        BitBoard bBoard = new BitBoard();
+        int passes = 0;
+        while (passes < 2) {
+            List<int[]> mMoves = mBoard.getValidMoves();
+            List<int[]> bMoves = bBoard.getValidMoves();
+            assertEquals(mMoves.size(), bMoves.size());
+            if (mMoves.isEmpty()) {
+                mBoard.nextTurn();
+                bBoard.nextTurn();
+                passes++;
+                continue;
+            }
+            passes = 0;
+            int[] move = mMoves.get(mMoves.size() / 2);
+            assertArrayEquals(move, bMoves.get(bMoves.size() / 2));
+            assertEquals(mBoard.placeStone(move[0], move[1]), bBoard.placeStone(move[0], move[1]));
+            assertEquals(mBoard.toString(), bBoard.toString());
+        }
+        assertEquals(mBoard.countStones(Stone.BLACK), bBoard.countStones(Stone.BLACK));
+        assertEquals(mBoard.countStones(Stone.WHITE), bBoard.countStones(Stone.WHITE));
+    }
+
+    @Test
+    void testMakeUnmakeMove() {
+        BitBoard bBoard = new BitBoard();
+        BitBoard original = bBoard.copy();
+        assertNull(bBoard.makeMove(0, 0));
+        MoveUndo undo = bBoard.makeMove(2, 3);
+        assertNotNull(undo);
+        assertEquals(1, undo.getFlipCount());
+        assertEquals(Stone.BLACK, bBoard.getStoneAt(3, 3));
+        assertEquals(Stone.WHITE, bBoard.getTurn());
+        MoveUndo reply = bBoard.makeMove(2, 2);
+        assertNotNull(reply);
+        bBoard.unmakeMove(reply);
+        bBoard.unmakeMove(undo);
+        assertEquals(original, bBoard);
+    }
+
+    @Test
+    void testEvaluationTermsMatchMockBoard() {
+        // follow one line of play, stepping back a move now and then so that remembered stable stones are reused
+        MockBoard mBoard = new MockBoard();
+        BitBoard bBoard = new BitBoard();
+        Deque<MoveUndo[]> undos = new ArrayDeque<>();
+        Random random = new Random(7);
+        int passes = 0;
+        while (passes < 2) {
+            for (Stone stone : new Stone[] {Stone.BLACK, Stone.WHITE}) {
+                assertEquals(mBoard.countStableStones(stone), bBoard.countStableStones(stone));
+                assertEquals(mBoard.countPotentialMobility(stone), bBoard.countPotentialMobility(stone));
+            }
+            assertEquals(mBoard.countValidMoves(), bBoard.countValidMoves());
+            List<int[]> moves = mBoard.getValidMoves();
+            if (moves.isEmpty()) {
+                mBoard.nextTurn();
+                bBoard.nextTurn();
+                passes++;
+                continue;
+            }
+            passes = 0;
+            if (!undos.isEmpty() && random.nextInt(4) == 0) {
+                MoveUndo[] undo = undos.pop();
+                mBoard.unmakeMove(undo[0]);
+                bBoard.unmakeMove(undo[1]);
+                continue;
+            }
+            int[] move = moves.get(random.nextInt(moves.size()));
+            undos.push(new MoveUndo[] {mBoard.makeMove(move[0], move[1]), bBoard.makeMove(move[0], move[1])});
+        }
+    }
+
+    @Test
+    void testCopy() {
+        BitBoard bBoard1 = new BitBoard();
+        BitBoard bBoard2 = bBoard1.copy();
+        assertEquals(bBoard1, bBoard2);
+        assertEquals(bBoard1.hashCode(), bBoard2.hashCode());
+        assertNotSame(bBoard1, bBoard2);
+        bBoard2.placeStone(2, 3);
+        assertNotEquals(bBoard1, bBoard2);
+    }
+
+    @Test
+    void testParse() {
+        BitBoard bBoard = BitBoard.parse("src/tests/no_move_board.txt");
+        assertEquals(Stone.WHITE, bBoard.getTurn());
+        assertEquals(0, bBoard.getValidMoveMask());
+        assertEquals(MockBoard.parse("src/tests/no_move_board.txt").toString(), bBoard.toString());
+    }
+
+    @Test
+    void testTooLarge() {
+        Board.reset();
+        SquarePanel.resetSquareSize();
+        Board.initialize(10);
+        assertThrows(IllegalArgumentException.class, BitBoard::new);
+    }
+}
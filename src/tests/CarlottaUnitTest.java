@@ -0,0 +1,33 @@
+package tests;
+
+import ai.Carlotta;
+import backend.MockBoard;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CarlottaUnitTest {
+    @Test
+    void testFindsForcedWin() {
+        // white only wins by taking the bottom right corner, which the playouts find well within the budget
+        MockBoard position = MockBoard.parse("src/tests/corner_win_board.txt");
+        for (int threads : new int[] {1, 4}) {
+            Carlotta carlotta = new Carlotta(position.getTurn(), 500, threads);
+            assertArrayEquals(new int[] {5, 5}, carlotta.findMove(position), threads + " threads");
+        }
+        assertEquals(MockBoard.parse("src/tests/corner_win_board.txt"), position);
+    }
+
+    @Test
+    void testPlayoutsPerSecond() {
+        MockBoard position = MockBoard.startingPosition(8);
+        for (int threads : new int[] {1, 4}) {
+            Carlotta carlotta = new Carlotta(position.getTurn(), 200, threads);
+            assertEquals(threads, carlotta.getThreads());
+            assertEquals(0.0, carlotta.getLastPlayoutsPerSecond());
+            carlotta.findMove(position);
+            assertTrue(carlotta.getLastPlayouts() > 0, threads + " threads");
+            assertTrue(carlotta.getLastPlayoutsPerSecond() > 0, threads + " threads");
+        }
+    }
+}
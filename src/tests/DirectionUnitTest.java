@@ -31,6 +31,21 @@ public class DirectionUnitTest {
         assertEquals(Direction.TOP, dir.clockwise());
     }
 
+    @Test
+    public void testIndex() {
+        Direction dir = Direction.TOP;
+        for (int i = 0; i < 8; i++) {
+            assertEquals(i, dir.getIndex());
+            assertSame(dir, Direction.fromIndex(i));
+            dir = dir.clockwise();
+        }
+        assertSame(Direction.TOP, dir);
+        assertEquals(-1, Direction.TOP_LEFT.getRowDelta());
+        assertEquals(-1, Direction.TOP_LEFT.getColDelta());
+        assertEquals(1, Direction.BOTTOM.getRowDelta());
+        assertEquals(0, Direction.BOTTOM.getColDelta());
+    }
+
     @Test
     public void testEquals() {
         assertEquals(Direction.TOP, Direction.TOP);
@@ -0,0 +1,124 @@
+package tests;
+
+import ai.Deadline;
+import ai.EndgameSolver;
+import ai.Hastyn;
+import backend.MockBoard;
+import entities.Stone;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EndgameSolverUnitTest {
+    /**
+     * Solves a position by trying every continuation, without any pruning.
+     *
+     * @return The final stone difference from the side of the player to move.
+     */
+    private static int bruteForce(MockBoard position, boolean passed) {
+        List<int[]> moves = position.getValidMoves();
+        if (moves.isEmpty()) {
+            Stone turn = position.getTurn();
+            if (passed) {
+                return position.countStones(turn) - position.countStones(turn.getOpposite());
+            }
+            MockBoard next = position.copy();
+            next.nextTurn();
+            return -bruteForce(next, true);
+        }
+        int best = Integer.MIN_VALUE;
+        for (int[] move : moves) {
+            MockBoard next = position.copy();
+            next.placeStone(move[0], move[1]);
+            best = Math.max(best, -bruteForce(next, false));
+        }
+        return best;
+    }
+
+    /**
+     * Plays random moves from the starting position until only the given number of squares is empty.
+     */
+    private static MockBoard randomPosition(int size, int empties, Random random) {
+        MockBoard position = MockBoard.startingPosition(size);
+        while (size * size - position.countStones(Stone.BLACK) - position.countStones(Stone.WHITE) > empties) {
+            List<int[]> moves = position.getValidMoves();
+            if (moves.isEmpty()) {
+                position.nextTurn();
+                if (position.getValidMoves().isEmpty()) {
+                    // the game ended early, so start over
+                    position = MockBoard.startingPosition(size);
+                }
+                continue;
+            }
+            int[] move = moves.get(random.nextInt(moves.size()));
+            position.placeStone(move[0], move[1]);
+        }
+        return position;
+    }
+
+    @Test
+    void testSolveMatchesBruteForce() {
+        Random random = new Random(17);
+        EndgameSolver solver = new EndgameSolver();
+        // 4 x 4 and 6 x 6 are solved on bitboards, 10 x 10 on a packed board
+        for (int size : new int[] {4, 6, 10}) {
+            for (int i = 0; i < 30; i++) {
+                MockBoard position = randomPosition(size, 3 + random.nextInt(7), random);
+                MockBoard original = position.copy();
+                int expected = bruteForce(position, false);
+
+                EndgameSolver.Result exact = solver.solve(position, Deadline.none());
+                assertTrue(exact.complete());
+                assertEquals(expected, exact.score(), position.toString());
+                EndgameSolver.Result outcome = solver.solveWinLossDraw(position, Deadline.none());
+                assertEquals(Integer.signum(expected), Integer.signum(outcome.score()), position.toString());
+                assertEquals(original, position);
+
+                // the move found should really lead to that score
+                if (exact.move() >= 0) {
+                    MockBoard next = position.copy();
+                    assertTrue(next.placeStone(exact.move() / size, exact.move() % size) > 0);
+                    assertEquals(expected, -bruteForce(next, false));
+                }
+                else {
+                    assertTrue(position.getValidMoves().isEmpty());
+                }
+            }
+        }
+    }
+
+    @Test
+    void testCanSolve() {
+        EndgameSolver solver = new EndgameSolver(12);
+        assertEquals(12, solver.getMaxEmpties());
+        assertFalse(solver.canSolve(MockBoard.startingPosition(8)));
+        assertTrue(solver.canSolve(MockBoard.startingPosition(4)));
+        assertTrue(solver.canSolve(randomPosition(8, 12, new Random(1))));
+    }
+
+    @Test
+    void testDeadline() {
+        EndgameSolver solver = new EndgameSolver(64);
+        long start = System.nanoTime();
+        EndgameSolver.Result result = solver.solve(MockBoard.startingPosition(8), Deadline.after(100));
+        assertFalse(result.complete());
+        assertTrue(System.nanoTime() - start < 2_000_000_000L);
+        assertTrue(solver.getLastNodes() > 0);
+        assertTrue(solver.getLastNodesPerSecond() > 0);
+    }
+
+    @Test
+    void testHandOff() {
+        MockBoard position = randomPosition(6, 8, new Random(3));
+        int expected = bruteForce(position, false);
+        Hastyn ai = new Hastyn(position.getTurn());
+        ai.setEndgameSolver(new EndgameSolver());
+        int[] move = ai.selectMove(position, Deadline.none());
+        MockBoard next = position.copy();
+        next.placeStone(move[0], move[1]);
+        assertEquals(expected, -bruteForce(next, false));
+    }
+}
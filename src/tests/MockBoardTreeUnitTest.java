@@ -10,6 +10,11 @@ import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 public class MockBoardTreeUnitTest {
@@ -63,6 +68,46 @@ public class MockBoardTreeUnitTest {
         }
     }
 
+    @Test
+    void testGenerateAllOutcomesDuplicates() {
+        MockBoardTree tree = new MockBoardTree(new MockBoard());
+        assertEquals(4, tree.generateAllOutcomes());
+        assertEquals(0, tree.getDuplicateCount());
+        // every move leads to a state that is already a child
+        assertEquals(0, tree.generateAllOutcomes());
+        assertEquals(4, tree.size());
+        assertEquals(4, tree.getDuplicateCount());
+        // the counts of the nodes below are included
+        tree.getChild(0).generateAllOutcomes();
+        int grandchildren = tree.getChild(0).size();
+        assertEquals(0, tree.getChild(0).generateAllOutcomes());
+        assertEquals(grandchildren, tree.getChild(0).getDuplicateCount());
+        assertEquals(4 + grandchildren, tree.getDuplicateCount());
+
+        // a node shared by two parents is counted once
+        MockBoardTree merged = new MockBoardTree(new MockBoard());
+        for (int level = 0; level < 4; level++) {
+            merged.deepGenerateAllOutcomes(true);
+        }
+        Set<MockBoardTree> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        MockBoardTree shared = null;
+        for (int i = 0; i < 12 && shared == null; i++) {
+            MockBoardTree parent = merged.getChild(i / 3).getChild(i % 3);
+            for (int j = 0; j < parent.size() && shared == null; j++) {
+                for (int k = 0; k < parent.getChild(j).size(); k++) {
+                    if (!seen.add(parent.getChild(j).getChild(k))) {
+                        shared = parent.getChild(j).getChild(k);
+                        break;
+                    }
+                }
+            }
+        }
+        assertNotNull(shared);
+        shared.generateAllOutcomes();
+        assertEquals(0, shared.generateAllOutcomes());
+        assertEquals(shared.size(), merged.getDuplicateCount());
+    }
+
     @Test
     void testGenerateAllOutcomesNoMove() {
         MockBoard mBoard = MockBoard.parse("src/tests/no_move_board.txt");
@@ -94,4 +139,80 @@ public class MockBoardTreeUnitTest {
         assertTrue(tree.getChild(0).getChild(0).size() > 0);
         assertEquals(0, tree.getChild(0).getChild(0).getChild(0).size());
     }
+
+    @Test
+    void testDeepGenerateAllOutcomesStopped() {
+        for (boolean merge : new boolean[] {false, true}) {
+            MockBoardTree tree = new MockBoardTree(new MockBoard());
+            tree.deepGenerateAllOutcomes(merge);
+            // stop after the first two leaves
+            int[] checks = {0};
+            int added = tree.deepGenerateAllOutcomes(merge, () -> ++checks[0] > 2);
+            assertEquals(tree.getChild(0).size() + tree.getChild(1).size(), added);
+            assertTrue(tree.getChild(0).size() > 0);
+            assertTrue(tree.getChild(1).size() > 0);
+            assertEquals(0, tree.getChild(2).size());
+            assertEquals(0, tree.getChild(3).size());
+            // the next pass picks up the leaves left behind
+            tree.deepGenerateAllOutcomes(merge, () -> false);
+            assertTrue(tree.getChild(3).size() > 0);
+            assertEquals(0, tree.getChild(3).getChild(0).size());
+        }
+    }
+
+    /**
+     * Collects the distinct nodes a number of turns below a node.
+     */
+    private static void collectNodes(MockBoardTree node, int depth, Set<MockBoardTree> nodes) {
+        if (depth == 0) {
+            nodes.add(node);
+            return;
+        }
+        for (int i = 0; i < node.size(); i++) {
+            collectNodes(node.getChild(i), depth - 1, nodes);
+        }
+    }
+
+    /**
+     * Collects the distinct states a number of turns below a node.
+     */
+    private static Set<MockBoard> collectStates(MockBoardTree node, int depth) {
+        Set<MockBoardTree> nodes = Collections.newSetFromMap(new IdentityHashMap<>());
+        collectNodes(node, depth, nodes);
+        Set<MockBoard> states = new HashSet<>();
+        for (MockBoardTree n : nodes) {
+            states.add(n.getMockBoard());
+        }
+        return states;
+    }
+
+    @Test
+    void testDeepGenerateAllOutcomesMerged() {
+        MockBoardTree tree = new MockBoardTree(new MockBoard());
+        MockBoardTree merged = new MockBoardTree(new MockBoard());
+        int generated = 0;
+        for (int level = 0; level < 5; level++) {
+            tree.deepGenerateAllOutcomes(false);
+            generated += merged.deepGenerateAllOutcomes(true);
+        }
+        // 1 + 4 + 12 + 56 + 244 + 1396 nodes without merging
+        assertEquals(1713, tree.countNodes());
+        assertEquals(generated + 1, merged.countNodes());
+        assertTrue(merged.countNodes() < tree.countNodes());
+        for (int depth = 0; depth <= 5; depth++) {
+            // the same states are reached, but each of them only has one node
+            Set<MockBoard> states = collectStates(tree, depth);
+            assertEquals(states, collectStates(merged, depth));
+            Set<MockBoardTree> nodes = Collections.newSetFromMap(new IdentityHashMap<>());
+            collectNodes(merged, depth, nodes);
+            assertEquals(states.size(), nodes.size());
+        }
+        // shared nodes are expanded once, so the leaves are all one level deeper
+        merged.deepGenerateAllOutcomes(true);
+        Set<MockBoardTree> leaves = Collections.newSetFromMap(new IdentityHashMap<>());
+        collectNodes(merged, 6, leaves);
+        for (MockBoardTree leaf : leaves) {
+            assertEquals(0, leaf.size());
+        }
+    }
 }
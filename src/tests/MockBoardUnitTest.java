@@ -1,7 +1,10 @@
 package tests;
 
+import backend.BitBoard;
 import backend.Board;
 import backend.MockBoard;
+import backend.MoveUndo;
+import backend.Zobrist;
 import entities.Stone;
 import gui.SquarePanel;
 import org.junit.jupiter.api.AfterEach;
@@ -74,6 +77,44 @@ public class MockBoardUnitTest {
         assertNotEquals(mBoard1, mBoard3);
     }
 
+    @Test
+    void testZobrist() {
+        Board board = Board.getInstance();
+        board.getSquareAt(3, 3).place(Stone.WHITE);
+        board.getSquareAt(3, 4).place(Stone.BLACK);
+        board.getSquareAt(4, 3).place(Stone.BLACK);
+        board.getSquareAt(4, 4).place(Stone.WHITE);
+        MockBoard mBoard1 = new MockBoard();
+        MockBoard mBoard2 = new MockBoard();
+        assertEquals(mBoard1.zobrist(), mBoard2.zobrist());
+        assertEquals(mBoard1.hashCode(), mBoard2.hashCode());
+        assertEquals(Zobrist.hash(mBoard1), mBoard1.zobrist());
+
+        // the hash is kept up to date on every change
+        mBoard1.placeStone(2, 3);
+        assertEquals(Zobrist.hash(mBoard1), mBoard1.zobrist());
+        assertNotEquals(mBoard2.zobrist(), mBoard1.zobrist());
+        mBoard1.nextTurn();
+        assertEquals(Zobrist.hash(mBoard1), mBoard1.zobrist());
+        MoveUndo undo = mBoard2.makeMove(2, 3);
+        assertEquals(Zobrist.hash(mBoard2), mBoard2.zobrist());
+        mBoard2.unmakeMove(undo);
+        assertEquals(Zobrist.hash(mBoard2), mBoard2.zobrist());
+
+        // reaching the same position in a different order gives the same hash
+        MockBoard order1 = new MockBoard();
+        order1.placeStone(2, 3);
+        order1.placeStone(2, 2);
+        order1.placeStone(3, 2);
+        MockBoard order2 = new MockBoard();
+        order2.placeStone(3, 2);
+        order2.placeStone(2, 2);
+        order2.placeStone(2, 3);
+        assertEquals(order1, order2);
+        assertEquals(order1.zobrist(), order2.zobrist());
+        assertEquals(new BitBoard(order1).zobrist(), order1.zobrist());
+    }
+
     @Nested
     class testPlaceStone {
         @Test
@@ -156,6 +197,54 @@ public class MockBoardUnitTest {
         assertNotEquals(mBoard1, mBoard2);
     }
 
+    @Test
+    void testMakeUnmakeMove() {
+        Board.getInstance().getSquareAt(0, 0).place(Stone.BLACK);
+        Board.getInstance().getSquareAt(0, 1).place(Stone.WHITE);
+        Board.getInstance().getSquareAt(1, 1).place(Stone.WHITE);
+        MockBoard mBoard = new MockBoard();
+        MockBoard original = mBoard.copy();
+        assertNull(mBoard.makeMove(0, 0));
+        assertNull(mBoard.makeMove(5, 5));
+        assertEquals(original, mBoard);
+
+        MoveUndo undo = mBoard.makeMove(0, 2);
+        assertNotNull(undo);
+        assertEquals(2, undo.getSquare());
+        assertEquals(1, undo.getFlipCount());
+        assertEquals(Stone.BLACK, mBoard.getStoneAt(0, 1));
+        assertEquals(Stone.WHITE, mBoard.getTurn());
+        mBoard.unmakeMove(undo);
+        assertEquals(original, mBoard);
+
+        // take back two moves in a row
+        MoveUndo first = mBoard.makeMove(2, 2);
+        MoveUndo second = mBoard.makeMove(2, 1);
+        assertNotNull(first);
+        assertNotNull(second);
+        mBoard.unmakeMove(second);
+        mBoard.unmakeMove(first);
+        assertEquals(original, mBoard);
+    }
+
+    @Test
+    void testEvaluationTerms() {
+        Board board = Board.getInstance();
+        board.getSquareAt(0, 0).place(Stone.BLACK);
+        board.getSquareAt(0, 1).place(Stone.BLACK);
+        board.getSquareAt(0, 2).place(Stone.WHITE);
+        board.getSquareAt(1, 0).place(Stone.WHITE);
+        board.getSquareAt(1, 1).place(Stone.WHITE);
+        MockBoard mBoard = new MockBoard();
+        assertEquals(mBoard.getValidMoves().size(), mBoard.countValidMoves());
+        // the corner anchors the stone next to it along the edge
+        assertEquals(2, mBoard.countStableStones(Stone.BLACK));
+        assertEquals(0, mBoard.countStableStones(Stone.WHITE));
+        // empty squares next to the white stones, and next to the black ones
+        assertEquals(6, mBoard.countPotentialMobility(Stone.BLACK));
+        assertEquals(1, mBoard.countPotentialMobility(Stone.WHITE));
+    }
+
     @Nested
     class testGetValidMoves {
         @Test
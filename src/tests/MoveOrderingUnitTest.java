@@ -0,0 +1,83 @@
+package tests;
+
+import ai.MoveOrdering;
+import ai.Prunella;
+import backend.MockBoard;
+import backend.TranspositionTable;
+import entities.Stone;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MoveOrderingUnitTest {
+    /** Squares of an 8 x 8 board as {@code row * 8 + col}. */
+    private static final int CORNER = 0, X_SQUARE = 9, C_SQUARE = 1, EDGE = 3, MIDDLE = 19, OTHER = 20;
+
+    @Test
+    void testSquareWeights() {
+        MoveOrdering ordering = new MoveOrdering(8, 4);
+        int[] moves = {MIDDLE, X_SQUARE, EDGE, C_SQUARE, CORNER};
+        ordering.order(moves, moves.length, 0, TranspositionTable.NO_MOVE);
+        assertArrayEquals(new int[] {CORNER, EDGE, MIDDLE, C_SQUARE, X_SQUARE}, moves);
+    }
+
+    @Test
+    void testTableMoveAndKillers() {
+        MoveOrdering ordering = new MoveOrdering(8, 4);
+        ordering.recordCutoff(OTHER, 1, 1, 3);
+        ordering.recordCutoff(X_SQUARE, 1, 1, 2);
+        int[] moves = {CORNER, OTHER, EDGE, X_SQUARE, MIDDLE};
+        ordering.order(moves, moves.length, 1, MIDDLE);
+        assertArrayEquals(new int[] {MIDDLE, X_SQUARE, OTHER, CORNER, EDGE}, moves);
+
+        // killers belong to their ply, while history is shared by all of them
+        moves = new int[] {CORNER, OTHER, EDGE, X_SQUARE, MIDDLE};
+        ordering.order(moves, moves.length, 2, TranspositionTable.NO_MOVE);
+        assertArrayEquals(new int[] {CORNER, EDGE, OTHER, MIDDLE, X_SQUARE}, moves);
+
+        // only the count is ordered
+        moves = new int[] {MIDDLE, CORNER, X_SQUARE};
+        ordering.order(moves, 2, 0, TranspositionTable.NO_MOVE);
+        assertArrayEquals(new int[] {CORNER, MIDDLE, X_SQUARE}, moves);
+    }
+
+    @Test
+    void testHistory() {
+        MoveOrdering ordering = new MoveOrdering(8, 4);
+        // cutoffs with more depth left count for more
+        for (int ply = 1; ply < 4; ply++) {
+            ordering.recordCutoff(MIDDLE, ply, 1, 1);
+        }
+        ordering.recordCutoff(OTHER, 3, 30, 1);
+        ordering.recordCutoff(EDGE, 3, 30, 1);
+        int[] moves = {CORNER, MIDDLE, OTHER};
+        ordering.order(moves, moves.length, 0, TranspositionTable.NO_MOVE);
+        assertArrayEquals(new int[] {OTHER, CORNER, MIDDLE}, moves);
+
+        // the counts are halved when they grow too large, but keep their order
+        for (int i = 0; i < 100_000; i++) {
+            ordering.recordCutoff(OTHER, 3, 20, 0);
+        }
+        moves = new int[] {CORNER, MIDDLE, OTHER, EDGE};
+        ordering.order(moves, moves.length, 0, TranspositionTable.NO_MOVE);
+        assertArrayEquals(new int[] {OTHER, CORNER, EDGE, MIDDLE}, moves);
+    }
+
+    @Test
+    void testCutoffRate() {
+        MoveOrdering ordering = new MoveOrdering(8, 4);
+        assertEquals(0.0, ordering.getFirstMoveCutoffRate());
+        ordering.recordCutoff(CORNER, 0, 1, 0);
+        ordering.recordCutoff(CORNER, 0, 1, 0);
+        ordering.recordCutoff(EDGE, 0, 1, 0);
+        ordering.recordCutoff(MIDDLE, 0, 1, 2);
+        assertEquals(4, ordering.getCutoffs());
+        assertEquals(3, ordering.getFirstMoveCutoffs());
+        assertEquals(0.75, ordering.getFirstMoveCutoffRate());
+
+        Prunella prunella = new Prunella(Stone.BLACK, 0, 2);
+        prunella.timeToDepth(MockBoard.startingPosition(8), 6);
+        assertTrue(prunella.getLastFirstMoveCutoffRate() > 0.5);
+        assertTrue(prunella.getLastFirstMoveCutoffRate() <= 1.0);
+    }
+}
@@ -0,0 +1,125 @@
+package tests;
+
+import ai.Deadline;
+import ai.Hastyn;
+import backend.BitBoard;
+import backend.MockBoard;
+import backend.OpeningBook;
+import entities.Stone;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import tools.OpeningBookBuilder;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OpeningBookUnitTest {
+    Path archive;
+    Path book;
+
+    @BeforeEach
+    void initialize() throws IOException {
+        this.archive = Files.createTempFile("archive", ".txt");
+        this.book = Files.createTempFile("book", ".bin");
+        try (PrintWriter out = new PrintWriter(this.archive.toFile())) {
+            // the same game twice, and a game opening with a symmetric move
+            out.println("f5d6c3d3c4");
+            out.println("f5d6c3d3c4");
+            out.println("");
+            out.println("d3c5");
+        }
+    }
+
+    @AfterEach
+    void reset() throws IOException {
+        Files.deleteIfExists(this.archive);
+        Files.deleteIfExists(this.book);
+    }
+
+    @Test
+    void testTransform() {
+        for (int symmetry = 0; symmetry < OpeningBook.SYMMETRIES; symmetry++) {
+            boolean[] seen = new boolean[64];
+            for (int square = 0; square < 64; square++) {
+                int moved = OpeningBook.transform(square, 8, symmetry);
+                assertFalse(seen[moved]);
+                seen[moved] = true;
+            }
+        }
+        // a quarter turn clockwise takes the top left corner to the top right
+        assertEquals(7, OpeningBook.transform(0, 8, 1));
+        assertEquals(0, OpeningBook.transform(7, 8, 3));
+    }
+
+    @Test
+    void testCanonicalHash() {
+        // all four first moves of the game lead to the same position up to symmetry
+        MockBoard start = MockBoard.startingPosition(8);
+        long hash = 0L;
+        for (int[] move : start.getValidMoves()) {
+            MockBoard next = start.copy();
+            next.placeStone(move[0], move[1]);
+            if (hash == 0L) {
+                hash = OpeningBook.canonicalHash(next);
+            }
+            assertEquals(hash, OpeningBook.canonicalHash(next));
+            assertEquals(hash, OpeningBook.canonicalHash(new BitBoard(next)));
+        }
+    }
+
+    @Test
+    void testBuildAndLookUp() throws IOException {
+        OpeningBookBuilder builder = new OpeningBookBuilder(8, 4);
+        builder.addArchive(this.archive);
+        assertEquals(3, builder.getGameCount());
+        // the start, after f5, after f5d6 and after f5d6c3 were seen twice
+        assertEquals(4, builder.write(this.book, 2));
+
+        OpeningBook openingBook = OpeningBook.open(this.book);
+        assertEquals(4, openingBook.size());
+        assertEquals(8, openingBook.getSize());
+        MockBoard position = MockBoard.startingPosition(8);
+        int move = openingBook.getMove(position);
+        assertTrue(move == 4 * 8 + 5 || move == 2 * 8 + 3 || move == 3 * 8 + 2 || move == 5 * 8 + 4);
+        assertTrue(openingBook.getVisits(position) >= 2);
+
+        // after d3, the book answers c5 instead of d6 as it's the same position turned around,
+        // so the game starting with d3 c5 counts towards the same move
+        position.placeStone(2, 3);
+        assertEquals(4 * 8 + 2, openingBook.getMove(position));
+        assertEquals(3, openingBook.getVisits(position));
+
+        // positions not in the book, or of other sizes, are not found
+        position = MockBoard.startingPosition(8);
+        position.placeStone(4, 5);
+        position.placeStone(5, 5);
+        assertEquals(OpeningBook.NO_MOVE, openingBook.getMove(position));
+        assertEquals(OpeningBook.NO_MOVE, openingBook.getMove(MockBoard.startingPosition(10)));
+    }
+
+    @Test
+    void testAIUsesBook() throws IOException {
+        OpeningBookBuilder builder = new OpeningBookBuilder(8, 4);
+        builder.addArchive(this.archive);
+        builder.write(this.book, 2);
+        Hastyn hastyn = new Hastyn(Stone.WHITE);
+        hastyn.setOpeningBook(OpeningBook.open(this.book), 4);
+        MockBoard position = MockBoard.startingPosition(8);
+        position.placeStone(4, 5);
+        // Hastyn alone would pick any of the three moves flipping one stone
+        for (int i = 0; i < 10; i++) {
+            assertArrayEquals(new int[] {5, 3}, hastyn.selectMove(position, Deadline.none()));
+        }
+    }
+
+    @Test
+    void testInvalidFile() throws IOException {
+        Files.writeString(this.book, "not a book at all");
+        assertThrows(IOException.class, () -> OpeningBook.open(this.book));
+    }
+}
@@ -0,0 +1,140 @@
+package tests;
+
+import backend.BitBoard;
+import backend.MockBoard;
+import backend.MockBoardTree;
+import backend.PackedBoard;
+import backend.PackedBoardTree;
+import entities.Stone;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PackedBoardTreeUnitTest {
+    /**
+     * Checks that a node of a {@code PackedBoardTree} holds the same subtree as a node of a {@code MockBoardTree}.
+     *
+     * @return The number of nodes in the subtree.
+     */
+    private static int assertSameTree(MockBoardTree expected, PackedBoardTree tree, int node) {
+        MockBoard board = expected.getMockBoard();
+        assertEquals(board.getTurn(), tree.getTurn(node));
+        assertEquals(board.countStones(Stone.BLACK), tree.countStones(node, Stone.BLACK));
+        assertEquals(board.countStones(Stone.WHITE), tree.countStones(node, Stone.WHITE));
+        assertEquals(new PackedBoard(board), tree.getBoard(node));
+        assertEquals(board.zobrist(), tree.getBoard(node).zobrist());
+        int[] move = expected.getPreviousMove();
+        assertEquals(move == null ? PackedBoardTree.NO_MOVE : move[0] * board.getSize() + move[1], tree.getPreviousMove(node));
+        assertEquals(expected.size(), tree.getChildCount(node));
+        int nodes = 1;
+        for (int i = 0; i < expected.size(); i++) {
+            int child = tree.getChild(node, i);
+            assertEquals(node, tree.getParent(child));
+            nodes += assertSameTree(expected.getChild(i), tree, child);
+        }
+        return nodes;
+    }
+
+    @Test
+    void testConstructor() {
+        MockBoard start = MockBoard.startingPosition(8);
+        PackedBoardTree tree = new PackedBoardTree(start);
+        int root = tree.getRoot();
+        assertEquals(1, tree.getNodeCount());
+        assertEquals(PackedBoardTree.NO_NODE, tree.getParent(root));
+        assertEquals(PackedBoardTree.NO_NODE, tree.getFirstChild(root));
+        assertEquals(PackedBoardTree.NO_MOVE, tree.getPreviousMove(root));
+        assertEquals(0, tree.getChildCount(root));
+        assertEquals(new BitBoard(start), new BitBoard(tree.getBoard(root)));
+        assertThrows(IndexOutOfBoundsException.class, () -> tree.getChild(root, 0));
+    }
+
+    @Test
+    void testGenerateAllOutcomes() {
+        PackedBoardTree tree = new PackedBoardTree(MockBoard.startingPosition(8));
+        int root = tree.getRoot();
+        assertEquals(4, tree.generateAllOutcomes(root));
+        assertEquals(0, tree.generateAllOutcomes(root));
+        assertEquals(4, tree.getChildCount(root));
+        int[] validMoves = {2 * 8 + 3, 3 * 8 + 2, 4 * 8 + 5, 5 * 8 + 4};
+        int child = tree.getFirstChild(root);
+        for (int move : validMoves) {
+            assertEquals(move, tree.getPreviousMove(child));
+            assertEquals(Stone.BLACK, tree.getBoard(child).getStoneAt(move / 8, move % 8));
+            assertEquals(Stone.WHITE, tree.getTurn(child));
+            assertEquals(4, tree.countStones(child, Stone.BLACK));
+            child = tree.getNextSibling(child);
+        }
+        assertEquals(PackedBoardTree.NO_NODE, child);
+    }
+
+    @Test
+    void testGenerateAllOutcomesNoMove() {
+        MockBoard mBoard = MockBoard.parse("src/tests/no_move_board.txt");
+        PackedBoardTree tree = new PackedBoardTree(mBoard);
+        assertEquals(1, tree.generateAllOutcomes(tree.getRoot()));
+        assertEquals(0, tree.generateAllOutcomes(tree.getRoot()));
+        assertEquals(1, tree.getChildCount(tree.getRoot()));
+        int child = tree.getFirstChild(tree.getRoot());
+        assertEquals(tree.getRoot(), tree.getParent(child));
+        assertEquals(PackedBoardTree.NO_MOVE, tree.getPreviousMove(child));
+        assertEquals(Stone.BLACK, tree.getTurn(child));
+        assertEquals(mBoard.countStones(Stone.WHITE), tree.countStones(child, Stone.WHITE));
+        assertEquals(mBoard.countStones(Stone.BLACK), tree.countStones(child, Stone.BLACK));
+    }
+
+    @Test
+    void testGetBoardHash() {
+        PackedBoardTree tree = new PackedBoardTree(MockBoard.startingPosition(10));
+        tree.deepGenerateAllOutcomes();
+        // the hash of an unpacked board is worked out when asked for, even after more moves
+        PackedBoard board = tree.getBoard(tree.getChild(tree.getRoot(), 0));
+        int[] move = board.getValidMoves().get(0);
+        board.makeMove(move[0], move[1]);
+        board.nextTurn();
+        PackedBoard copy = board.copy();
+        assertEquals(new PackedBoard(board).zobrist(), board.zobrist());
+        assertEquals(board.zobrist(), copy.zobrist());
+        assertEquals(board.hashCode(), new PackedBoard(board).hashCode());
+    }
+
+    @Test
+    void testDeepGenerateAllOutcomesStopped() {
+        PackedBoardTree tree = new PackedBoardTree(MockBoard.startingPosition(8));
+        tree.deepGenerateAllOutcomes();
+        int root = tree.getRoot();
+        // stop after the first leaf
+        int[] checks = {0};
+        assertEquals(3, tree.deepGenerateAllOutcomes(() -> ++checks[0] > 1));
+        assertEquals(3, tree.getChildCount(tree.getChild(root, 0)));
+        assertEquals(0, tree.getChildCount(tree.getChild(root, 1)));
+        // the next pass picks up the leaves left behind
+        tree.deepGenerateAllOutcomes(() -> false);
+        for (int i = 1; i < 4; i++) {
+            assertEquals(3, tree.getChildCount(tree.getChild(root, i)));
+        }
+        assertTrue(tree.getChildCount(tree.getChild(tree.getChild(root, 0), 0)) > 0);
+    }
+
+    @Test
+    void testDeepGenerateAllOutcomesMatchesMockBoardTree() {
+        for (int size : new int[] {4, 8, 10}) {
+            MockBoard start = MockBoard.startingPosition(size);
+            MockBoardTree expected = new MockBoardTree(start);
+            PackedBoardTree tree = new PackedBoardTree(start);
+            for (int level = 0; level < 4; level++) {
+                expected.deepGenerateAllOutcomes();
+                assertTrue(tree.deepGenerateAllOutcomes() > 0);
+            }
+            assertEquals(tree.getNodeCount(), assertSameTree(expected, tree, tree.getRoot()));
+        }
+        // 1 + 4 + 12 + 56 + 244 nodes, which grows the arrays a few times
+        PackedBoardTree tree = new PackedBoardTree(MockBoard.startingPosition(8));
+        for (int level = 0; level < 4; level++) {
+            tree.deepGenerateAllOutcomes();
+        }
+        assertEquals(317, tree.getNodeCount());
+        // room for 64 * 1.5^4 = 324 nodes of 33 bytes each on an 8 x 8 board
+        assertEquals(324 * 33, tree.getMemoryBytes());
+    }
+}
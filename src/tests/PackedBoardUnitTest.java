@@ -0,0 +1,155 @@
+package tests;
+
+import backend.BitBoard;
+import backend.Board;
+import backend.BoardState;
+import backend.MockBoard;
+import backend.MoveUndo;
+import backend.PackedBoard;
+import entities.Stone;
+import gui.SquarePanel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PackedBoardUnitTest {
+    @AfterEach
+    void reset() {
+        Board.reset();
+        SquarePanel.resetSquareSize();
+    }
+
+    /**
+     * Initializes the Board singleton with the 4 starting stones in the middle.
+     *
+     * @param size The size of the board.
+     */
+    void initialize(int size) {
+        Board.initialize(size);
+        int topLeft = size / 2 - 1;
+        Board.getInstance().getSquareAt(topLeft, topLeft).place(Stone.WHITE);
+        Board.getInstance().getSquareAt(topLeft, topLeft + 1).place(Stone.BLACK);
+        Board.getInstance().getSquareAt(topLeft + 1, topLeft).place(Stone.BLACK);
+        Board.getInstance().getSquareAt(topLeft + 1, topLeft + 1).place(Stone.WHITE);
+    }
+
+    @Test
+    void testConstructor() {
+        this.initialize(24);
+        MockBoard mBoard = new MockBoard();
+        PackedBoard pBoard = new PackedBoard();
+        assertEquals(mBoard.toString(), pBoard.toString());
+        assertEquals(24, pBoard.getSize());
+        assertEquals(9, pBoard.getWordCount());
+        assertEquals(2, pBoard.countStones(Stone.BLACK));
+        assertEquals(2, pBoard.countStones(Stone.WHITE));
+        assertNull(pBoard.getStoneAt(24, 0));
+    }
+
+    @Test
+    void testGetValidMoves() {
+        this.initialize(16);
+        PackedBoard pBoard = new PackedBoard();
+        List<int[]> result = pBoard.getValidMoves();
+        int[][] expected = {{6, 7}, {7, 6}, {8, 9}, {9, 8}};
+        assertEquals(expected.length, result.size());
+        for (int i = 0; i < expected.length; i++) {
+            assertArrayEquals(expected[i], result.get(i));
+        }
+    }
+
+    @Test
+    void testMatchesMockBoard() {
+        for (int size = 4; size <= 24; size += 4) {
+            this.initialize(size);
+            MockBoard mBoard = new MockBoard();
+            PackedBoard pBoard = new PackedBoard();
+            // play the same game on both boards until it ends
+            int passes = 0;
+            int turn = 0;
+            while (passes < 2) {
+                List<int[]> mMoves = mBoard.getValidMoves();
+                List<int[]> pMoves = pBoard.getValidMoves();
+                assertEquals(mMoves.size(), pMoves.size());
+                if (mMoves.isEmpty()) {
+                    mBoard.nextTurn();
+                    pBoard.nextTurn();
+                    passes++;
+                    continue;
+                }
+                passes = 0;
+                int[] move = mMoves.get(turn++ % mMoves.size());
+                assertArrayEquals(move, pMoves.get((turn - 1) % pMoves.size()));
+                assertEquals(mBoard.placeStone(move[0], move[1]), pBoard.placeStone(move[0], move[1]));
+                assertEquals(mBoard.toString(), pBoard.toString());
+            }
+            assertEquals(mBoard.countStones(Stone.BLACK), pBoard.countStones(Stone.BLACK));
+            assertEquals(mBoard.countStones(Stone.WHITE), pBoard.countStones(Stone.WHITE));
+            this.reset();
+        }
+    }
+
+    @Test
+    void testEvaluationTermsMatchMockBoard() {
+        for (int size = 6; size <= 24; size += 6) {
+            // follow one line of play, stepping back a move now and then so that remembered stable stones are reused
+            MockBoard mBoard = MockBoard.startingPosition(size);
+            PackedBoard pBoard = new PackedBoard(mBoard);
+            Deque<MoveUndo[]> undos = new ArrayDeque<>();
+            Random random = new Random(size);
+            int passes = 0;
+            while (passes < 2) {
+                for (Stone stone : new Stone[] {Stone.BLACK, Stone.WHITE}) {
+                    assertEquals(mBoard.countStableStones(stone), pBoard.countStableStones(stone));
+                    assertEquals(mBoard.countPotentialMobility(stone), pBoard.countPotentialMobility(stone));
+                }
+                assertEquals(mBoard.countValidMoves(), pBoard.countValidMoves());
+                List<int[]> moves = mBoard.getValidMoves();
+                if (moves.isEmpty()) {
+                    mBoard.nextTurn();
+                    pBoard.nextTurn();
+                    passes++;
+                    continue;
+                }
+                passes = 0;
+                if (!undos.isEmpty() && random.nextInt(4) == 0) {
+                    MoveUndo[] undo = undos.pop();
+                    mBoard.unmakeMove(undo[0]);
+                    pBoard.unmakeMove(undo[1]);
+                    continue;
+                }
+                int[] move = moves.get(random.nextInt(moves.size()));
+                undos.push(new MoveUndo[] {mBoard.makeMove(move[0], move[1]), pBoard.makeMove(move[0], move[1])});
+            }
+        }
+    }
+
+    @Test
+    void testCopy() {
+        this.initialize(12);
+        PackedBoard pBoard1 = new PackedBoard();
+        PackedBoard pBoard2 = pBoard1.copy();
+        assertEquals(pBoard1, pBoard2);
+        assertEquals(pBoard1.hashCode(), pBoard2.hashCode());
+        assertNotSame(pBoard1, pBoard2);
+        assertEquals(1, pBoard2.placeStone(4, 5));
+        assertNotEquals(pBoard1, pBoard2);
+    }
+
+    @Test
+    void testCompactCopyOf() {
+        this.initialize(8);
+        assertTrue(BoardState.compactCopyOf(new MockBoard()) instanceof BitBoard);
+        this.reset();
+        this.initialize(10);
+        BoardState compact = BoardState.compactCopyOf(new MockBoard());
+        assertTrue(compact instanceof PackedBoard);
+        assertEquals(new MockBoard().toString(), compact.toString());
+    }
+}
@@ -0,0 +1,162 @@
+package tests;
+
+import ai.Hastyn;
+import ai.PatternEvaluator;
+import ai.Prunella;
+import backend.BitBoard;
+import backend.MockBoard;
+import backend.PackedBoard;
+import entities.Stone;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import tools.PatternWeightsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PatternEvaluatorUnitTest {
+    Path weights;
+
+    @BeforeEach
+    void initialize() throws IOException {
+        this.weights = Files.createTempFile("patterns", ".bin");
+    }
+
+    @AfterEach
+    void reset() throws IOException {
+        Files.deleteIfExists(this.weights);
+    }
+
+    /**
+     * Makes weight tables filled with random weights.
+     */
+    private static short[][][] randomWeights(int size, int stages, long seed) {
+        Random random = new Random(seed);
+        int[] lengths = PatternEvaluator.patternLengths(size);
+        short[][][] weights = new short[stages][lengths.length][];
+        for (int stage = 0; stage < stages; stage++) {
+            for (int p = 0; p < lengths.length; p++) {
+                weights[stage][p] = new short[(int) Math.pow(3, lengths[p])];
+                for (int index = 0; index < weights[stage][p].length; index++) {
+                    weights[stage][p][index] = (short) (random.nextInt(201) - 100);
+                }
+            }
+        }
+        return weights;
+    }
+
+    @Test
+    void testPatterns() {
+        for (int size = 4; size <= 24; size += 2) {
+            int[] lengths = PatternEvaluator.patternLengths(size);
+            for (int pattern : PatternEvaluator.getPlacementPatterns(size)) {
+                assertTrue(pattern >= 0 && pattern < lengths.length);
+            }
+            for (int length : lengths) {
+                assertTrue(length <= 10);
+            }
+        }
+        // every pattern is placed in all eight ways, except the long diagonal which is its own mirror
+        assertEquals(84, PatternEvaluator.getPlacementPatterns(8).length);
+    }
+
+    @Test
+    void testEvaluate() {
+        int[] lengths = PatternEvaluator.patternLengths(8);
+        short[][][] weights = new short[1][lengths.length][];
+        for (int p = 0; p < lengths.length; p++) {
+            weights[0][p] = new short[(int) Math.pow(3, lengths[p])];
+            // only an empty placement scores
+            weights[0][p][0] = 1;
+        }
+        PatternEvaluator evaluator = PatternEvaluator.of(8, weights);
+        MockBoard start = MockBoard.startingPosition(8);
+        // the fourth lines from the edges and the two longest diagonals reach the stones in the middle
+        assertEquals(64, evaluator.evaluate(start));
+        assertEquals(64, evaluator.evaluate(new BitBoard(start)));
+        assertThrows(IllegalArgumentException.class, () -> PatternEvaluator.of(8, new short[1][1][1]));
+    }
+
+    @Test
+    void testSymmetry() {
+        PatternEvaluator evaluator = PatternEvaluator.of(8, randomWeights(8, 2, 1));
+        // all four first moves of the game lead to the same position up to symmetry
+        MockBoard start = MockBoard.startingPosition(8);
+        Integer score = null;
+        for (int[] move : start.getValidMoves()) {
+            MockBoard next = start.copy();
+            next.placeStone(move[0], move[1]);
+            if (score == null) {
+                score = evaluator.evaluate(next);
+            }
+            assertEquals(score, evaluator.evaluate(next));
+        }
+    }
+
+    @Test
+    void testEvaluateBoardTypes() {
+        Random random = new Random(7);
+        for (int size : new int[] {8, 12}) {
+            PatternEvaluator evaluator = PatternEvaluator.of(size, randomWeights(size, 3, 4));
+            int[] indices = new int[PatternEvaluator.getPlacementPatterns(size).length];
+            MockBoard position = MockBoard.startingPosition(size);
+            // play a random game, reading the stones square by square and from the bitsets
+            while (!position.getValidMoves().isEmpty()) {
+                int score = evaluator.evaluate(position);
+                assertEquals(score, evaluator.evaluate(new PackedBoard(position), indices));
+                if (size <= BitBoard.MAX_SIZE) {
+                    assertEquals(score, evaluator.evaluate(new BitBoard(position), indices));
+                }
+                int[] move = position.getValidMoves().get(random.nextInt(position.getValidMoves().size()));
+                position.placeStone(move[0], move[1]);
+            }
+        }
+    }
+
+    @Test
+    void testStage() throws IOException {
+        PatternEvaluator evaluator = PatternEvaluator.of(4, randomWeights(4, 4, 2));
+        assertEquals(4, evaluator.getStageCount());
+        assertEquals(0, evaluator.getStage(MockBoard.startingPosition(4)));
+        Files.writeString(this.weights, "B\n4\nBBBB\nBWWB\nBWWB\nBBB*\n");
+        assertEquals(3, evaluator.getStage(MockBoard.parse(this.weights.toString())));
+        assertEquals(1, PatternEvaluator.stageOf(MockBoard.parse(this.weights.toString()), 2));
+    }
+
+    @Test
+    void testWriteAndLoad() throws IOException {
+        PatternEvaluator evaluator = PatternEvaluator.of(8, randomWeights(8, 3, 3));
+        evaluator.write(this.weights);
+        PatternEvaluator loaded = PatternEvaluator.load(this.weights);
+        assertEquals(8, loaded.getSize());
+        assertEquals(3, loaded.getStageCount());
+        MockBoard position = MockBoard.parse("src/tests/no_move_board.txt");
+        assertEquals(evaluator.evaluate(position), loaded.evaluate(position));
+
+        Files.write(this.weights, new byte[] {1, 2, 3});
+        assertThrows(IOException.class, () -> PatternEvaluator.load(this.weights));
+    }
+
+    @Test
+    void testBuilder() throws IOException {
+        PatternWeightsBuilder builder = new PatternWeightsBuilder(6, 2);
+        builder.addSelfPlay(Hastyn::new, 20, 4);
+        assertEquals(20, builder.getGameCount());
+        assertTrue(builder.getPositionCount() >= 20);
+        double first = builder.train(1, 0.05, 0);
+        double later = builder.train(10, 0.05, 0);
+        assertTrue(later < first);
+        builder.build().write(this.weights);
+
+        // Prunella plays with the weights on their board size
+        Prunella prunella = new Prunella(Stone.BLACK, 50);
+        prunella.setEvaluator(PatternEvaluator.load(this.weights));
+        assertNotNull(prunella.findMove(MockBoard.startingPosition(6)));
+        assertNotNull(prunella.findMove(MockBoard.startingPosition(8)));
+    }
+}
@@ -0,0 +1,51 @@
+package tests;
+
+import backend.BitBoard;
+import backend.BoardState;
+import backend.MockBoard;
+import backend.PackedBoard;
+import org.junit.jupiter.api.Test;
+import tools.Perft;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PerftUnitTest {
+    @Test
+    void testKnownCounts() {
+        MockBoard start = MockBoard.startingPosition(8);
+        BoardState[] boards = {start, new BitBoard(start), new PackedBoard(start)};
+        for (BoardState board : boards) {
+            for (int depth = 0; depth <= 7; depth++) {
+                assertEquals(Perft.KNOWN_COUNTS[depth], Perft.count(board, depth));
+            }
+        }
+        assertEquals(MockBoard.startingPosition(8), start);
+    }
+
+    @Test
+    void testCountParallel() {
+        MockBoard start = MockBoard.startingPosition(8);
+        assertEquals(Perft.KNOWN_COUNTS[7], Perft.countParallel(start, 7, 4));
+        assertEquals(Perft.KNOWN_COUNTS[1], Perft.countParallel(start, 1, 4));
+    }
+
+    @Test
+    void testRepresentationsAgree() {
+        for (int size : new int[] {4, 6, 10}) {
+            MockBoard start = MockBoard.startingPosition(size);
+            long expected = Perft.count(start, 5);
+            assertEquals(expected, Perft.count(new PackedBoard(start), 5));
+            if (size <= BitBoard.MAX_SIZE) {
+                assertEquals(expected, Perft.count(new BitBoard(start), 5));
+            }
+        }
+    }
+
+    @Test
+    void testPass() {
+        // every 4 x 4 game is over within 15 plies, after which every position only passes
+        MockBoard start = MockBoard.startingPosition(4);
+        assertEquals(60060, Perft.count(start, 15));
+        assertEquals(60060, Perft.count(start, 20));
+    }
+}
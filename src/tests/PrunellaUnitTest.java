@@ -0,0 +1,51 @@
+package tests;
+
+import ai.Prunella;
+import backend.MockBoard;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PrunellaUnitTest {
+    /**
+     * Reaches a midgame position by a fixed line of play.
+     */
+    private static MockBoard midgame(int size, int plies) {
+        MockBoard position = MockBoard.startingPosition(size);
+        for (int i = 0; i < plies; i++) {
+            List<int[]> moves = position.getValidMoves();
+            int[] move = moves.get(5 * i % moves.size());
+            position.placeStone(move[0], move[1]);
+        }
+        return position;
+    }
+
+    @Test
+    void testThreadsAgreeOnScore() {
+        MockBoard position = midgame(8, 20);
+        Prunella single = new Prunella(position.getTurn(), 0, 1);
+        single.timeToDepth(position, 6);
+        assertEquals(6, single.getLastDepth());
+        for (int threads : new int[] {2, 4}) {
+            // the helpers share the table and search in another order, but a fixed depth has one true score
+            Prunella parallel = new Prunella(position.getTurn(), 0, threads);
+            parallel.timeToDepth(position, 6);
+            assertEquals(6, parallel.getLastDepth());
+            assertEquals(single.getLastScore(), parallel.getLastScore(), threads + " threads");
+        }
+        assertEquals(midgame(8, 20), position);
+    }
+
+    @Test
+    void testFindsForcedWin() {
+        // white only wins by taking the bottom right corner, and wins by 4 stones with it
+        MockBoard position = MockBoard.parse("src/tests/corner_win_board.txt");
+        for (int threads : new int[] {1, 4}) {
+            Prunella prunella = new Prunella(position.getTurn(), 10_000, threads);
+            assertArrayEquals(new int[] {5, 5}, prunella.findMove(position));
+            assertEquals(Prunella.WIN_SCORE + 4, prunella.getLastScore());
+        }
+    }
+}
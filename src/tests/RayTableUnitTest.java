@@ -0,0 +1,40 @@
+package tests;
+
+import backend.RayTable;
+import entities.Direction;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RayTableUnitTest {
+    @Test
+    public void testShared() {
+        assertSame(RayTable.forSize(8), RayTable.forSize(8));
+        assertNotSame(RayTable.forSize(8), RayTable.forSize(10));
+        assertEquals(10, RayTable.forSize(10).getSize());
+        assertThrows(IllegalArgumentException.class, () -> RayTable.forSize(0));
+        assertThrows(IllegalArgumentException.class, () -> RayTable.forSize(26));
+    }
+
+    @Test
+    public void testRays() {
+        RayTable table = RayTable.forSize(8);
+        int start = 2 * 8 + 2;
+        assertArrayEquals(new int[] {10, 2}, table.getRay(start, Direction.TOP.getIndex()));
+        assertArrayEquals(new int[] {11, 4}, table.getRay(start, Direction.TOP_RIGHT.getIndex()));
+        assertArrayEquals(new int[] {19, 20, 21, 22, 23}, table.getRay(start, Direction.RIGHT.getIndex()));
+        assertArrayEquals(new int[] {27, 36, 45, 54, 63}, table.getRay(start, Direction.BOTTOM_RIGHT.getIndex()));
+        assertArrayEquals(new int[] {17, 16}, table.getRay(start, Direction.LEFT.getIndex()));
+        assertArrayEquals(new int[] {9, 0}, table.getRay(start, Direction.TOP_LEFT.getIndex()));
+        assertEquals(0, table.getRay(0, Direction.TOP.getIndex()).length);
+    }
+
+    @Test
+    public void testNeighbor() {
+        RayTable table = RayTable.forSize(4);
+        assertEquals(1, table.getNeighbor(0, Direction.RIGHT.getIndex()));
+        assertEquals(5, table.getNeighbor(0, Direction.BOTTOM_RIGHT.getIndex()));
+        assertEquals(-1, table.getNeighbor(0, Direction.LEFT.getIndex()));
+        assertEquals(-1, table.getNeighbor(15, Direction.BOTTOM.getIndex()));
+    }
+}
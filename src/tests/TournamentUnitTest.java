@@ -0,0 +1,43 @@
+package tests;
+
+import ai.Hastyn;
+import ai.Randomazo;
+import org.junit.jupiter.api.Test;
+import tools.Tournament;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TournamentUnitTest {
+    @Test
+    void testRun() {
+        Tournament tournament = new Tournament(List.of(
+                new Tournament.Entrant("Randomazo", Randomazo::new),
+                new Tournament.Entrant("Hastyn", Hastyn::new)), new int[] {4, 6}, 10);
+        String report = tournament.run();
+        assertTrue(report.contains("4 x 4"));
+        assertTrue(report.contains("6 x 6"));
+        assertTrue(report.contains("20 games in"));
+    }
+
+    @Test
+    void testRunBuiltIn() {
+        // the searching AIs come with small tables, so many of them fit in memory at once
+        Tournament tournament = new Tournament(List.of(
+                new Tournament.Entrant("Prunella", Tournament.BUILT_IN.get("Prunella")),
+                new Tournament.Entrant("Randomazo", Tournament.BUILT_IN.get("Randomazo"))), new int[] {4}, 40);
+        String report = tournament.run();
+        assertTrue(report.contains("40 games in"), report);
+    }
+
+    @Test
+    void testInvalidSetup() {
+        List<Tournament.Entrant> one = List.of(new Tournament.Entrant("Randomazo", Randomazo::new));
+        assertThrows(IllegalArgumentException.class, () -> new Tournament(one, new int[] {8}, 1));
+        List<Tournament.Entrant> two = List.of(
+                new Tournament.Entrant("Randomazo", Randomazo::new),
+                new Tournament.Entrant("Hastyn", Hastyn::new));
+        assertThrows(IllegalArgumentException.class, () -> new Tournament(two, new int[] {7}, 1));
+    }
+}
@@ -0,0 +1,96 @@
+package tests;
+
+import backend.TranspositionTable;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TranspositionTableUnitTest {
+    TranspositionTable table;
+
+    @BeforeEach
+    public void preTest() {
+        this.table = new TranspositionTable(1);
+    }
+
+    @Test
+    public void testStoreAndProbe() {
+        assertEquals(0L, this.table.probe(12345L));
+        this.table.store(12345L, -42, 27, 6, TranspositionTable.LOWER_BOUND);
+        long entry = this.table.probe(12345L);
+        assertNotEquals(0L, entry);
+        assertEquals(-42, TranspositionTable.getScore(entry));
+        assertEquals(27, TranspositionTable.getMove(entry));
+        assertEquals(6, TranspositionTable.getDepth(entry));
+        assertEquals(TranspositionTable.LOWER_BOUND, TranspositionTable.getBound(entry));
+
+        this.table.store(999L, 0, TranspositionTable.NO_MOVE, 0, TranspositionTable.EXACT);
+        assertEquals(TranspositionTable.NO_MOVE, TranspositionTable.getMove(this.table.probe(999L)));
+    }
+
+    @Test
+    public void testReplacement() {
+        // keys that differ only above the bucket bits share a bucket
+        long deep = 5L;
+        long shallow1 = 5L | (1L << 40) | (1L << 8);
+        long shallow2 = 5L | (1L << 41) | (1L << 9);
+        this.table.store(deep, 1, 1, 10, TranspositionTable.EXACT);
+        this.table.store(shallow1, 2, 2, 3, TranspositionTable.EXACT);
+        this.table.store(shallow2, 3, 3, 2, TranspositionTable.EXACT);
+        // the deep entry survives and the always-replace slot holds the latest one
+        assertEquals(1, TranspositionTable.getScore(this.table.probe(deep)));
+        assertEquals(0L, this.table.probe(shallow1));
+        assertEquals(3, TranspositionTable.getScore(this.table.probe(shallow2)));
+        // a collision was seen when probing shallow1
+        assertTrue(this.table.getCollisionRate() > 0);
+    }
+
+    @Test
+    public void testStatistics() {
+        assertEquals(0.0, this.table.getHitRate());
+        assertEquals(0.0, this.table.getOccupancy());
+        this.table.store(1L, 0, 0, 1, TranspositionTable.EXACT);
+        this.table.probe(1L);
+        this.table.probe(2L);
+        assertEquals(0.5, this.table.getHitRate());
+        assertEquals(1.0 / this.table.capacity(), this.table.getOccupancy());
+        this.table.clear();
+        assertEquals(0L, this.table.probe(1L));
+        assertEquals(0L, this.table.getStoreCount());
+    }
+
+    @Test
+    public void testConcurrentAccess() throws InterruptedException {
+        // every thread stores entries whose score is derived from the key,
+        // so any entry returned by a probe must match its key
+        List<Thread> threads = new ArrayList<>();
+        List<Throwable> errors = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            long seed = t;
+            Thread thread = new Thread(() -> {
+                SplittableRandom random = new SplittableRandom(seed);
+                for (int i = 0; i < 200000; i++) {
+                    long key = random.nextLong(1000) * 0x9E3779B97F4A7C15L;
+                    this.table.store(key, (int) (key >>> 40), (int) (key & 0x1FF), i & 0xFF, TranspositionTable.EXACT);
+                    long entry = this.table.probe(key);
+                    if (entry != 0 && TranspositionTable.getScore(entry) != (int) (key >>> 40)) {
+                        synchronized (errors) {
+                            errors.add(new AssertionError("torn entry"));
+                        }
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertTrue(errors.isEmpty());
+    }
+}
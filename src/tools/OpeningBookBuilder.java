@@ -0,0 +1,305 @@
+package tools;
+
+import ai.AIPlayer;
+import ai.Deadline;
+import backend.MockBoard;
+import backend.OpeningBook;
+import entities.Stone;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Builds an {@code OpeningBook} from games, either played by AIs against themselves
+ * or read from an archive. For every position in the first plies of each game, it counts
+ * how often each move was played and how the games went after it. The book then keeps,
+ * for each position, the move with the best average result among the moves played often enough.
+ * <p>
+ * Run from the command line as
+ * {@code java tools.OpeningBookBuilder --out book.bin [--ai Prunella] [--games 1000]
+ * [--random 4] [--plies 12] [--min-visits 2] [--archive games.txt]}.
+ */
+public class OpeningBookBuilder {
+    /** The size of the board the book is for. */
+    private final int size;
+    /** The number of plies from the start of each game that are recorded. */
+    private final int plies;
+    /**
+     * The statistics of every move seen, by canonical position hash, then by canonical move.
+     * Each entry holds the number of games and the sum of their final stone differences
+     * from the side of the player who made the move.
+     */
+    private final Map<Long, Map<Integer, long[]>> statistics = new HashMap<>();
+    /** The number of games added. */
+    private int games;
+
+    /**
+     * @param size The size of the board the book is for.
+     * @param plies The number of plies from the start of each game to record.
+     */
+    public OpeningBookBuilder(int size, int plies) {
+        this.size = size;
+        this.plies = plies;
+    }
+
+    /**
+     * Adds a finished game. The moves are replayed from the starting position,
+     * passing whenever the player to move has no valid move.
+     *
+     * @param moves The moves of the game in order as {@code row * size + col}, without passes.
+     * @throws IllegalArgumentException If a move is not valid.
+     */
+    public void addGame(List<Integer> moves) {
+        MockBoard board = MockBoard.startingPosition(this.size);
+        long[] hashes = new long[Math.min(this.plies, moves.size())];
+        int[] canonicalMoves = new int[hashes.length];
+        Stone[] movers = new Stone[hashes.length];
+        for (int ply = 0; ply < moves.size(); ply++) {
+            if (board.getValidMoves().isEmpty()) {
+                board.nextTurn();
+            }
+            int move = moves.get(ply);
+            if (ply < hashes.length) {
+                int symmetry = OpeningBook.canonicalSymmetry(board);
+                hashes[ply] = OpeningBook.symmetricHash(board, symmetry);
+                canonicalMoves[ply] = OpeningBook.transform(move, this.size, symmetry);
+                movers[ply] = board.getTurn();
+            }
+            if (board.placeStone(move / this.size, move % this.size) == 0) {
+                throw new IllegalArgumentException("Move " + (ply + 1) + " of the game is not valid.");
+            }
+        }
+
+        int blackLead = board.countStones(Stone.BLACK) - board.countStones(Stone.WHITE);
+        synchronized (this.statistics) {
+            for (int ply = 0; ply < hashes.length; ply++) {
+                long[] stats = this.statistics
+                        .computeIfAbsent(hashes[ply], hash -> new HashMap<>())
+                        .computeIfAbsent(canonicalMoves[ply], move -> new long[2]);
+                stats[0]++;
+                stats[1] += Stone.BLACK.equals(movers[ply]) ? blackLead : -blackLead;
+            }
+            this.games++;
+        }
+    }
+
+    /**
+     * Plays games of an AI against itself and adds them.
+     * The first few moves of each game are random so that the games differ.
+     * Games are played concurrently like in {@code Tournament}.
+     *
+     * @param factory Creates the AI for a game given the stone it plays.
+     * @param count The number of games to play.
+     * @param randomPlies The number of random moves at the start of each game.
+     */
+    public void addSelfPlay(Function<Stone, AIPlayer> factory, int count, int randomPlies) {
+        playSelfPlay(this.size, factory, count, randomPlies, this::addGame);
+    }
+
+    /**
+     * Plays games of an AI against itself concurrently and hands each one over as it ends.
+     *
+     * @param size The size of the board.
+     * @param factory Creates the AI for a game given the stone it plays.
+     * @param count The number of games to play.
+     * @param randomPlies The number of random moves at the start of each game.
+     * @param addGame Takes the moves of a finished game. It is called from the threads playing the games.
+     */
+    static void playSelfPlay(int size, Function<Stone, AIPlayer> factory, int count, int randomPlies,
+                             Consumer<List<Integer>> addGame) {
+        List<Callable<Object>> games = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            games.add(() -> {
+                addGame.accept(playGame(size, factory, randomPlies));
+                return null;
+            });
+        }
+        Tournament.runAll(Tournament.newGameExecutor(), games);
+    }
+
+    /**
+     * Plays one game of an AI against itself.
+     *
+     * @param size The size of the board.
+     * @param factory Creates the AI for a game given the stone it plays.
+     * @param randomPlies The number of random moves at the start of the game.
+     * @return The moves of the game as {@code row * size + col}, without passes.
+     */
+    static List<Integer> playGame(int size, Function<Stone, AIPlayer> factory, int randomPlies) {
+        MockBoard board = MockBoard.startingPosition(size);
+        AIPlayer black = factory.apply(Stone.BLACK);
+        AIPlayer white = factory.apply(Stone.WHITE);
+        List<Integer> moves = new ArrayList<>();
+        boolean passed = false;
+        while (true) {
+            List<int[]> valid = board.getValidMoves();
+            if (valid.isEmpty()) {
+                if (passed) {
+                    return moves;
+                }
+                passed = true;
+                board.nextTurn();
+                continue;
+            }
+            passed = false;
+            int[] move;
+            if (moves.size() < randomPlies) {
+                move = valid.get(ThreadLocalRandom.current().nextInt(valid.size()));
+            }
+            else {
+                move = (Stone.BLACK.equals(board.getTurn()) ? black : white).selectMove(board, Deadline.none());
+            }
+            board.placeStone(move[0], move[1]);
+            moves.add(move[0] * size + move[1]);
+        }
+    }
+
+    /**
+     * Adds every game of an archive. Each line holds one game as its moves written one after another
+     * without passes, each as a column letter and a row number, such as {@code f5d6c3d3}.
+     * Blank lines are skipped.
+     *
+     * @param path The path to the archive.
+     * @throws IOException If the archive cannot be read.
+     * @throws IllegalArgumentException If a game cannot be read or has an invalid move.
+     */
+    public void addArchive(Path path) throws IOException {
+        int lineNumber = 0;
+        for (String line : Files.readAllLines(path)) {
+            lineNumber++;
+            line = line.strip().toLowerCase();
+            if (line.isEmpty()) {
+                continue;
+            }
+            List<Integer> moves = new ArrayList<>();
+            int i = 0;
+            while (i < line.length()) {
+                int col = line.charAt(i) - 'a';
+                int end = i + 1;
+                while (end < line.length() && Character.isDigit(line.charAt(end))) {
+                    end++;
+                }
+                if (col < 0 || col >= this.size || end == i + 1) {
+                    throw new IllegalArgumentException("Cannot read move at line " + lineNumber + ": " + line);
+                }
+                int row = Integer.parseInt(line.substring(i + 1, end)) - 1;
+                if (row < 0 || row >= this.size) {
+                    throw new IllegalArgumentException("Cannot read move at line " + lineNumber + ": " + line);
+                }
+                moves.add(row * this.size + col);
+                i = end;
+            }
+            try {
+                this.addGame(moves);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Game at line " + lineNumber + ": " + e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Writes the book. Each position gets the move with the best average stone difference
+     * among the moves seen at least {@code minVisits} times; positions without such a move are left out.
+     *
+     * @param path The path to write to. An existing file is replaced.
+     * @param minVisits The number of games a move must have been seen in to be trusted.
+     * @return The number of positions written.
+     * @throws IOException If the book cannot be written.
+     */
+    public int write(Path path, int minVisits) throws IOException {
+        List<Long> hashes = new ArrayList<>();
+        List<int[]> records = new ArrayList<>();
+        for (Map.Entry<Long, Map<Integer, long[]>> position : this.statistics.entrySet()) {
+            int bestMove = OpeningBook.NO_MOVE;
+            double bestScore = Double.NEGATIVE_INFINITY;
+            long bestVisits = 0;
+            for (Map.Entry<Integer, long[]> move : position.getValue().entrySet()) {
+                long visits = move.getValue()[0];
+                double score = (double) move.getValue()[1] / visits;
+                if (visits >= minVisits && (score > bestScore || (score == bestScore && visits > bestVisits))) {
+                    bestMove = move.getKey();
+                    bestScore = score;
+                    bestVisits = visits;
+                }
+            }
+            if (bestMove != OpeningBook.NO_MOVE) {
+                hashes.add(position.getKey());
+                records.add(new int[] {bestMove, (int) Math.round(bestScore), (int) Math.min(bestVisits, Integer.MAX_VALUE)});
+            }
+        }
+        int count = hashes.size();
+        long[] hashArray = new long[count];
+        int[] moves = new int[count], scores = new int[count], visits = new int[count];
+        for (int i = 0; i < count; i++) {
+            hashArray[i] = hashes.get(i);
+            moves[i] = records.get(i)[0];
+            scores[i] = records.get(i)[1];
+            visits[i] = records.get(i)[2];
+        }
+        OpeningBook.write(path, this.size, hashArray, moves, scores, visits);
+        return count;
+    }
+
+    /**
+     * @return The number of games added.
+     */
+    public int getGameCount() {
+        return this.games;
+    }
+
+    /**
+     * Builds a book from the command line.
+     *
+     * @param args {@code --out} followed by the path of the book (required),
+     *             {@code --ai} followed by a name from {@code Tournament.BUILT_IN} for self-play,
+     *             {@code --games} followed by the number of self-play games (0 to skip),
+     *             {@code --random} followed by the number of random moves opening each self-play game,
+     *             {@code --plies} followed by the number of plies to record per game,
+     *             {@code --min-visits} followed by the games a move must be seen in,
+     *             {@code --archive} followed by the path of a game archive to add,
+     *             and {@code --size} followed by the board size.
+     * @throws IOException If the archive cannot be read or the book cannot be written.
+     */
+    public static void main(String[] args) throws IOException {
+        String out = null, ai = "Prunella", archive = null;
+        int games = 1000, random = 4, plies = 12, minVisits = 2, size = 8;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--out" -> out = args[i + 1];
+                case "--ai" -> ai = args[i + 1];
+                case "--games" -> games = Integer.parseInt(args[i + 1]);
+                case "--random" -> random = Integer.parseInt(args[i + 1]);
+                case "--plies" -> plies = Integer.parseInt(args[i + 1]);
+                case "--min-visits" -> minVisits = Integer.parseInt(args[i + 1]);
+                case "--archive" -> archive = args[i + 1];
+                case "--size" -> size = Integer.parseInt(args[i + 1]);
+                default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        if (out == null) {
+            throw new IllegalArgumentException("The path of the book is needed with --out.");
+        }
+        OpeningBookBuilder builder = new OpeningBookBuilder(size, plies);
+        if (archive != null) {
+            builder.addArchive(Path.of(archive));
+        }
+        if (games > 0) {
+            Function<Stone, AIPlayer> factory = Tournament.BUILT_IN.get(ai);
+            if (factory == null) {
+                throw new IllegalArgumentException("Unknown AI " + ai + ". Choose from " + Tournament.BUILT_IN.keySet());
+            }
+            builder.addSelfPlay(factory, games, random);
+        }
+        int written = builder.write(Path.of(out), minVisits);
+        System.out.printf("%d positions from %d games written to %s%n", written, builder.getGameCount(), out);
+    }
+}
@@ -0,0 +1,230 @@
+package tools;
+
+import ai.AIPlayer;
+import ai.PatternEvaluator;
+import backend.MockBoard;
+import entities.Stone;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+
+/**
+ * Trains the weights of a {@code PatternEvaluator} from games.
+ * Every position of every game is recorded along with the final stone difference
+ * from the side of the player to move, and the weights are fitted to predict it
+ * by stochastic gradient descent on the squared error.
+ * <p>
+ * Run from the command line as
+ * {@code java tools.PatternWeightsBuilder --out patterns.bin [--ai Hastyn] [--games 2000]
+ * [--random 8] [--size 8] [--stages 4] [--epochs 10] [--rate 0.05]}.
+ */
+public class PatternWeightsBuilder {
+    /** The size of the board the weights are for. */
+    private final int size;
+    /** The number of game stages with their own tables. */
+    private final int stages;
+    /** The pattern of each placement. */
+    private final int[] placementPatterns;
+    /** The weights being trained, by [stage][pattern][index], in {@code 1 / SCALE} stones. */
+    private final float[][][] weights;
+    /** The positions recorded so far. */
+    private final List<Sample> samples = new ArrayList<>();
+    /** The number of games added. */
+    private int games;
+
+    /**
+     * A recorded position.
+     *
+     * @param stage The game stage of the position.
+     * @param target The final stone difference from the side of the player to move, in {@code 1 / SCALE} stones.
+     * @param indices The table index of every placement.
+     */
+    private record Sample(int stage, int target, int[] indices) {}
+
+    /**
+     * @param size The size of the board the weights are for.
+     * @param stages The number of game stages with their own tables.
+     */
+    public PatternWeightsBuilder(int size, int stages) {
+        this.size = size;
+        this.stages = stages;
+        this.placementPatterns = PatternEvaluator.getPlacementPatterns(size);
+        int[] lengths = PatternEvaluator.patternLengths(size);
+        this.weights = new float[stages][lengths.length][];
+        for (int stage = 0; stage < stages; stage++) {
+            for (int p = 0; p < lengths.length; p++) {
+                this.weights[stage][p] = new float[(int) Math.pow(3, lengths[p])];
+            }
+        }
+    }
+
+    /**
+     * Adds a finished game. The moves are replayed from the starting position,
+     * passing whenever the player to move has no valid move, and every position
+     * a move is played in is recorded.
+     *
+     * @param moves The moves of the game in order as {@code row * size + col}, without passes.
+     * @throws IllegalArgumentException If a move is not valid.
+     */
+    public void addGame(List<Integer> moves) {
+        MockBoard board = MockBoard.startingPosition(this.size);
+        List<int[]> indices = new ArrayList<>();
+        List<Integer> stages = new ArrayList<>();
+        List<Stone> movers = new ArrayList<>();
+        for (int ply = 0; ply < moves.size(); ply++) {
+            if (board.getValidMoves().isEmpty()) {
+                board.nextTurn();
+            }
+            int[] position = new int[this.placementPatterns.length];
+            PatternEvaluator.fillIndices(board, position);
+            indices.add(position);
+            stages.add(PatternEvaluator.stageOf(board, this.stages));
+            movers.add(board.getTurn());
+            int move = moves.get(ply);
+            if (board.placeStone(move / this.size, move % this.size) == 0) {
+                throw new IllegalArgumentException("Move " + (ply + 1) + " of the game is not valid.");
+            }
+        }
+
+        int blackLead = board.countStones(Stone.BLACK) - board.countStones(Stone.WHITE);
+        synchronized (this.samples) {
+            for (int ply = 0; ply < indices.size(); ply++) {
+                int lead = Stone.BLACK.equals(movers.get(ply)) ? blackLead : -blackLead;
+                this.samples.add(new Sample(stages.get(ply), lead * PatternEvaluator.SCALE, indices.get(ply)));
+            }
+            this.games++;
+        }
+    }
+
+    /**
+     * Plays games of an AI against itself and adds them.
+     * The first few moves of each game are random so that the games differ.
+     * Games are played concurrently like in {@code Tournament}.
+     *
+     * @param factory Creates the AI for a game given the stone it plays.
+     * @param count The number of games to play.
+     * @param randomPlies The number of random moves at the start of each game.
+     */
+    public void addSelfPlay(Function<Stone, AIPlayer> factory, int count, int randomPlies) {
+        OpeningBookBuilder.playSelfPlay(this.size, factory, count, randomPlies, this::addGame);
+    }
+
+    /**
+     * Fits the weights to the recorded positions. Each epoch goes over every position once
+     * in a random order and moves the weights of its placements towards the final stone difference.
+     *
+     * @param epochs The number of passes over the positions.
+     * @param rate The share of the error corrected at each position, between 0 and 1.
+     * @param seed The seed for shuffling the positions.
+     * @return The root mean squared error of the last epoch in stones, or 0 if nothing was recorded.
+     */
+    public double train(int epochs, double rate, long seed) {
+        Random random = new Random(seed);
+        int placements = this.placementPatterns.length;
+        double squaredError = 0;
+        for (int epoch = 0; epoch < epochs; epoch++) {
+            Collections.shuffle(this.samples, random);
+            squaredError = 0;
+            for (Sample sample : this.samples) {
+                float[][] tables = this.weights[sample.stage];
+                float predicted = 0;
+                for (int i = 0; i < placements; i++) {
+                    predicted += tables[this.placementPatterns[i]][sample.indices[i]];
+                }
+                float error = sample.target - predicted;
+                squaredError += (double) error * error;
+                float step = (float) (rate * error / placements);
+                for (int i = 0; i < placements; i++) {
+                    tables[this.placementPatterns[i]][sample.indices[i]] += step;
+                }
+            }
+        }
+        if (this.samples.isEmpty()) {
+            return 0.0;
+        }
+        return Math.sqrt(squaredError / this.samples.size()) / PatternEvaluator.SCALE;
+    }
+
+    /**
+     * Rounds the trained weights into an evaluator.
+     *
+     * @return The evaluator.
+     */
+    public PatternEvaluator build() {
+        short[][][] rounded = new short[this.stages][this.weights[0].length][];
+        for (int stage = 0; stage < this.stages; stage++) {
+            for (int p = 0; p < this.weights[stage].length; p++) {
+                float[] table = this.weights[stage][p];
+                rounded[stage][p] = new short[table.length];
+                for (int index = 0; index < table.length; index++) {
+                    rounded[stage][p][index] = (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, Math.round(table[index])));
+                }
+            }
+        }
+        return PatternEvaluator.of(this.size, rounded);
+    }
+
+    /**
+     * @return The number of games added.
+     */
+    public int getGameCount() {
+        return this.games;
+    }
+
+    /**
+     * @return The number of positions recorded.
+     */
+    public int getPositionCount() {
+        return this.samples.size();
+    }
+
+    /**
+     * Trains weights from the command line.
+     *
+     * @param args {@code --out} followed by the path of the weight file (required),
+     *             {@code --ai} followed by a name from {@code Tournament.BUILT_IN} for self-play,
+     *             {@code --games} followed by the number of self-play games,
+     *             {@code --random} followed by the number of random moves opening each game,
+     *             {@code --size} followed by the board size,
+     *             {@code --stages} followed by the number of game stages,
+     *             {@code --epochs} followed by the number of passes over the positions,
+     *             and {@code --rate} followed by the learning rate.
+     * @throws IOException If the weights cannot be written.
+     */
+    public static void main(String[] args) throws IOException {
+        String out = null, ai = "Hastyn";
+        int games = 2000, random = 8, size = 8, stages = 4, epochs = 10;
+        double rate = 0.05;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--out" -> out = args[i + 1];
+                case "--ai" -> ai = args[i + 1];
+                case "--games" -> games = Integer.parseInt(args[i + 1]);
+                case "--random" -> random = Integer.parseInt(args[i + 1]);
+                case "--size" -> size = Integer.parseInt(args[i + 1]);
+                case "--stages" -> stages = Integer.parseInt(args[i + 1]);
+                case "--epochs" -> epochs = Integer.parseInt(args[i + 1]);
+                case "--rate" -> rate = Double.parseDouble(args[i + 1]);
+                default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        if (out == null) {
+            throw new IllegalArgumentException("The path of the weight file is needed with --out.");
+        }
+        Function<Stone, AIPlayer> factory = Tournament.BUILT_IN.get(ai);
+        if (factory == null) {
+            throw new IllegalArgumentException("Unknown AI " + ai + ". Choose from " + Tournament.BUILT_IN.keySet());
+        }
+        PatternWeightsBuilder builder = new PatternWeightsBuilder(size, stages);
+        builder.addSelfPlay(factory, games, random);
+        double error = builder.train(epochs, rate, 0L);
+        builder.build().write(Path.of(out));
+        System.out.printf("%d positions from %d games, %.2f stones of error, written to %s%n",
+                builder.getPositionCount(), builder.getGameCount(), error, out);
+    }
+}
@@ -0,0 +1,186 @@
+package tools;
+
+import backend.BitBoard;
+import backend.BoardState;
+import backend.MockBoard;
+import backend.MoveUndo;
+import backend.PackedBoard;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+
+/**
+ * Counts the positions reachable in a number of plies, to check that move generation is right
+ * and to measure how fast it is. Passes are treated exactly as {@code MockBoardTree.generateAllOutcomes}
+ * treats them: a position without a valid move has a single child where the turn is passed,
+ * even if the game is over.
+ * <p>
+ * Run from the command line as
+ * {@code java tools.Perft [--board mock|bit|packed] [--size 8] [--depth 9] [--threads 1]}.
+ * On the 8 x 8 board, every count is checked against {@code KNOWN_COUNTS}.
+ */
+public class Perft {
+    /**
+     * The number of positions reachable from the 8 x 8 starting position by depth.
+     */
+    public static final long[] KNOWN_COUNTS = {1, 4, 12, 56, 244, 1396, 8200, 55092, 390216, 3005288};
+
+    /** The position being counted. It is changed in place and restored as the count goes. */
+    private final BoardState board;
+    /** The moves of each ply, so move generation does not allocate. */
+    private final int[][] moveBuffers;
+
+    /**
+     * @param board The position to count from. It is changed during the count.
+     * @param depth The number of plies to count.
+     */
+    private Perft(BoardState board, int depth) {
+        this.board = board;
+        int squares = board.getSize() * board.getSize();
+        this.moveBuffers = new int[Math.max(depth, 1)][squares];
+    }
+
+    /**
+     * Counts the positions reachable in exactly the given number of plies.
+     *
+     * @param position The position to count from. It is not modified.
+     * @param depth The number of plies.
+     * @return The number of positions, with transpositions counted as many times as they are reached.
+     */
+    public static long count(BoardState position, int depth) {
+        return new Perft(position.copy(), depth).count(depth);
+    }
+
+    /**
+     * Counts the positions reachable in exactly the given number of plies,
+     * with the moves of the position split between threads.
+     *
+     * @param position The position to count from. It is not modified.
+     * @param depth The number of plies.
+     * @param threads The number of threads to use.
+     * @return The number of positions, the same as {@code count}.
+     */
+    public static long countParallel(BoardState position, int depth, int threads) {
+        if (depth <= 1 || threads <= 1) {
+            return count(position, depth);
+        }
+        int[] moves = new int[position.getSize() * position.getSize()];
+        int moveCount = position.fillValidMoves(moves);
+        List<BoardState> children = new ArrayList<>();
+        for (int i = 0; i < moveCount; i++) {
+            BoardState child = position.copy();
+            child.placeStone(moves[i] / position.getSize(), moves[i] % position.getSize());
+            children.add(child);
+        }
+        if (moveCount == 0) {
+            BoardState passed = position.copy();
+            passed.nextTurn();
+            children.add(passed);
+        }
+
+        List<Callable<Long>> subtrees = new ArrayList<>();
+        for (BoardState child : children) {
+            subtrees.add(() -> new Perft(child, depth - 1).count(depth - 1));
+        }
+        long total = 0;
+        for (long subtree : Tournament.runAll(Executors.newFixedThreadPool(threads), subtrees)) {
+            total += subtree;
+        }
+        return total;
+    }
+
+    /**
+     * Counts the positions reachable from the current position.
+     *
+     * @param depth The number of plies left.
+     * @return The number of positions.
+     */
+    private long count(int depth) {
+        if (depth == 0) {
+            return 1;
+        }
+        int[] moves = this.moveBuffers[depth - 1];
+        int moveCount = this.board.fillValidMoves(moves);
+        if (moveCount == 0) {
+            // a pass is the only child
+            this.board.nextTurn();
+            long nodes = this.count(depth - 1);
+            this.board.nextTurn();
+            return nodes;
+        }
+        if (depth == 1) {
+            return moveCount;
+        }
+        int size = this.board.getSize();
+        long nodes = 0;
+        for (int i = 0; i < moveCount; i++) {
+            MoveUndo undo = this.board.makeMove(moves[i] / size, moves[i] % size);
+            nodes += this.count(depth - 1);
+            this.board.unmakeMove(undo);
+        }
+        return nodes;
+    }
+
+    /**
+     * Counts from the starting position up to a depth, printing the count, time
+     * and positions per second of each depth, and checks the counts of the 8 x 8 board.
+     *
+     * @param start The starting position. It is not modified.
+     * @param maxDepth The deepest depth to count.
+     * @param threads The number of threads to use.
+     * @return {@code true} if every count with a known value matched it.
+     */
+    public static boolean run(BoardState start, int maxDepth, int threads) {
+        boolean correct = true;
+        boolean known = start.getSize() == 8;
+        System.out.printf("%-6s %-14s %-10s %-14s %s%n", "Depth", "Positions", "Seconds", "Positions/sec", "Expected");
+        for (int depth = 1; depth <= maxDepth; depth++) {
+            long begin = System.nanoTime();
+            long nodes = countParallel(start, depth, threads);
+            double seconds = (System.nanoTime() - begin) / 1e9;
+            String expected = "";
+            if (known && depth < KNOWN_COUNTS.length) {
+                boolean match = nodes == KNOWN_COUNTS[depth];
+                correct &= match;
+                expected = match ? "ok" : "MISMATCH, expected " + KNOWN_COUNTS[depth];
+            }
+            System.out.printf("%-6d %-14d %-10.3f %-14.0f %s%n",
+                    depth, nodes, seconds, seconds == 0 ? 0.0 : nodes / seconds, expected);
+        }
+        return correct;
+    }
+
+    /**
+     * Runs perft from the command line.
+     *
+     * @param args {@code --board} followed by the board representation to use ({@code mock}, {@code bit}
+     *             or {@code packed}), {@code --size} followed by the board size,
+     *             {@code --depth} followed by the deepest depth to count,
+     *             and {@code --threads} followed by the number of threads.
+     */
+    public static void main(String[] args) {
+        String board = "mock";
+        int size = 8, depth = 9, threads = 1;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--board" -> board = args[i + 1];
+                case "--size" -> size = Integer.parseInt(args[i + 1]);
+                case "--depth" -> depth = Integer.parseInt(args[i + 1]);
+                case "--threads" -> threads = Integer.parseInt(args[i + 1]);
+                default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        MockBoard start = MockBoard.startingPosition(size);
+        BoardState position = switch (board) {
+            case "mock" -> start;
+            case "bit" -> new BitBoard(start);
+            case "packed" -> new PackedBoard(start);
+            default -> throw new IllegalArgumentException("Unknown board " + board + ". Choose from mock, bit and packed.");
+        };
+        if (!run(position, depth, threads)) {
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,301 @@
+package tools;
+
+import ai.*;
+import backend.MockBoard;
+import entities.Stone;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Plays AIs against each other without the GUI.
+ * Every pair of entrants plays the same number of games on every board size,
+ * taking turns to play black. Games run concurrently, one thread per game,
+ * but no more of them play at once than there are cores, so that every AI gets
+ * the time it is given and the memory of the AIs stays bounded.
+ * The games only use {@code AIPlayer.selectMove}, so neither {@code Board},
+ * {@code GameFrame} nor any Swing class is touched.
+ * <p>
+ * Run from the command line as
+ * {@code java tools.Tournament [--ais Randomazo,Hastyn,Oracina] [--sizes 8] [--games 100]}.
+ */
+public class Tournament {
+    /**
+     * The AIs that can be entered by name. The searching AIs are given a short time,
+     * a single thread and a small table, since many games are played at once.
+     */
+    public static final Map<String, Function<Stone, AIPlayer>> BUILT_IN = new LinkedHashMap<>();
+
+    static {
+        BUILT_IN.put("Randomazo", Randomazo::new);
+        BUILT_IN.put("Hastyn", Hastyn::new);
+        BUILT_IN.put("Oracina", stone -> new Oracina(stone, 2, Oracina.SearchMode.STREAMING));
+        BUILT_IN.put("Prunella", stone -> new Prunella(stone, 100, 1, 1));
+        BUILT_IN.put("Carlotta", stone -> new Carlotta(stone, 100, 1));
+    }
+
+    /**
+     * An AI taking part in the tournament.
+     *
+     * @param name The name shown in the results.
+     * @param factory Creates the AI for a game given the stone it plays.
+     */
+    public record Entrant(String name, Function<Stone, AIPlayer> factory) {}
+
+    /** The AIs taking part. */
+    private final List<Entrant> entrants;
+    /** The board sizes to play on. */
+    private final int[] sizes;
+    /** The number of games every pair plays on each size. */
+    private final int games;
+
+    /** The results by [size index][entrant][opponent][win, draw, loss], from the entrant's side. */
+    private final int[][][][] results;
+    /** The total time each entrant spent finding moves, in nanoseconds. */
+    private final LongAdder[] moveTimes;
+    /** The number of moves each entrant found. */
+    private final LongAdder[] moveCounts;
+    /** The time taken by the whole tournament, in nanoseconds. */
+    private long elapsed;
+    /** The number of games played. */
+    private int played;
+
+    /**
+     * Sets up a round-robin tournament.
+     *
+     * @param entrants The AIs taking part. At least two are needed.
+     * @param sizes The board sizes to play on.
+     * @param games The number of games every pair plays on each size.
+     * @throws IllegalArgumentException If there are fewer than two entrants or a size is not supported.
+     */
+    public Tournament(List<Entrant> entrants, int[] sizes, int games) {
+        if (entrants.size() < 2) {
+            throw new IllegalArgumentException("At least two AIs are needed for a tournament.");
+        }
+        for (int size : sizes) {
+            if (size < 4 || size > 24 || size % 2 != 0) {
+                throw new IllegalArgumentException("Unsupported board size " + size);
+            }
+        }
+        this.entrants = List.copyOf(entrants);
+        this.sizes = sizes.clone();
+        this.games = games;
+        int n = entrants.size();
+        this.results = new int[sizes.length][n][n][3];
+        this.moveTimes = new LongAdder[n];
+        this.moveCounts = new LongAdder[n];
+        for (int i = 0; i < n; i++) {
+            this.moveTimes[i] = new LongAdder();
+            this.moveCounts[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Plays every game of the tournament and waits for them to finish.
+     *
+     * @return The results. See {@code report}.
+     */
+    public String run() {
+        long start = System.nanoTime();
+        List<Callable<Object>> games = new ArrayList<>();
+        // the AIs think against the clock, so the games must not outnumber the cores
+        Semaphore playing = new Semaphore(Runtime.getRuntime().availableProcessors());
+        for (int s = 0; s < this.sizes.length; s++) {
+            for (int a = 0; a < this.entrants.size(); a++) {
+                for (int b = a + 1; b < this.entrants.size(); b++) {
+                    for (int game = 0; game < this.games; game++) {
+                        // the entrants take turns playing black
+                        int black = game % 2 == 0 ? a : b;
+                        int white = game % 2 == 0 ? b : a;
+                        int sizeIndex = s;
+                        games.add(Executors.callable(() -> {
+                            playing.acquireUninterruptibly();
+                            try {
+                                this.playGame(sizeIndex, black, white);
+                            } finally {
+                                playing.release();
+                            }
+                        }));
+                    }
+                }
+            }
+        }
+        runAll(newGameExecutor(), games);
+        this.elapsed = System.nanoTime() - start;
+        this.played = games.size();
+        return this.report();
+    }
+
+    /**
+     * Creates the executor the games run on. This is one virtual thread per game
+     * when the Java runtime has them, and one platform thread per core otherwise.
+     *
+     * @return The executor.
+     */
+    static ExecutorService newGameExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        }
+    }
+
+    /**
+     * Runs tasks on an executor and waits for all of them, then shuts the executor down.
+     *
+     * @param executor The executor to run the tasks on.
+     * @param tasks The tasks.
+     * @return The results of the tasks, in the same order.
+     * @throws RuntimeException If a task threw, wrapping what it threw.
+     */
+    static <T> List<T> runAll(ExecutorService executor, List<? extends Callable<T>> tasks) {
+        try {
+            List<T> results = new ArrayList<>();
+            for (Future<T> task : executor.invokeAll(tasks)) {
+                results.add(task.get());
+            }
+            return results;
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Plays one game to the end and records the result.
+     *
+     * @param sizeIndex The index of the board size in {@code sizes}.
+     * @param black The index of the entrant playing black.
+     * @param white The index of the entrant playing white.
+     * @throws IllegalStateException If an AI returns an illegal move.
+     */
+    private void playGame(int sizeIndex, int black, int white) {
+        MockBoard board = MockBoard.startingPosition(this.sizes[sizeIndex]);
+        AIPlayer blackAI = this.entrants.get(black).factory().apply(Stone.BLACK);
+        AIPlayer whiteAI = this.entrants.get(white).factory().apply(Stone.WHITE);
+        boolean passed = false;
+        while (true) {
+            boolean blackTurn = board.getTurn().equals(Stone.BLACK);
+            int mover = blackTurn ? black : white;
+            long start = System.nanoTime();
+            int[] move = (blackTurn ? blackAI : whiteAI).selectMove(board, Deadline.none());
+            this.moveTimes[mover].add(System.nanoTime() - start);
+            this.moveCounts[mover].increment();
+            if (move == null) {
+                if (passed) {
+                    // neither player can move, so the game is over
+                    break;
+                }
+                passed = true;
+                board.nextTurn();
+                continue;
+            }
+            passed = false;
+            if (board.placeStone(move[0], move[1]) == 0) {
+                throw new IllegalStateException(this.entrants.get(mover).name() + " made an illegal move "
+                        + Arrays.toString(move));
+            }
+        }
+
+        int difference = board.countStones(Stone.BLACK) - board.countStones(Stone.WHITE);
+        int blackResult = difference > 0 ? 0 : difference == 0 ? 1 : 2;
+        synchronized (this.results) {
+            this.results[sizeIndex][black][white][blackResult]++;
+            this.results[sizeIndex][white][black][2 - blackResult]++;
+        }
+    }
+
+    /**
+     * Formats the results: a win/draw/loss table for each board size, the average time
+     * each entrant took per move, and the number of games played per second.
+     *
+     * @return The results as text.
+     */
+    public String report() {
+        int n = this.entrants.size();
+        int width = 12;
+        for (Entrant entrant : this.entrants) {
+            width = Math.max(width, entrant.name().length() + 2);
+        }
+        String cell = "%-" + width + "s";
+        StringBuilder out = new StringBuilder();
+        for (int s = 0; s < this.sizes.length; s++) {
+            out.append(String.format("%d x %d (W-D-L, row against column)%n", this.sizes[s], this.sizes[s]));
+            out.append(String.format(cell, ""));
+            for (Entrant entrant : this.entrants) {
+                out.append(String.format(cell, entrant.name()));
+            }
+            out.append(String.format(cell, "Total")).append(System.lineSeparator());
+            for (int a = 0; a < n; a++) {
+                out.append(String.format(cell, this.entrants.get(a).name()));
+                int[] total = new int[3];
+                for (int b = 0; b < n; b++) {
+                    int[] result = this.results[s][a][b];
+                    out.append(String.format(cell, a == b ? "-" : result[0] + "-" + result[1] + "-" + result[2]));
+                    for (int i = 0; i < 3; i++) {
+                        total[i] += result[i];
+                    }
+                }
+                out.append(String.format(cell, total[0] + "-" + total[1] + "-" + total[2])).append(System.lineSeparator());
+            }
+            out.append(System.lineSeparator());
+        }
+
+        out.append("Average move time").append(System.lineSeparator());
+        for (int a = 0; a < n; a++) {
+            long count = this.moveCounts[a].sum();
+            double average = count == 0 ? 0.0 : this.moveTimes[a].sum() / 1e6 / count;
+            out.append(String.format(cell + "%.3f ms%n", this.entrants.get(a).name(), average));
+        }
+        out.append(System.lineSeparator());
+        double seconds = this.elapsed / 1e9;
+        out.append(String.format("%d games in %.1f s, %.2f games/sec%n",
+                this.played, seconds, seconds == 0 ? 0.0 : this.played / seconds));
+        return out.toString();
+    }
+
+    /**
+     * Runs a tournament from the command line and prints the results.
+     *
+     * @param args {@code --ais} followed by comma-separated names from {@code BUILT_IN},
+     *             {@code --sizes} followed by comma-separated board sizes,
+     *             and {@code --games} followed by the number of games per pair and size.
+     */
+    public static void main(String[] args) {
+        String names = "Randomazo,Hastyn,Oracina";
+        String sizes = "8";
+        int games = 100;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--ais" -> names = args[i + 1];
+                case "--sizes" -> sizes = args[i + 1];
+                case "--games" -> games = Integer.parseInt(args[i + 1]);
+                default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        List<Entrant> entrants = new ArrayList<>();
+        for (String name : names.split(",")) {
+            Function<Stone, AIPlayer> factory = BUILT_IN.get(name);
+            if (factory == null) {
+                throw new IllegalArgumentException("Unknown AI " + name + ". Choose from " + BUILT_IN.keySet());
+            }
+            entrants.add(new Entrant(name, factory));
+        }
+        int[] boardSizes = Arrays.stream(sizes.split(",")).mapToInt(Integer::parseInt).toArray();
+        System.out.print(new Tournament(entrants, boardSizes, games).run());
+    }
+}